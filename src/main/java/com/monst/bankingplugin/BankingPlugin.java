@@ -1,11 +1,14 @@
 package com.monst.bankingplugin;
 
 import com.earth2me.essentials.Essentials;
+import com.google.common.cache.CacheStats;
 import com.monst.bankingplugin.command.account.AccountCommand;
 import com.monst.bankingplugin.command.bank.BankCommand;
 import com.monst.bankingplugin.command.plugin.BPCommand;
 import com.monst.bankingplugin.configuration.Configuration;
+import com.monst.bankingplugin.configuration.values.DebugLog;
 import com.monst.bankingplugin.entity.Account;
+import com.monst.bankingplugin.entity.geo.region.PolygonalBankRegion;
 import com.monst.bankingplugin.external.GriefPreventionListener;
 import com.monst.bankingplugin.external.WorldGuardListener;
 import com.monst.bankingplugin.lang.ColorStringBuilder;
@@ -13,6 +16,9 @@ import com.monst.bankingplugin.listener.*;
 import com.monst.bankingplugin.persistence.Database;
 import com.monst.bankingplugin.persistence.service.*;
 import com.monst.bankingplugin.update.UpdaterService;
+import com.monst.bankingplugin.util.AccountContentsTracker;
+import com.monst.bankingplugin.util.AsyncFileLogger;
+import com.monst.bankingplugin.util.DebugCategory;
 import com.monst.bankingplugin.util.Logger;
 import com.monst.bankingplugin.util.PaymentService;
 import com.monst.bankingplugin.util.SchedulerService;
@@ -33,10 +39,10 @@ import org.codemc.worldguardwrapper.flag.IWrappedFlag;
 import org.codemc.worldguardwrapper.flag.WrappedState;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class BankingPlugin extends JavaPlugin {
@@ -58,6 +64,7 @@ public class BankingPlugin extends JavaPlugin {
     private SchedulerService schedulerService;
     private PaymentService paymentService;
     private Worths worths;
+    private final AccountContentsTracker contentsTracker = new AccountContentsTracker();
 
     /*	Hard Dependencies  */
     private Economy economy;
@@ -81,6 +88,8 @@ public class BankingPlugin extends JavaPlugin {
     @Override
     public void onLoad() {
         configuration = new Configuration(this);
+        setDebugLogEnabled(config().enableDebugLog.get());
+        PolygonalBankRegion.setBitmapAreaLimit(config().regionBitmapAreaLimit.get().orElse(null));
         debug("Loading BankingPlugin version %s", getDescription().getVersion());
         registerWorldGuardFlag();
     }
@@ -102,13 +111,22 @@ public class BankingPlugin extends JavaPlugin {
         checkServerVersion();
         loadSoftDependencies();
 
-        database = new Database(this);
+        try {
+            database = new Database(this);
+        } catch (Database.DatabaseInUseException e) {
+            log(Level.SEVERE, e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
         
         // TODO: Necessary? Maybe lazy load?
         for (Account account : getAccountService().findAll()) {
             account.setBalance(worths.appraise(account));
             account.updateChestTitle();
         }
+        CacheStats shulkerCacheStats = AccountContentsTracker.getShulkerCacheStats();
+        debug("Shulker box contents cache after startup appraisal: %d hits, %d misses.",
+                shulkerCacheStats.hitCount(), shulkerCacheStats.missCount());
         
         updaterService = new UpdaterService(this);
         schedulerService = new SchedulerService(this);
@@ -138,8 +156,9 @@ public class BankingPlugin extends JavaPlugin {
     public void onDisable() {
         debug("Disabling BankingPlugin...");
         
-        for (Account account : getAccountService().findAll())
-            account.resetChestTitle();
+        if (database != null)
+            for (Account account : getAccountService().findAll())
+                account.resetChestTitle();
 
         setDebugLogEnabled(false);
         if (database != null)
@@ -218,6 +237,7 @@ public class BankingPlugin extends JavaPlugin {
      * @see AccountProtectListener
      * @see InterestEventListener
      * @see NotifyPlayerOnJoinListener
+     * @see WorldLoadListener
      */
     private void registerListeners() {
         debug("Registering listeners...");
@@ -226,6 +246,7 @@ public class BankingPlugin extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new AccountProtectListener(this), this);
         getServer().getPluginManager().registerEvents(new InterestEventListener(this), this);
         getServer().getPluginManager().registerEvents(new NotifyPlayerOnJoinListener(this), this);
+        getServer().getPluginManager().registerEvents(new WorldLoadListener(this), this);
         getServer().getPluginManager().registerEvents(new GUIActionListener(), this);
 
         if (griefPrevention != null && griefPrevention.isEnabled())
@@ -240,12 +261,23 @@ public class BankingPlugin extends JavaPlugin {
     public void reload() {
         debug("Reloading...");
         configuration.reload();
-        database.reload();
+        // The open debug log picks up its new levels and file settings by itself, but it may have been turned on or off
+        if (config().enableDebugLog.get() == (debugger == Logger.NO_OP))
+            setDebugLogEnabled(config().enableDebugLog.get());
+        PolygonalBankRegion.setBitmapAreaLimit(config().regionBitmapAreaLimit.get().orElse(null)); // Before banks reload
+        worths.reload();
+        worths.scheduleRefresh();
+        reloadDatabase();
     }
 
     public void reloadDatabase() {
         debug("Reloading database...");
-        database.reload();
+        try {
+            database.reload();
+        } catch (Database.DatabaseInUseException e) {
+            log(Level.SEVERE, e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+        }
     }
 
     private void enableMetrics() {
@@ -267,13 +299,13 @@ public class BankingPlugin extends JavaPlugin {
     
     public void log(Level level, String message) {
         getLogger().log(level, message);
-        debug(message);
+        debugger.log(DebugCategory.GENERAL, level, message);
     }
     
     public void log(Level level, String message, Object... format) {
         String formatted = String.format(message, format);
         getLogger().log(level, formatted);
-        debug(formatted);
+        debugger.log(DebugCategory.GENERAL, level, formatted);
     }
     
     /**
@@ -281,14 +313,55 @@ public class BankingPlugin extends JavaPlugin {
      * @param message the message to be printed
      */
     public void debug(String message) {
-        debugger.log(message);
+        debugger.log(DebugCategory.GENERAL, Level.FINE, message);
     }
 
     /**
      * Prints a message with special formatting to the debug file.
+     * The message is only formatted if the debug log is enabled.
      */
     public void debug(String message, Object... format) {
-        debugger.log(String.format(message, format));
+        debug(DebugCategory.GENERAL, Level.FINE, message, format);
+    }
+
+    /**
+     * Prints a message of a certain category at {@link Level#FINE} with special formatting to the debug file.
+     * @see #debug(DebugCategory, Level, String, Object...)
+     */
+    public void debug(DebugCategory category, String message, Object... format) {
+        debug(category, Level.FINE, message, format);
+    }
+
+    /**
+     * Prints a message of a certain category and level with special formatting to the debug file.
+     * The message is only formatted, and the arguments only converted to strings, if the message will be written.
+     * Use {@link Level#WARNING} for failures, {@link Level#INFO} for summaries, {@link Level#FINE} for changes,
+     * {@link Level#FINER} for reads and {@link Level#FINEST} for details of single items in a larger operation.
+     * @param category the part of the plugin the message comes from
+     * @param level the importance of the message, which is compared to the level configured for the category
+     */
+    public void debug(DebugCategory category, Level level, String message, Object... format) {
+        if (debugger.isLoggable(category, level))
+            debugger.log(category, level, format.length == 0 ? message : String.format(message, format));
+    }
+
+    /**
+     * Prints a message of a certain category and level to the debug file. The message is only built if the debug log
+     * is enabled and the category is logged at this level.
+     * @param category the part of the plugin the message comes from
+     * @param message supplies the message to be printed
+     */
+    public void debug(DebugCategory category, Level level, Supplier<String> message) {
+        if (debugger.isLoggable(category, level))
+            debugger.log(category, level, message.get());
+    }
+
+    /**
+     * Checks whether debug messages of a certain category and level are written, so that work done only to build a
+     * message can be skipped.
+     */
+    public boolean isDebugEnabled(DebugCategory category, Level level) {
+        return debugger.isLoggable(category, level);
     }
 
     /**
@@ -301,19 +374,24 @@ public class BankingPlugin extends JavaPlugin {
         debugger.log(throwable);
     }
     
+    /**
+     * Opens or closes the debug log. The debug log is written on a separate thread, and the log of the previous
+     * run is kept as an old file rather than overwritten.
+     */
     public void setDebugLogEnabled(boolean enabled) {
         debugger.close();
-        if (enabled) {
-            Path debugFile = getDataFolder().toPath().resolve("debug.txt");
-            try {
-                PrintWriter debugWriter = new PrintWriter(Files.newOutputStream(debugFile), true);
-                debugger = Logger.printingTo(debugWriter);
-                return;
-            } catch (IOException e) {
-                getLogger().severe("Failed to create debug file.");
-            }
-        }
         debugger = Logger.NO_OP;
+        if (!enabled)
+            return;
+        DebugLog settings = config().debugLog;
+        Path debugFile = getDataFolder().toPath().resolve("debug.txt");
+        try {
+            Files.createDirectories(debugFile.getParent());
+            debugger = new AsyncFileLogger(debugFile, () -> settings.maxFileSize.get() * 1024L * 1024L,
+                    settings.maxFiles::get, settings::getLevel, getLogger());
+        } catch (IOException e) {
+            getLogger().severe("Failed to create debug file.");
+        }
     }
 
     /**
@@ -368,6 +446,10 @@ public class BankingPlugin extends JavaPlugin {
     public BankIncomeService getBankIncomeService() {
         return database.getBankIncomeService();
     }
+
+    public InterestPayoutService getInterestPayoutService() {
+        return database.getInterestPayoutService();
+    }
     
     public UpdaterService getUpdaterService() {
         return updaterService;
@@ -389,6 +471,10 @@ public class BankingPlugin extends JavaPlugin {
         return worths;
     }
 
+    public AccountContentsTracker getContentsTracker() {
+        return contentsTracker;
+    }
+
     public WorldEdit getWorldEdit() {
         return worldEdit.getWorldEdit();
     }
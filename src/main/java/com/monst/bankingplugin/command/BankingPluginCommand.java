@@ -4,6 +4,7 @@ import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.event.EventCancelledException;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.Bukkit;
 import org.bukkit.command.*;
 import org.bukkit.entity.Player;
@@ -44,7 +45,7 @@ public abstract class BankingPluginCommand implements CommandExecutor, TabComple
 	private void register() {
 
 		PluginCommand pluginCommand;
-		plugin.debug("Creating plugin command \"%s\"", name);
+		plugin.debug(DebugCategory.GENERAL, Level.FINER, "Creating plugin command \"%s\"", name);
 		try {
 			Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
 			constructor.setAccessible(true);
@@ -61,7 +62,7 @@ public abstract class BankingPluginCommand implements CommandExecutor, TabComple
 			return;
 		}
 
-		plugin.debug("Registering command \"%s\"", name);
+		plugin.debug(DebugCategory.GENERAL, Level.FINER, "Registering command \"%s\"", name);
 		try {
 			Field commandMapField = Bukkit.getPluginManager().getClass().getDeclaredField("commandMap");
 			commandMapField.setAccessible(true);
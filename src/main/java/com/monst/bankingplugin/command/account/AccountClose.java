@@ -82,12 +82,12 @@ public class AccountClose extends PlayerSubCommand {
         new AccountCloseEvent(player, account).fire();
 
         Bank bank = account.getBank();
-        if (account.isOwner(player) && plugin.config().reimburseAccountCreation.at(bank)) {
+        if (account.isOwner(player) && plugin.config().policiesAt(bank).reimbursesAccountCreation()) {
             BigDecimal reimbursement;
             if (bank.isOwner(player))
                 reimbursement = BigDecimal.ZERO;
             else
-                reimbursement = plugin.config().accountCreationPrice.at(bank).multiply(BigDecimal.valueOf(account.getSize()));
+                reimbursement = plugin.config().policiesAt(bank).getAccountCreationPrice().multiply(BigDecimal.valueOf(account.getSize()));
 
             if (reimbursement.signum() > 0) {
                 final double finalReimbursement = reimbursement.doubleValue();
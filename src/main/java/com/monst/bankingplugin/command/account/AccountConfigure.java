@@ -86,7 +86,7 @@ public class AccountConfigure extends PlayerSubCommand {
 
             case MULTIPLIER_STAGE:
 
-                List<Integer> multipliers = plugin.config().interestMultipliers.at(account.getBank());
+                List<Integer> multipliers = plugin.config().policiesAt(account.getBank()).getInterestMultipliers();
                 value = Math.min(value, multipliers.size() - 1);
                 account.setMultiplierStage(value);
 
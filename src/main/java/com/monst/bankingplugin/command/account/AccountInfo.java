@@ -10,6 +10,7 @@ import com.monst.bankingplugin.command.CommandExecutionException;
 import com.monst.bankingplugin.gui.AccountGUI;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.command.ClickAction;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.entity.Player;
 
 public class AccountInfo extends PlayerSubCommand {
@@ -27,14 +28,14 @@ public class AccountInfo extends PlayerSubCommand {
     protected void execute(Player player, String[] args) throws CommandExecutionException, EventCancelledException {
         new AccountInfoCommandEvent(player, args).fire();
 
-        plugin.debug("%s can now click an account to see the GUI.", player.getName());
+        plugin.debug(DebugCategory.GUI, "%s can now click an account to see the GUI.", player.getName());
         player.sendMessage(Message.CLICK_ACCOUNT_INFO.translate(plugin));
         ClickAction.setAccountClickAction(player, account -> info(player, account));
     }
 
     private void info(Player player, Account account) throws EventCancelledException {
         ClickAction.remove(player);
-        plugin.debug("%s is viewing the GUI of account %s", player.getName(), account);
+        plugin.debug(DebugCategory.GUI, "%s is viewing the GUI of account %s", player.getName(), account);
         new AccountInfoEvent(player, account).fire();
         new AccountGUI(plugin, player, account).open();
     }
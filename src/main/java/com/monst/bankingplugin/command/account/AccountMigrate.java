@@ -96,13 +96,13 @@ public class AccountMigrate extends PlayerSubCommand {
         if (newBank.isOwner(player))
             creationPrice = BigDecimal.ZERO;
         else
-            creationPrice = plugin.config().accountCreationPrice.at(newBank).multiply(BigDecimal.valueOf(newAccountLocation.getSize()));
+            creationPrice = plugin.config().policiesAt(newBank).getAccountCreationPrice().multiply(BigDecimal.valueOf(newAccountLocation.getSize()));
 
         BigDecimal reimbursement;
-        if (oldBank.isOwner(player) || !plugin.config().reimburseAccountCreation.at(oldBank))
+        if (oldBank.isOwner(player) || !plugin.config().policiesAt(oldBank).reimbursesAccountCreation())
             reimbursement = BigDecimal.ZERO;
         else
-            reimbursement = plugin.config().accountCreationPrice.at(oldBank).multiply(BigDecimal.valueOf(accountToMove.getSize()));
+            reimbursement = plugin.config().policiesAt(oldBank).getAccountCreationPrice().multiply(BigDecimal.valueOf(accountToMove.getSize()));
 
         BigDecimal difference = reimbursement.subtract(creationPrice);
         double finalDifference = difference.doubleValue();
@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.command.account;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.BankPolicies;
 import com.monst.bankingplugin.command.ClickAction;
 import com.monst.bankingplugin.command.Permission;
 import com.monst.bankingplugin.command.Permissions;
@@ -78,14 +79,15 @@ public class AccountOpen extends PlayerSubCommand {
         if (!plugin.config().allowSelfBanking.get() && bank.isOwner(player))
             throw err(Message.NO_SELF_BANKING.with(Placeholder.BANK_NAME).as(bank.getColorizedName()));
 
-        int playerAccountLimit = plugin.config().playerAccountPerBankLimit.at(bank);
+        BankPolicies policies = plugin.config().policiesAt(bank);
+        int playerAccountLimit = policies.getPlayerAccountPerBankLimit();
         if (playerAccountLimit > 0 && plugin.getAccountService().countByBankAndOwner(bank, player) >= playerAccountLimit)
             throw err(Message.ACCOUNT_LIMIT_AT_BANK_REACHED
                     .with(Placeholder.BANK_NAME).as(bank.getColorizedName())
                     .and(Placeholder.LIMIT).as(playerAccountLimit));
 
         Account account = new Account(bank, player, accountLocation);
-        account.setRemainingOfflinePayouts(plugin.config().allowedOfflinePayouts.at(bank));
+        account.setRemainingOfflinePayouts(policies.getAllowedOfflinePayouts());
 
         try {
             new AccountOpenEvent(player, account).fire();
@@ -98,7 +100,7 @@ public class AccountOpen extends PlayerSubCommand {
         if (bank.isOwner(player))
             creationPrice = BigDecimal.ZERO;
         else
-            creationPrice = plugin.config().accountCreationPrice.at(bank).multiply(BigDecimal.valueOf(accountLocation.getSize()));
+            creationPrice = policies.getAccountCreationPrice().multiply(BigDecimal.valueOf(accountLocation.getSize()));
 
         if (creationPrice.signum() > 0) {
             final double finalCreationPrice = creationPrice.doubleValue();
@@ -7,6 +7,7 @@ import com.monst.bankingplugin.command.CommandExecutionException;
 import com.monst.bankingplugin.gui.BankGUI;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.entity.Player;
 
 import java.util.Collections;
@@ -36,7 +37,7 @@ public class BankInfo extends PlayerSubCommand {
             if (bank == null)
                 throw err(Message.BANK_NOT_FOUND.with(Placeholder.INPUT).as(args[0]));
         }
-        plugin.debug("%s is viewing GUI of bank %s", player.getName(), bank);
+        plugin.debug(DebugCategory.GUI, "%s is viewing the GUI of bank %s", player.getName(), bank);
         new BankGUI(plugin, player, bank).open();
     }
 
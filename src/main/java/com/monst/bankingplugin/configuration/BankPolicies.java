@@ -0,0 +1,106 @@
+package com.monst.bankingplugin.configuration;
+
+import com.monst.bankingplugin.entity.Bank;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * An immutable copy of the policies in effect at a bank, resolved once with {@link ConfigurationPolicy#at(Bank)}.
+ * A copy remains current until the bank is configured or the configuration is changed or reloaded.
+ * @see Configuration#policiesAt(Bank)
+ */
+public final class BankPolicies {
+
+	private final Bank bank;
+	private final int bankVersion;
+	private final int configurationVersion;
+
+	private final BigDecimal interestRate;
+	private final List<Integer> interestMultipliers;
+	private final Set<LocalTime> interestPayoutTimes;
+	private final BigDecimal accountCreationPrice;
+	private final boolean reimburseAccountCreation;
+	private final BigDecimal minimumBalance;
+	private final BigDecimal lowBalanceFee;
+	private final boolean payOnLowBalance;
+	private final int allowedOfflinePayouts;
+	private final int offlineMultiplierDecrement;
+	private final int withdrawalMultiplierDecrement;
+	private final int playerAccountPerBankLimit;
+
+	BankPolicies(Configuration config, Bank bank, int configurationVersion) {
+		this.bank = bank;
+		this.configurationVersion = configurationVersion;
+		this.interestRate = config.interestRate.at(bank);
+		this.interestMultipliers = Collections.unmodifiableList(new ArrayList<>(config.interestMultipliers.at(bank)));
+		this.interestPayoutTimes = Collections.unmodifiableSet(new HashSet<>(config.interestPayoutTimes.at(bank)));
+		this.accountCreationPrice = config.accountCreationPrice.at(bank);
+		this.reimburseAccountCreation = config.reimburseAccountCreation.at(bank);
+		this.minimumBalance = config.minimumBalance.at(bank);
+		this.lowBalanceFee = config.lowBalanceFee.at(bank);
+		this.payOnLowBalance = config.payOnLowBalance.at(bank);
+		this.allowedOfflinePayouts = config.allowedOfflinePayouts.at(bank);
+		this.offlineMultiplierDecrement = config.offlineMultiplierDecrement.at(bank);
+		this.withdrawalMultiplierDecrement = config.withdrawalMultiplierDecrement.at(bank);
+		this.playerAccountPerBankLimit = config.playerAccountPerBankLimit.at(bank);
+		// Sticky defaults may have been written to the bank above, which does not change what is in effect
+		this.bankVersion = bank.getPolicyVersion();
+	}
+
+	boolean isCurrent(Bank bank, int configurationVersion) {
+		return this.bank == bank
+				&& this.bankVersion == bank.getPolicyVersion()
+				&& this.configurationVersion == configurationVersion;
+	}
+
+	public BigDecimal getInterestRate() {
+		return interestRate;
+	}
+
+	public List<Integer> getInterestMultipliers() {
+		return interestMultipliers;
+	}
+
+	public Set<LocalTime> getInterestPayoutTimes() {
+		return interestPayoutTimes;
+	}
+
+	public BigDecimal getAccountCreationPrice() {
+		return accountCreationPrice;
+	}
+
+	public boolean reimbursesAccountCreation() {
+		return reimburseAccountCreation;
+	}
+
+	public BigDecimal getMinimumBalance() {
+		return minimumBalance;
+	}
+
+	public BigDecimal getLowBalanceFee() {
+		return lowBalanceFee;
+	}
+
+	public boolean paysOnLowBalance() {
+		return payOnLowBalance;
+	}
+
+	public int getAllowedOfflinePayouts() {
+		return allowedOfflinePayouts;
+	}
+
+	public int getOfflineMultiplierDecrement() {
+		return offlineMultiplierDecrement;
+	}
+
+	public int getWithdrawalMultiplierDecrement() {
+		return withdrawalMultiplierDecrement;
+	}
+
+	public int getPlayerAccountPerBankLimit() {
+		return playerAccountPerBankLimit;
+	}
+
+}
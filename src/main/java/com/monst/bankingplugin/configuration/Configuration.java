@@ -2,6 +2,10 @@ package com.monst.bankingplugin.configuration;
 
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.configuration.values.*;
+import com.monst.bankingplugin.entity.Bank;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Configuration extends ConfigurationRoot {
 	
@@ -147,6 +151,11 @@ public final class Configuration extends ConfigurationRoot {
 	 **/
 	public final EnableDebugLog enableDebugLog;
 
+	/**
+	 * The size, rotation and per-category levels of the debug log.
+	 */
+	public final DebugLog debugLog;
+
     /**
      * <p>Sets the time limit for cleaning up the deposit-withdrawal log in days</p>
      *
@@ -174,6 +183,11 @@ public final class Configuration extends ConfigurationRoot {
 	 **/
     public final Blacklist blacklist;
 
+	/**
+	 * The number of minutes between refreshes of the item price table.
+	 */
+	public final WorthRefreshInterval worthRefreshInterval;
+
 	/**
 	 * The bank revenue function.
 	 */
@@ -204,11 +218,35 @@ public final class Configuration extends ConfigurationRoot {
 	 * The path to use for the database file.
 	 */
 	public final DatabaseFile databaseFile;
+
+	/**
+	 * The connection settings of an external database, used instead of the database file if a URL is set.
+	 */
+	public final ExternalDatabase externalDatabase;
+
+	/**
+	 * The number of seconds between writes of changed banks, accounts and account transactions to the database.
+	 */
+	public final DatabaseFlushInterval databaseFlushInterval;
+
+	/**
+	 * The number of milliseconds after which a database query is logged as slow.
+	 */
+	public final SlowQueryThreshold slowQueryThreshold;
+
+	/**
+	 * The largest area, in blocks, of a polygonal bank whose footprint is kept as a bitmap.
+	 */
+	public final RegionBitmapAreaLimit regionBitmapAreaLimit;
 	
+	private final Map<Integer, BankPolicies> bankPolicies = new ConcurrentHashMap<>();
+	private volatile int version; // Incremented whenever a value changes
+
 	public Configuration(BankingPlugin plugin) {
 		super(plugin, "config.yml");
 		
-		this.enableDebugLog = addChild(new EnableDebugLog(plugin)); // Must be first to ensure debug log is created if enabled
+		this.enableDebugLog = addChild(new EnableDebugLog(plugin));
+		this.debugLog = addChild(new DebugLog(plugin));
 		this.commandNames = addChild(new CommandNames(plugin));
 		this.interestPayoutTimes = addChild(new InterestPayoutTimes(plugin));
 		this.interestRate = addChild(new InterestRate(plugin));
@@ -240,13 +278,48 @@ public final class Configuration extends ConfigurationRoot {
 		this.integrations = addChild(new Integrations(plugin));
 		this.worldGuardDefaultFlagValue = addChild(new WorldGuardDefaultFlagValue(plugin));
 		this.blacklist = addChild(new Blacklist(plugin));
+		this.worthRefreshInterval = addChild(new WorthRefreshInterval(plugin));
 		this.bankRevenueExpression = addChild(new BankRevenueExpression(plugin));
 		this.disabledWorlds = addChild(new DisabledWorlds(plugin));
 		this.nameRegex = addChild(new NameRegex(plugin));
 		this.enableStartupMessage = addChild(new EnableStartupMessage(plugin));
 		this.languageFile = addChild(new LanguageFile(plugin));
 		this.databaseFile = addChild(new DatabaseFile(plugin));
+		this.externalDatabase = addChild(new ExternalDatabase(plugin));
+		this.databaseFlushInterval = addChild(new DatabaseFlushInterval(plugin));
+		this.slowQueryThreshold = addChild(new SlowQueryThreshold(plugin));
+		this.regionBitmapAreaLimit = addChild(new RegionBitmapAreaLimit(plugin));
+		super.reload();
+	}
+
+	/**
+	 * Gets the policies in effect at a bank. They are resolved the first time they are needed, and then kept until the
+	 * bank is configured or this configuration is changed or reloaded.
+	 *
+	 * @param bank the bank
+	 * @return an immutable copy of the policies in effect at the bank
+	 */
+	public BankPolicies policiesAt(Bank bank) {
+		BankPolicies policies = bankPolicies.get(bank.getID());
+		if (policies == null || !policies.isCurrent(bank, version)) {
+			policies = new BankPolicies(this, bank, version);
+			bankPolicies.put(bank.getID(), policies);
+		}
+		return policies;
+	}
+
+	/**
+	 * Discards the resolved policies of every bank, so that a change to this configuration takes effect.
+	 */
+	void invalidatePolicies() {
+		version++;
+		bankPolicies.clear();
+	}
+
+	@Override
+	public void reload() {
 		super.reload();
+		invalidatePolicies();
 	}
 	
 }
@@ -6,6 +6,7 @@ import com.monst.bankingplugin.configuration.exception.MissingValueException;
 import com.monst.bankingplugin.configuration.exception.ValueOutOfBoundsException;
 import com.monst.bankingplugin.configuration.exception.UnreadableValueException;
 import com.monst.bankingplugin.configuration.transform.Transformer;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
@@ -13,6 +14,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.logging.Level;
 
 /**
  * A configuration value stored in the {@code config.yml} file under a certain path.
@@ -69,12 +71,12 @@ public class ConfigurationValue<T> extends ConfigurationNode {
         try {
             transformer.nullCheck(object);
             this.value = transformer.convert(object);
-            plugin.debug("Loading configuration value " + key + ": " + transformer.toYaml(value));
+            plugin.debug(DebugCategory.GENERAL, Level.FINER, "Loading configuration value %s: %s", key, transformer.toYaml(value));
         } catch (ValueOutOfBoundsException e) {
-            plugin.debug("Value of %s was outside its bounds. Using replacement value %s", key, transformer.toYaml(e.getReplacement()));
+            plugin.debug(DebugCategory.GENERAL, Level.WARNING, "Value of %s was outside its bounds. Using replacement value %s", key, transformer.toYaml(e.getReplacement()));
             this.value = e.getReplacement();
         } catch (MissingValueException | UnreadableValueException e) {
-            plugin.debug("Value of %s was missing or uninterpretable. Using default value %s", key, transformer.toYaml(defaultValue));
+            plugin.debug(DebugCategory.GENERAL, Level.WARNING, "Value of %s was missing or uninterpretable. Using default value %s", key, transformer.toYaml(defaultValue));
             this.value = defaultValue;
         }
     }
@@ -99,6 +101,7 @@ public class ConfigurationValue<T> extends ConfigurationNode {
         beforeSet();
         this.value = value;
         afterSet();
+        plugin.config().invalidatePolicies(); // The value may be a policy default, or affect one
     }
 
     /**
@@ -0,0 +1,25 @@
+package com.monst.bankingplugin.configuration.transform;
+
+import com.monst.bankingplugin.configuration.exception.ArgumentParseException;
+import com.monst.bankingplugin.lang.Message;
+import com.monst.bankingplugin.lang.Placeholder;
+
+import java.util.logging.Level;
+
+public class LevelTransformer implements Transformer<Level> {
+    
+    @Override
+    public Level parse(String input) throws ArgumentParseException {
+        try {
+            return Level.parse(input.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ArgumentParseException(Message.NOT_A_LOG_LEVEL.with(Placeholder.INPUT).as(input));
+        }
+    }
+    
+    @Override
+    public Object toYaml(Level value) {
+        return value.getName();
+    }
+    
+}
@@ -9,14 +9,67 @@ import com.monst.bankingplugin.lang.Placeholder;
 import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
 import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.operator.Operator;
+import net.objecthunter.exp4j.shuntingyard.ShuntingYard;
+import net.objecthunter.exp4j.tokenizer.*;
 
 import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * The expression used to calculate the revenue of a bank.
  */
 public class BankRevenueExpression extends ConfigurationValue<BankRevenueExpression.ExpressionWrapper> {
 
+    private static final Set<String> VARIABLES = new HashSet<>(Arrays.asList("x", "a", "n", "c", "g"));
+
+    /**
+     * The constants that {@link ExpressionBuilder} declares as variables, with the values {@link Expression} gives them.
+     */
+    private static final Map<String, Double> CONSTANTS = new HashMap<>();
+    static {
+        CONSTANTS.put("pi", Math.PI);
+        CONSTANTS.put("π", Math.PI);
+        CONSTANTS.put("e", Math.E);
+        CONSTANTS.put("φ", 1.61803398874d);
+    }
+
+    private static final Function LN = new Function("ln", 1) {
+        @Override
+        public double apply(double... args) {
+            return Math.log(args[0]);
+        }
+    };
+
+    /**
+     * Functions that exp4j implements as a single call to {@link Math}.
+     */
+    private static final Map<String, DoubleUnaryOperator> UNARY_FUNCTIONS = new HashMap<>();
+    static {
+        UNARY_FUNCTIONS.put("ln", Math::log);
+        UNARY_FUNCTIONS.put("log", Math::log);
+        UNARY_FUNCTIONS.put("log10", Math::log10);
+        UNARY_FUNCTIONS.put("log1p", Math::log1p);
+        UNARY_FUNCTIONS.put("exp", Math::exp);
+        UNARY_FUNCTIONS.put("expm1", Math::expm1);
+        UNARY_FUNCTIONS.put("sqrt", Math::sqrt);
+        UNARY_FUNCTIONS.put("cbrt", Math::cbrt);
+        UNARY_FUNCTIONS.put("abs", Math::abs);
+        UNARY_FUNCTIONS.put("signum", Math::signum);
+        UNARY_FUNCTIONS.put("floor", Math::floor);
+        UNARY_FUNCTIONS.put("ceil", Math::ceil);
+        UNARY_FUNCTIONS.put("sin", Math::sin);
+        UNARY_FUNCTIONS.put("cos", Math::cos);
+        UNARY_FUNCTIONS.put("tan", Math::tan);
+        UNARY_FUNCTIONS.put("asin", Math::asin);
+        UNARY_FUNCTIONS.put("acos", Math::acos);
+        UNARY_FUNCTIONS.put("atan", Math::atan);
+        UNARY_FUNCTIONS.put("sinh", Math::sinh);
+        UNARY_FUNCTIONS.put("cosh", Math::cosh);
+        UNARY_FUNCTIONS.put("tanh", Math::tanh);
+    }
+
     public BankRevenueExpression(BankingPlugin plugin) {
         super(plugin, "bank-revenue-expression",
                 expressionOf("(0.10 * x) * (1 - g) * log(c)"),
@@ -47,54 +100,181 @@ public class BankRevenueExpression extends ConfigurationValue<BankRevenueExpress
         };
     }
 
-    private static ExpressionWrapper expressionOf(String expressionString) {
+    static ExpressionWrapper expressionOf(String expressionString) {
         return new ExpressionWrapper(
                 new ExpressionBuilder(expressionString)
-                        .variables("x", "a", "n", "c", "g")
-                        .function(new Function("ln", 1) {
-                            @Override
-                            public double apply(double... args) {
-                                return Math.log(args[0]);
-                            }
-                        })
+                        .variables(VARIABLES)
+                        .function(LN)
                         .build(),
                 expressionString
         );
     }
 
-    static class ExpressionWrapper {
+    /**
+     * A parsed revenue expression. The exp4j {@link Expression} keeps its variables in the instance, so it is only used
+     * to validate the syntax; the expression is evaluated by a tree of {@link Term}s compiled from it, which takes the
+     * variables as arguments. That tree can be evaluated by several threads at once and allocates nothing.
+     */
+    public static class ExpressionWrapper {
         private final Expression expression;
         private final String expressionString;
+        private final Term compiled;
 
         ExpressionWrapper(Expression expression, String expressionString) {
             this.expression = expression;
             this.expressionString = expressionString;
+            this.compiled = isValidSyntax() ? compile(expressionString) : null;
         }
 
         boolean isValidSyntax() {
             return expression.validate(false).isValid();
         }
 
-        ExpressionWrapper withValues(double totalValue, double avgValue, int accounts, int accountHolders, double giniCoefficient) {
-            expression.setVariable("x", totalValue);
-            expression.setVariable("a", avgValue);
-            expression.setVariable("n", accounts);
-            expression.setVariable("c", accountHolders);
-            expression.setVariable("g", giniCoefficient);
-            return this;
+        /**
+         * Calculates the revenue of a bank. This is safe to call from any thread.
+         *
+         * @return the revenue, or zero if it is not a finite number
+         */
+        public BigDecimal evaluate(double totalValue, double avgValue, int accounts, int accountHolders, double giniCoefficient) {
+            try {
+                return BigDecimal.valueOf(compiled.evaluate(totalValue, avgValue, accounts, accountHolders, giniCoefficient));
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                return BigDecimal.ZERO;
+            }
         }
+    }
 
-        BigDecimal evaluate() {
-            return BigDecimal.valueOf(expression.evaluate());
+    public BigDecimal evaluate(double totalValue, double avgValue, int accounts, int accountHolders, double giniCoefficient) {
+        return get().evaluate(totalValue, avgValue, accounts, accountHolders, giniCoefficient);
+    }
+
+    /**
+     * A node of a compiled expression.
+     */
+    private interface Term {
+        double evaluate(double x, double a, double n, double c, double g);
+    }
+
+    private interface Application {
+        double apply(double... args);
+    }
+
+    /**
+     * Compiles an expression from the postfix tokens that exp4j parses it into. The built-in operators and common
+     * functions are compiled to direct calls; anything else is applied to an argument array kept per thread.
+     */
+    private static Term compile(String expressionString) {
+        Deque<Term> stack = new ArrayDeque<>();
+        Set<String> variableNames = new HashSet<>(VARIABLES);
+        variableNames.addAll(CONSTANTS.keySet());
+        Token[] tokens = ShuntingYard.convertToRPN(expressionString, Collections.singletonMap(LN.getName(), LN),
+                Collections.emptyMap(), variableNames, true);
+        for (Token token : tokens) {
+            switch (token.getType()) {
+                case Token.TOKEN_NUMBER:
+                    double value = ((NumberToken) token).getValue();
+                    stack.push((x, a, n, c, g) -> value);
+                    break;
+                case Token.TOKEN_VARIABLE:
+                    stack.push(variable(((VariableToken) token).getName()));
+                    break;
+                case Token.TOKEN_OPERATOR:
+                    Operator operator = ((OperatorToken) token).getOperator();
+                    stack.push(operator(operator, pop(stack, operator.getNumOperands())));
+                    break;
+                case Token.TOKEN_FUNCTION:
+                    Function function = ((FunctionToken) token).getFunction();
+                    stack.push(function(function, pop(stack, function.getNumArguments())));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected token in expression: " + expressionString);
+            }
         }
+        if (stack.size() != 1)
+            throw new IllegalArgumentException("Invalid expression: " + expressionString);
+        return stack.pop();
     }
-    
-    public BigDecimal evaluate(double totalValue, double avgValue, int accounts, int accountHolders, double giniCoefficient) {
-        try {
-            return get().withValues(totalValue, avgValue, accounts, accountHolders, giniCoefficient).evaluate();
-        } catch (IllegalArgumentException e) {
-            return BigDecimal.ZERO;
+
+    private static Term[] pop(Deque<Term> stack, int count) {
+        if (stack.size() < count)
+            throw new IllegalArgumentException("Too few operands");
+        Term[] terms = new Term[count];
+        for (int i = count - 1; i >= 0; i--)
+            terms[i] = stack.pop();
+        return terms;
+    }
+
+    private static Term variable(String name) {
+        switch (name) {
+            case "x": return (x, a, n, c, g) -> x;
+            case "a": return (x, a, n, c, g) -> a;
+            case "n": return (x, a, n, c, g) -> n;
+            case "c": return (x, a, n, c, g) -> c;
+            case "g": return (x, a, n, c, g) -> g;
+        }
+        Double constant = CONSTANTS.get(name);
+        if (constant == null)
+            throw new IllegalArgumentException("Unknown variable: " + name);
+        double value = constant;
+        return (x, a, n, c, g) -> value;
+    }
+
+    private static Term operator(Operator operator, Term[] operands) {
+        if (operands.length == 1) {
+            Term o = operands[0];
+            switch (operator.getSymbol()) {
+                case "-": return (x, a, n, c, g) -> -o.evaluate(x, a, n, c, g);
+                case "+": return o;
+            }
+        } else if (operands.length == 2) {
+            Term l = operands[0];
+            Term r = operands[1];
+            switch (operator.getSymbol()) {
+                case "+": return (x, a, n, c, g) -> l.evaluate(x, a, n, c, g) + r.evaluate(x, a, n, c, g);
+                case "-": return (x, a, n, c, g) -> l.evaluate(x, a, n, c, g) - r.evaluate(x, a, n, c, g);
+                case "*": return (x, a, n, c, g) -> l.evaluate(x, a, n, c, g) * r.evaluate(x, a, n, c, g);
+                case "^": return (x, a, n, c, g) -> Math.pow(l.evaluate(x, a, n, c, g), r.evaluate(x, a, n, c, g));
+                case "/": return (x, a, n, c, g) -> {
+                    double dividend = l.evaluate(x, a, n, c, g);
+                    double divisor = r.evaluate(x, a, n, c, g);
+                    if (divisor == 0d) // Like exp4j
+                        throw new ArithmeticException("Division by zero!");
+                    return dividend / divisor;
+                };
+                case "%": return (x, a, n, c, g) -> {
+                    double dividend = l.evaluate(x, a, n, c, g);
+                    double divisor = r.evaluate(x, a, n, c, g);
+                    if (divisor == 0d)
+                        throw new ArithmeticException("Division by zero!");
+                    return dividend % divisor;
+                };
+            }
+        }
+        return apply(operator::apply, operands);
+    }
+
+    private static Term function(Function function, Term[] args) {
+        if (args.length == 1) {
+            Term arg = args[0];
+            DoubleUnaryOperator f = UNARY_FUNCTIONS.get(function.getName());
+            if (f != null)
+                return (x, a, n, c, g) -> f.applyAsDouble(arg.evaluate(x, a, n, c, g));
+        } else if (args.length == 2 && function.getName().equals("pow")) {
+            Term base = args[0];
+            Term exponent = args[1];
+            return (x, a, n, c, g) -> Math.pow(base.evaluate(x, a, n, c, g), exponent.evaluate(x, a, n, c, g));
         }
+        return apply(function::apply, args);
+    }
+
+    private static Term apply(Application application, Term[] args) {
+        ThreadLocal<double[]> values = ThreadLocal.withInitial(() -> new double[args.length]);
+        return (x, a, n, c, g) -> {
+            double[] v = values.get();
+            for (int i = 0; i < args.length; i++)
+                v[i] = args[i].evaluate(x, a, n, c, g);
+            return application.apply(v);
+        };
     }
 
 }
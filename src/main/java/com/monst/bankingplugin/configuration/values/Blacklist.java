@@ -35,4 +35,10 @@ public class Blacklist extends ConfigurationValue<Set<Material>> {
         return get().contains(item);
     }
 
+    @Override
+    protected void afterSet() {
+        if (plugin.getWorths() != null)
+            plugin.getWorths().reload(); // Blacklisted prices are baked into the price table
+    }
+
 }
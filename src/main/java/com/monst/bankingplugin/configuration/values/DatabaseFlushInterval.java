@@ -0,0 +1,26 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+
+import java.util.Optional;
+
+/**
+ * The number of seconds between writes of changed banks and accounts and new account transactions to the database.
+ * This value is optional; if it is not set, every change is written to the database immediately.
+ */
+public class DatabaseFlushInterval extends ConfigurationValue<Optional<Integer>> {
+
+    public DatabaseFlushInterval(BankingPlugin plugin) {
+        super(plugin, "database-flush-interval", Optional.of(5),
+                new IntegerTransformer().absolute().optional());
+    }
+
+    @Override
+    protected void afterSet() {
+        if (plugin.getDatabase() != null)
+            plugin.getDatabase().scheduleFlush();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationBranch;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+import com.monst.bankingplugin.configuration.transform.LevelTransformer;
+import com.monst.bankingplugin.util.DebugCategory;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * How the debug log is written, if it is enabled by {@link EnableDebugLog}.
+ * The debug log reads these settings whenever it needs them, so changes apply to the open log, also after a reload.
+ */
+public class DebugLog extends ConfigurationBranch {
+    
+    /**
+     * The size in megabytes at which the debug log is moved aside and a new one is started.
+     */
+    public final ConfigurationValue<Integer> maxFileSize;
+    
+    /**
+     * The number of old debug logs to keep.
+     */
+    public final ConfigurationValue<Integer> maxFiles;
+    
+    private final Map<DebugCategory, ConfigurationValue<Level>> levels = new EnumMap<>(DebugCategory.class);
+    
+    public DebugLog(BankingPlugin plugin) {
+        super("debug-log");
+        this.maxFileSize = addChild(new ConfigurationValue<>(plugin, "max-file-size", 10,
+                new IntegerTransformer().atLeast(1)));
+        this.maxFiles = addChild(new ConfigurationValue<>(plugin, "max-files", 3,
+                new IntegerTransformer().absolute()));
+        Levels levelsBranch = addChild(new Levels());
+        for (DebugCategory category : DebugCategory.values()) {
+            ConfigurationValue<Level> level = new ConfigurationValue<>(plugin,
+                    category.name().toLowerCase(Locale.ROOT),
+                    Level.ALL,
+                    new LevelTransformer());
+            levels.put(category, levelsBranch.addChild(level));
+        }
+    }
+    
+    /**
+     * @return the lowest level of message that is written to the debug log for the given category
+     */
+    public Level getLevel(DebugCategory category) {
+        return levels.get(category).get();
+    }
+    
+    private static class Levels extends ConfigurationBranch {
+        
+        Levels() {
+            super("levels");
+        }
+        
+    }
+    
+}
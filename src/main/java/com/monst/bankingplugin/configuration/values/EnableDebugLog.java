@@ -8,7 +8,6 @@ public class EnableDebugLog extends ConfigurationValue<Boolean> {
 
     public EnableDebugLog(BankingPlugin plugin) {
         super(plugin, "enable-debug-log", false, new BooleanTransformer());
-        plugin.setDebugLogEnabled(get());
     }
 
     @Override
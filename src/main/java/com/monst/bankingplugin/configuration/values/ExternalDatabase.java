@@ -0,0 +1,72 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationBranch;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+import com.monst.bankingplugin.configuration.transform.StringTransformer;
+import com.monst.bankingplugin.configuration.transform.Transformer;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The connection settings of an external MySQL, MariaDB or PostgreSQL database.
+ * Only one server may use the database at a time, since banks and accounts are cached in memory; the plugin is disabled
+ * on any other server that tries to open it. If no URL is set, the embedded database selected by {@link DatabaseFile}
+ * is used instead.
+ * Changing any of these settings reconnects to the database.
+ */
+public class ExternalDatabase extends ConfigurationBranch {
+
+    public final ConfigurationValue<Optional<String>> url;
+    public final ConfigurationValue<Optional<String>> driver;
+    public final ConfigurationValue<Optional<String>> username;
+    public final ConfigurationValue<Optional<String>> password;
+    public final ConfigurationValue<Integer> maximumPoolSize;
+    public final ConfigurationValue<Integer> connectionTimeout;
+
+    public ExternalDatabase(BankingPlugin plugin) {
+        super("external-database");
+        this.url = addChild(new ConnectionSetting<>(plugin, "url", Optional.empty(),
+                new StringTransformer().optional()));
+        this.driver = addChild(new ConnectionSetting<>(plugin, "driver", Optional.empty(),
+                new StringTransformer().optional()));
+        this.username = addChild(new ConnectionSetting<>(plugin, "username", Optional.empty(),
+                new StringTransformer().optional()));
+        this.password = addChild(new ConnectionSetting<Optional<String>>(plugin, "password", Optional.empty(),
+                new StringTransformer().optional()) {
+            @Override
+            public List<String> getTabCompletions(Player player, String[] args) {
+                return Collections.emptyList(); // Do not reveal the password
+            }
+        });
+        this.maximumPoolSize = addChild(new ConnectionSetting<>(plugin, "maximum-pool-size", 10,
+                new IntegerTransformer().atLeast(1)));
+        this.connectionTimeout = addChild(new ConnectionSetting<>(plugin, "connection-timeout", 30,
+                new IntegerTransformer().atLeast(1)));
+    }
+
+    /**
+     * @return whether an external database is configured
+     */
+    public boolean isEnabled() {
+        return url.get().isPresent();
+    }
+
+    private static class ConnectionSetting<T> extends ConfigurationValue<T> {
+
+        ConnectionSetting(BankingPlugin plugin, String key, T defaultValue, Transformer<T> transformer) {
+            super(plugin, key, defaultValue, transformer);
+        }
+
+        @Override
+        protected void afterSet() {
+            plugin.reloadDatabase();
+        }
+
+    }
+
+}
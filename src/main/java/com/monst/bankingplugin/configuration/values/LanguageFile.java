@@ -4,6 +4,7 @@ import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.configuration.ConfigurationValue;
 import com.monst.bankingplugin.configuration.transform.PathTransformer;
 import com.monst.bankingplugin.lang.Message;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 
@@ -77,7 +78,7 @@ public class LanguageFile extends ConfigurationValue<Path> {
         if (!fileTranslations.isEmpty()) {
             plugin.log(Level.INFO, "There are unused translations in language file '" + fileName + "'.");
             plugin.getLogger().info("See debug log for details.");
-            plugin.debug(fileTranslations.keySet().toString());
+            plugin.debug(DebugCategory.GENERAL, Level.INFO, fileTranslations.keySet().toString());
         }
     
         if (!missingMessages.isEmpty()) {
@@ -92,7 +93,7 @@ public class LanguageFile extends ConfigurationValue<Path> {
                 }
             } catch (IOException e) {
                 plugin.log(Level.SEVERE, "Failed to add missing translation(s) to the language file.");
-                plugin.debug("Missing translation(s): " + missingMessages);
+                plugin.debug(DebugCategory.GENERAL, Level.WARNING, "Missing translation(s): " + missingMessages);
                 plugin.debug(e);
             }
         }
@@ -0,0 +1,26 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+import com.monst.bankingplugin.entity.geo.region.PolygonalBankRegion;
+
+import java.util.Optional;
+
+/**
+ * The largest area, in blocks, of a polygonal bank whose footprint is kept in memory as a bitmap to speed up
+ * checking which bank a block is in. This value is optional; if it is not set, no footprints are kept as bitmaps.
+ */
+public class RegionBitmapAreaLimit extends ConfigurationValue<Optional<Integer>> {
+
+    public RegionBitmapAreaLimit(BankingPlugin plugin) {
+        super(plugin, "region-bitmap-area-limit", Optional.of(65536),
+                new IntegerTransformer().absolute().optional());
+    }
+
+    @Override
+    protected void afterSet() {
+        PolygonalBankRegion.setBitmapAreaLimit(get().orElse(null));
+    }
+
+}
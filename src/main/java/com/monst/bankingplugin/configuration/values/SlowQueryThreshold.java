@@ -0,0 +1,26 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+import com.monst.bankingplugin.persistence.QueryLog;
+
+import java.util.Optional;
+
+/**
+ * The number of milliseconds a database query may take before it is logged as slow.
+ * This value is optional; if it is not set, slow queries are not logged.
+ */
+public class SlowQueryThreshold extends ConfigurationValue<Optional<Integer>> {
+
+    public SlowQueryThreshold(BankingPlugin plugin) {
+        super(plugin, "slow-query-threshold", Optional.of(250),
+                new IntegerTransformer().absolute().optional());
+    }
+
+    @Override
+    protected void afterSet() {
+        QueryLog.setSlowQueryThreshold(get().orElse(null));
+    }
+
+}
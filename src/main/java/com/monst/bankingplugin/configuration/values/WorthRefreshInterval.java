@@ -0,0 +1,26 @@
+package com.monst.bankingplugin.configuration.values;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.ConfigurationValue;
+import com.monst.bankingplugin.configuration.transform.IntegerTransformer;
+
+import java.util.Optional;
+
+/**
+ * The number of minutes between refreshes of the item price table from the Essentials worth file.
+ * This value is optional; if it is not set, prices are only refreshed on reload.
+ */
+public class WorthRefreshInterval extends ConfigurationValue<Optional<Integer>> {
+
+    public WorthRefreshInterval(BankingPlugin plugin) {
+        super(plugin, "worth-refresh-interval", Optional.of(5),
+                new IntegerTransformer().absolute().optional());
+    }
+
+    @Override
+    protected void afterSet() {
+        if (plugin.getWorths() != null)
+            plugin.getWorths().scheduleRefresh();
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.monst.bankingplugin.entity;
 
 import com.monst.bankingplugin.entity.geo.location.AccountLocation;
+import com.monst.bankingplugin.util.AccountContentsTracker;
+import com.monst.bankingplugin.util.Money;
 import com.monst.bankingplugin.util.Observable;
 import com.monst.bankingplugin.util.Observer;
 import org.bukkit.ChatColor;
@@ -8,12 +10,9 @@ import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Chest;
 import org.bukkit.block.DoubleChest;
-import org.bukkit.block.ShulkerBox;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.BlockStateMeta;
 
-import java.math.BigDecimal;
 import java.util.*;
 
 public class Account extends Entity implements Ownable, Observable {
@@ -22,8 +21,8 @@ public class Account extends Entity implements Ownable, Observable {
     private OfflinePlayer owner;
     private final Set<OfflinePlayer> co_owners = new HashSet<>();
     private AccountLocation location;
-    private BigDecimal balance = BigDecimal.ZERO;
-    private BigDecimal previousBalance = BigDecimal.ZERO;
+    private Money balance = Money.ZERO;
+    private Money previousBalance = Money.ZERO;
     private int multiplierStage;
     private int remainingOfflinePayouts;
     private String customName;
@@ -35,7 +34,7 @@ public class Account extends Entity implements Ownable, Observable {
     }
     
     public Account(int id, Bank bank, OfflinePlayer owner, Set<OfflinePlayer> coOwners, AccountLocation location,
-                   BigDecimal balance, BigDecimal previousBalance, int multiplierStage, int remainingOfflinePayouts,
+                   Money balance, Money previousBalance, int multiplierStage, int remainingOfflinePayouts,
                    String customName) {
         super(id);
         this.bank = bank;
@@ -62,16 +61,17 @@ public class Account extends Entity implements Ownable, Observable {
         notifyObservers();
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
+        bank.accountChanged(this);
         notifyObservers();
     }
 
-    public BigDecimal getPreviousBalance() {
+    public Money getPreviousBalance() {
         return previousBalance;
     }
 
@@ -79,6 +79,10 @@ public class Account extends Entity implements Ownable, Observable {
         previousBalance = balance;
     }
 
+    public void setPreviousBalance(Money previousBalance) {
+        this.previousBalance = previousBalance;
+    }
+
     public AccountLocation getLocation() {
         return location;
     }
@@ -140,24 +144,8 @@ public class Account extends Entity implements Ownable, Observable {
         InventoryHolder ih = location.findChest().orElse(null);
         if (ih == null)
             return contents;
-        for (ItemStack item : ih.getInventory().getContents()) {
-            if (item == null) // Individual items may be null
-                continue;
-            contents.putIfAbsent(item.getType(), 0);
-            contents.computeIfPresent(item.getType(), (type, current) -> current + item.getAmount());
-            if (item.getItemMeta() instanceof BlockStateMeta) {
-                BlockStateMeta im = (BlockStateMeta) item.getItemMeta();
-                if (im.getBlockState() instanceof ShulkerBox) {
-                    ShulkerBox shulkerBox = (ShulkerBox) im.getBlockState();
-                    for (ItemStack innerItem : shulkerBox.getInventory().getContents()) {
-                        if (innerItem == null)
-                            continue;
-                        contents.putIfAbsent(innerItem.getType(), 0);
-                        contents.computeIfPresent(innerItem.getType(), (type, current) -> current + innerItem.getAmount());
-                    }
-                }
-            }
-        }
+        for (ItemStack item : ih.getInventory().getContents())
+            AccountContentsTracker.count(item, contents);
         return contents;
     }
 
@@ -243,6 +231,7 @@ public class Account extends Entity implements Ownable, Observable {
     @Override
     public void setOwner(OfflinePlayer newOwner) {
         owner = newOwner;
+        bank.accountChanged(this);
         untrustPlayer(newOwner); // Remove from co-owners if new owner was a co-owner
         notifyObservers();
     }
@@ -256,7 +245,7 @@ public class Account extends Entity implements Ownable, Observable {
     public void trustPlayer(OfflinePlayer player) {
         if (player == null)
             return;
-        getCoOwners().add(player);
+        co_owners.add(player);
         notifyObservers();
     }
 
@@ -264,7 +253,7 @@ public class Account extends Entity implements Ownable, Observable {
     public void untrustPlayer(OfflinePlayer player) {
         if (player == null)
             return;
-        getCoOwners().remove(player);
+        co_owners.remove(player);
         notifyObservers();
     }
     
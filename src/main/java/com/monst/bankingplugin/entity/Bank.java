@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.entity;
 
 import com.monst.bankingplugin.entity.geo.region.BankRegion;
+import com.monst.bankingplugin.util.Money;
 import com.monst.bankingplugin.util.Observable;
 import com.monst.bankingplugin.util.Observer;
 import org.bukkit.ChatColor;
@@ -8,7 +9,6 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -39,7 +39,9 @@ public class Bank extends Entity implements Ownable, Observable {
     private BankRegion region;
     private final Set<OfflinePlayer> co_owners = new HashSet<>();
     private final Set<Account> accounts = new HashSet<>();
+    private final BankStatistics statistics = new BankStatistics();
     private final Map<Policy, Object> policies = new EnumMap<>(Policy.class);
+    private int policyVersion; // Incremented whenever a policy is set
     
     public Bank(int id, String name, OfflinePlayer owner, BankRegion region, Set<OfflinePlayer> coOwners,
                 BigDecimal interestRate, BigDecimal accountCreationPrice, BigDecimal minimumBalance, BigDecimal lowBalanceFee,
@@ -80,40 +82,56 @@ public class Bank extends Entity implements Ownable, Observable {
     }
 
     public void addAccount(Account account) {
-        accounts.add(account);
+        if (accounts.add(account))
+            statistics.add(account);
         notifyObservers();
     }
 
     public void removeAccount(Account account) {
-        accounts.remove(account);
+        if (accounts.remove(account))
+            statistics.remove(account);
         notifyObservers();
     }
 
     /**
-     * Calculates the sum of all {@link Account} balances at this bank.
+     * Updates the statistics of this bank after the balance or owner of one of its accounts has changed.
+     */
+    void accountChanged(Account account) {
+        statistics.update(account);
+    }
+
+    /**
+     * Gets the sum of all {@link Account} balances at this bank.
      * @return the total value of the accounts at this bank
      * @see Account#getBalance()
      */
-    public BigDecimal getTotalValue() {
-        return accounts.stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Money getTotalValue() {
+        return statistics.getTotalValue();
     }
 
     /**
-     * Calculates the average of all {@link Account} balances at this bank.
+     * Gets the average of all {@link Account} balances at this bank.
      * @return the average value of the accounts at this bank
      * @see Account#getBalance()
      */
-    public BigDecimal getAverageValue() {
-        if (accounts.isEmpty())
-            return BigDecimal.ZERO;
-        return getTotalValue().divide(BigDecimal.valueOf(accounts.size()), RoundingMode.HALF_EVEN);
+    public Money getAverageValue() {
+        if (statistics.getNumberOfAccounts() == 0)
+            return Money.ZERO;
+        return getTotalValue().divide(statistics.getNumberOfAccounts());
     }
 
     /**
      * @return a {@link Set<OfflinePlayer>} containing all account holders at this bank.
      */
     public Set<OfflinePlayer> getAccountHolders() {
-        return accounts.stream().map(Account::getOwner).collect(Collectors.toSet());
+        return statistics.getAccountHolders();
+    }
+
+    /**
+     * @return the number of different players who own accounts at this bank
+     */
+    public int getNumberOfAccountHolders() {
+        return statistics.getNumberOfAccountHolders();
     }
 
     /**
@@ -247,9 +265,17 @@ public class Bank extends Entity implements Ownable, Observable {
     
     private void set(Policy policy, Object value) {
         policies.put(policy, value);
+        policyVersion++;
         notifyObservers();
     }
 
+    /**
+     * @return a number that changes whenever a policy of this bank is set
+     */
+    public int getPolicyVersion() {
+        return policyVersion;
+    }
+
     public String getName() {
         return name.replaceAll("&[0-9A-FK-OR]", "");
     }
@@ -284,7 +310,7 @@ public class Bank extends Entity implements Ownable, Observable {
     public void trustPlayer(OfflinePlayer player) {
         if (player == null)
             return;
-        getCoOwners().add(player);
+        co_owners.add(player);
         notifyObservers();
     }
 
@@ -292,7 +318,7 @@ public class Bank extends Entity implements Ownable, Observable {
     public void untrustPlayer(OfflinePlayer player) {
         if (player == null)
             return;
-        getCoOwners().remove(player);
+        co_owners.remove(player);
         notifyObservers();
     }
 
@@ -311,26 +337,12 @@ public class Bank extends Entity implements Ownable, Observable {
     }
 
     /**
-     * Calculates Gini coefficient of this bank. This is a measurement of wealth
-     * (in)equality across all accounts at the bank.
+     * Gets the Gini coefficient of this bank. This is a measurement of wealth
+     * (in)equality across all account holders at the bank.
      * @return the Gini coefficient
      */
     public BigDecimal getGiniCoefficient() {
-        if (getAccountHolders().size() <= 1)
-            return BigDecimal.ZERO;
-        BigDecimal totalValue = getTotalValue();
-        if (totalValue.signum() == 0)
-            return BigDecimal.ZERO;
-        BigDecimal[] balances = accounts.stream()
-                .collect(Collectors.toMap(Account::getOwner, Account::getBalance, BigDecimal::add))
-                .values().stream().sorted().toArray(BigDecimal[]::new);
-        BigDecimal topSum = BigDecimal.ZERO;
-        for (int i = 1; i <= balances.length; i++) {
-            BigDecimal weight = BigDecimal.valueOf((i * 2L) - balances.length - 1);
-            topSum = topSum.add(balances[i - 1].multiply(weight));
-        }
-        BigDecimal bottomSum = totalValue.multiply(BigDecimal.valueOf(balances.length));
-        return topSum.divide(bottomSum, RoundingMode.HALF_EVEN);
+        return statistics.getGiniCoefficient();
     }
     
     private final Set<Observer> observers = new HashSet<>();
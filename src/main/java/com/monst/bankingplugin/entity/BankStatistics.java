@@ -0,0 +1,284 @@
+package com.monst.bankingplugin.entity;
+
+import com.monst.bankingplugin.util.Money;
+import org.bukkit.OfflinePlayer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The total value, account holders and Gini coefficient of the accounts at a bank, kept up to date as accounts are
+ * added, removed and changed rather than recalculated from every account each time they are needed.
+ * The balance and owner of each account are remembered, so that a change can be undone exactly.
+ * The total balance of each holder is kept in a treap ordered by balance, which gives the rank-weighted sum
+ * of the sorted balances that the Gini coefficient is calculated from in O(log n) per change.
+ */
+final class BankStatistics {
+
+    private final Map<Account, Member> members = new HashMap<>();
+    private final Map<OfflinePlayer, Holder> holders = new HashMap<>();
+    private final RankedBalances holderBalances = new RankedBalances();
+    private long totalCents;
+
+    void add(Account account) {
+        if (members.containsKey(account))
+            return;
+        Member member = new Member(account.getOwner(), account.getBalance().getCents());
+        members.put(account, member);
+        totalCents = Math.addExact(totalCents, member.cents);
+        Holder holder = holders.get(member.owner);
+        if (holder == null)
+            holders.put(member.owner, holder = new Holder());
+        else
+            holderBalances.remove(holder.cents);
+        holder.accounts++;
+        holder.cents += member.cents;
+        holderBalances.insert(holder.cents);
+    }
+
+    void remove(Account account) {
+        Member member = members.remove(account);
+        if (member == null)
+            return;
+        totalCents -= member.cents;
+        Holder holder = holders.get(member.owner);
+        holderBalances.remove(holder.cents);
+        holder.accounts--;
+        holder.cents -= member.cents;
+        if (holder.accounts == 0)
+            holders.remove(member.owner);
+        else
+            holderBalances.insert(holder.cents);
+    }
+
+    /**
+     * Takes a new balance or owner of an account into account.
+     */
+    void update(Account account) {
+        Member member = members.get(account);
+        if (member == null)
+            return;
+        if (member.cents == account.getBalance().getCents() && Objects.equals(member.owner, account.getOwner()))
+            return;
+        remove(account);
+        add(account);
+    }
+
+    int getNumberOfAccounts() {
+        return members.size();
+    }
+
+    Money getTotalValue() {
+        return Money.ofCents(totalCents);
+    }
+
+    Set<OfflinePlayer> getAccountHolders() {
+        return new HashSet<>(holders.keySet());
+    }
+
+    int getNumberOfAccountHolders() {
+        return holders.size();
+    }
+
+    /**
+     * @return the Gini coefficient of the total balances of the account holders, rounded to two decimal places
+     */
+    BigDecimal getGiniCoefficient() {
+        int n = holders.size();
+        if (n <= 1 || totalCents == 0)
+            return BigDecimal.ZERO;
+        // Sum of (2i - n - 1) * x_i over the ascending balances x_1..x_n, which is 2 * sum(i * x_i) - (n + 1) * sum(x_i)
+        BigInteger numerator = holderBalances.weightedSum().shiftLeft(1)
+                .subtract(BigInteger.valueOf(n + 1L).multiply(BigInteger.valueOf(totalCents)));
+        BigDecimal topSum = new BigDecimal(numerator, 2);
+        BigDecimal bottomSum = getTotalValue().toBigDecimal().multiply(BigDecimal.valueOf(n));
+        return topSum.divide(bottomSum, RoundingMode.HALF_EVEN);
+    }
+
+    private static class Member {
+
+        private final OfflinePlayer owner;
+        private final long cents;
+
+        private Member(OfflinePlayer owner, long cents) {
+            this.owner = owner;
+            this.cents = cents;
+        }
+
+    }
+
+    private static class Holder {
+        private int accounts;
+        private long cents;
+    }
+
+    /**
+     * A multiset of balances in a treap, where each node knows the size and sum of its subtree. The sum of every
+     * balance times its rank in ascending order is kept up to date: inserting a balance at a rank raises the rank of
+     * every larger balance by one, which adds their sum, and removing it does the opposite. Equal balances are
+     * interchangeable, so it does not matter which of them is given the lower rank.
+     */
+    private static class RankedBalances {
+
+        private Node root;
+        private long weightedSum;
+        private boolean overflowed; // If so, the weighted sum is calculated from the tree when needed
+
+        void insert(long value) {
+            updateWeightedSum(value, 1);
+            root = insert(root, new Node(value));
+        }
+
+        void remove(long value) {
+            root = remove(root, value);
+            updateWeightedSum(value, -1);
+            if (root == null) {
+                weightedSum = 0;
+                overflowed = false;
+            }
+        }
+
+        /**
+         * Adjusts the weighted sum for a balance inserted at, or removed from, the lowest rank among equal balances,
+         * while the balance is not in the tree.
+         */
+        private void updateWeightedSum(long value, int sign) {
+            if (overflowed)
+                return;
+            int countLess = 0;
+            long sumLess = 0;
+            for (Node node = root; node != null;) {
+                if (node.value < value) {
+                    countLess += size(node.left) + 1;
+                    sumLess += sum(node.left) + node.value;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            try {
+                long change = Math.addExact(Math.multiplyExact(countLess + 1L, value), sum(root) - sumLess);
+                weightedSum = Math.addExact(weightedSum, sign * change);
+            } catch (ArithmeticException e) {
+                overflowed = true;
+            }
+        }
+
+        BigInteger weightedSum() {
+            if (!overflowed)
+                return BigInteger.valueOf(weightedSum);
+            BigInteger sum = BigInteger.ZERO;
+            long rank = 1;
+            Deque<Node> stack = new ArrayDeque<>();
+            for (Node node = root; node != null || !stack.isEmpty();) {
+                if (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                    continue;
+                }
+                node = stack.pop();
+                sum = sum.add(BigInteger.valueOf(node.value).multiply(BigInteger.valueOf(rank++)));
+                node = node.right;
+            }
+            return sum;
+        }
+
+        private static Node insert(Node node, Node inserted) {
+            if (node == null)
+                return inserted;
+            if (inserted.value < node.value) {
+                node.left = insert(node.left, inserted);
+                if (node.left.priority > node.priority)
+                    return rotateRight(node);
+            } else {
+                node.right = insert(node.right, inserted);
+                if (node.right.priority > node.priority)
+                    return rotateLeft(node);
+            }
+            node.update();
+            return node;
+        }
+
+        private static Node remove(Node node, long value) {
+            if (node == null)
+                throw new NoSuchElementException("Balance not found: " + value);
+            if (value < node.value)
+                node.left = remove(node.left, value);
+            else if (value > node.value)
+                node.right = remove(node.right, value);
+            else
+                return merge(node.left, node.right);
+            node.update();
+            return node;
+        }
+
+        /**
+         * Joins two treaps, where every value in the first is at most every value in the second.
+         */
+        private static Node merge(Node first, Node second) {
+            if (first == null)
+                return second;
+            if (second == null)
+                return first;
+            if (first.priority > second.priority) {
+                first.right = merge(first.right, second);
+                first.update();
+                return first;
+            }
+            second.left = merge(first, second.left);
+            second.update();
+            return second;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            node.update();
+            left.right = node;
+            left.update();
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            node.update();
+            right.left = node;
+            right.update();
+            return right;
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        private static long sum(Node node) {
+            return node == null ? 0 : node.sum;
+        }
+
+        private static class Node {
+
+            private final long value;
+            private final int priority = ThreadLocalRandom.current().nextInt();
+            private Node left, right;
+            private int size = 1;
+            private long sum;
+
+            private Node(long value) {
+                this.value = value;
+                this.sum = value;
+            }
+
+            private void update() {
+                size = size(left) + size(right) + 1;
+                sum = sum(left) + sum(right) + value;
+            }
+
+        }
+
+    }
+
+}
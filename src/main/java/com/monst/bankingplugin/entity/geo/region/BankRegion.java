@@ -9,7 +9,6 @@ import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
 import java.awt.*;
-import java.awt.geom.Area;
 import java.util.List;
 import java.util.Objects;
 
@@ -92,13 +91,14 @@ public abstract class BankRegion extends Entity {
     public abstract long getVolume();
 
     /**
+     * Returns true if this region and another one in the same world have at least one point in common.
+     * Regions that only share a border overlap, since both of them contain the blocks on it.
+     *
      * @param region The other region
      * @return whether or not this region overlaps and another one
      */
     public boolean overlaps(BankRegion region) {
-        Area area = new Area(getShape());
-        area.intersect(new Area(region.getShape()));
-        return !area.isEmpty();
+        return RegionOverlap.overlaps(this, region);
     }
 
     public final boolean overlapsX(int minX, int maxX) {
@@ -155,8 +155,7 @@ public abstract class BankRegion extends Entity {
      */
     public abstract boolean contains(int x, int z);
     
-    @SuppressWarnings("unused")
-    abstract Shape getShape(); // TODO: Use this as a replacement for getFootprint()?
+    abstract Shape getShape();
 
     /**
      * Get all (upper and lower) corner {@link Block}s of this region.
@@ -85,7 +85,7 @@ public class CuboidBankRegion extends BankRegion {
 	
 	@Override
 	Shape getShape() {
-		return new Rectangle(minX, minZ, getWidth(), getLength());
+		return new Rectangle(minX, minZ, getLength(), getWidth());
 	}
 	
 	@Override
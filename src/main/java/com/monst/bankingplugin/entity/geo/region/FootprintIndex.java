@@ -0,0 +1,235 @@
+package com.monst.bankingplugin.entity.geo.region;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Answers whether a {@link PolygonalBankRegion} contains an (x,z) coordinate pair without walking all of its edges.
+ * Small footprints are rasterized into a bitmap with one bit per block, which answers in constant time.
+ * Larger footprints of simple polygons are cut into vertical slabs at the x-coordinates of the vertices; no vertex lies
+ * strictly inside a slab, so the edges crossing it never change order and can be searched in logarithmic time.
+ * A polygon whose edges cross each other is left to {@link PolygonalBankRegion#containsByEdges} if it is too large for
+ * a bitmap.
+ * Every structure gives exactly the same answers as walking the edges, including for points on the border.
+ */
+abstract class FootprintIndex {
+
+	/**
+	 * Builds the fastest index for a region.
+	 *
+	 * @param region the region to index
+	 * @param bitmapAreaLimit the largest bounding box area, in blocks, that is rasterized, or null to never rasterize
+	 */
+	static FootprintIndex build(PolygonalBankRegion region, Integer bitmapAreaLimit) {
+		FootprintIndex edges = region.isSimple() ? new Slabs(region) : new Edges(region);
+		long area = (long) region.getLength() * region.getWidth();
+		if (bitmapAreaLimit != null && area <= bitmapAreaLimit)
+			return new Bitmap(region, edges);
+		return edges;
+	}
+
+	/**
+	 * Returns true if the footprint contains this (x,z) coordinate pair, which must lie within the bounding box of
+	 * the region.
+	 */
+	abstract boolean contains(int x, int z);
+
+	private static class Edges extends FootprintIndex {
+
+		private final PolygonalBankRegion region;
+
+		private Edges(PolygonalBankRegion region) {
+			this.region = region;
+		}
+
+		@Override
+		boolean contains(int x, int z) {
+			return region.containsByEdges(x, z);
+		}
+
+	}
+
+	private static class Bitmap extends FootprintIndex {
+
+		private final int minX;
+		private final int minZ;
+		private final int width;
+		private final long[] bits;
+
+		private Bitmap(PolygonalBankRegion region, FootprintIndex index) {
+			this.minX = region.getMinX();
+			this.minZ = region.getMinZ();
+			this.width = region.getWidth();
+			int length = region.getLength();
+			this.bits = new long[(int) (((long) length * width + 63) >>> 6)];
+			int bit = 0;
+			for (int x = minX; x < minX + length; x++)
+				for (int z = minZ; z < minZ + width; z++, bit++)
+					if (index.contains(x, z))
+						bits[bit >>> 6] |= 1L << bit;
+		}
+
+		@Override
+		boolean contains(int x, int z) {
+			int bit = (x - minX) * width + (z - minZ);
+			return (bits[bit >>> 6] & (1L << bit)) != 0;
+		}
+
+	}
+
+	private static class Slabs extends FootprintIndex {
+
+		private final int[] slabX; // The distinct x-coordinates of the vertices, in ascending order
+		// The edges that cross the slab between slabX[k] and slabX[k + 1] are at slabStart[k] until slabStart[k + 1]
+		// in slabEdges, from bottom to top. Each edge is stored with its left end first.
+		private final int[] slabStart;
+		private final int[] slabEdges;
+		private final int[] leftX, leftZ, rightX, rightZ;
+		// The parts of the column at slabX[k] that are on the border, as sorted disjoint intervals of z-coordinates
+		// at borderStart[k] until borderStart[k + 1] in borderMinZ and borderMaxZ
+		private final int[] borderStart;
+		private final int[] borderMinZ, borderMaxZ;
+
+		private Slabs(PolygonalBankRegion region) {
+			int[] pointsX = region.getPointsX();
+			int[] pointsZ = region.getPointsZ();
+			int n = pointsX.length;
+			this.slabX = Arrays.stream(pointsX).sorted().distinct().toArray();
+
+			leftX = new int[n];
+			leftZ = new int[n];
+			rightX = new int[n];
+			rightZ = new int[n];
+			List<List<Integer>> slabs = new ArrayList<>();
+			List<List<int[]>> borders = new ArrayList<>();
+			for (int k = 0; k < slabX.length; k++) {
+				slabs.add(new ArrayList<>());
+				borders.add(new ArrayList<>());
+			}
+			for (int i = 0; i < n; i++) {
+				int j = (i + 1) % n;
+				boolean leftFirst = pointsX[i] <= pointsX[j];
+				leftX[i] = leftFirst ? pointsX[i] : pointsX[j];
+				leftZ[i] = leftFirst ? pointsZ[i] : pointsZ[j];
+				rightX[i] = leftFirst ? pointsX[j] : pointsX[i];
+				rightZ[i] = leftFirst ? pointsZ[j] : pointsZ[i];
+				int first = Arrays.binarySearch(slabX, leftX[i]);
+				int last = Arrays.binarySearch(slabX, rightX[i]);
+				// Both ends of the edge are on the border, and the whole edge if it is vertical
+				if (first == last)
+					borders.get(first).add(new int[] { Math.min(leftZ[i], rightZ[i]), Math.max(leftZ[i], rightZ[i]) });
+				else {
+					borders.get(first).add(new int[] { leftZ[i], leftZ[i] });
+					borders.get(last).add(new int[] { rightZ[i], rightZ[i] });
+				}
+				for (int k = first; k < last; k++)
+					slabs.get(k).add(i);
+			}
+
+			slabStart = new int[slabX.length];
+			slabEdges = new int[slabs.stream().mapToInt(List::size).sum()];
+			int count = 0;
+			for (int k = 0; k < slabX.length; k++) {
+				slabStart[k] = count;
+				List<Integer> slab = slabs.get(k);
+				if (k + 1 < slabX.length)
+					slab.sort(byHeightAt((long) slabX[k] + slabX[k + 1]));
+				for (int edge : slab)
+					slabEdges[count++] = edge;
+			}
+
+			borderStart = new int[slabX.length + 1];
+			List<int[]> merged = new ArrayList<>();
+			for (int k = 0; k < slabX.length; k++) {
+				borderStart[k] = merged.size();
+				List<int[]> column = borders.get(k);
+				column.sort(Comparator.comparingInt(interval -> interval[0]));
+				for (int[] interval : column) {
+					int[] previous = merged.size() > borderStart[k] ? merged.get(merged.size() - 1) : null;
+					if (previous != null && interval[0] <= previous[1])
+						previous[1] = Math.max(previous[1], interval[1]);
+					else
+						merged.add(interval);
+				}
+			}
+			borderStart[slabX.length] = merged.size();
+			borderMinZ = merged.stream().mapToInt(interval -> interval[0]).toArray();
+			borderMaxZ = merged.stream().mapToInt(interval -> interval[1]).toArray();
+		}
+
+		/**
+		 * Orders edges by their z-coordinate at half of doubleX. The edges of a simple polygon never cross between
+		 * two neighboring vertex x-coordinates, so this is their order across the whole slab.
+		 */
+		private Comparator<Integer> byHeightAt(long doubleX) {
+			return (e, f) -> {
+				// z = leftZ + (rightZ - leftZ) * (x - leftX) / (rightX - leftX), scaled by 2 * (rightX - leftX)
+				BigInteger heightE = scaledHeight(e, doubleX).multiply(BigInteger.valueOf((long) rightX[f] - leftX[f]));
+				BigInteger heightF = scaledHeight(f, doubleX).multiply(BigInteger.valueOf((long) rightX[e] - leftX[e]));
+				return heightE.compareTo(heightF);
+			};
+		}
+
+		private BigInteger scaledHeight(int edge, long doubleX) {
+			long dx = (long) rightX[edge] - leftX[edge];
+			long dz = (long) rightZ[edge] - leftZ[edge];
+			return BigInteger.valueOf(2L * leftZ[edge] * dx)
+					.add(BigInteger.valueOf(dz).multiply(BigInteger.valueOf(doubleX - 2L * leftX[edge])));
+		}
+
+		@Override
+		boolean contains(int x, int z) {
+			int k = Arrays.binarySearch(slabX, x);
+			if (k >= 0) {
+				if (onBorder(k, z))
+					return true;
+				// Edges that end in this column count as crossing it, just like the edges that cross the slab before it
+				if (k == 0)
+					return false;
+				k--;
+			} else {
+				k = -k - 2; // The slab between slabX[k] and slabX[k + 1]
+			}
+			// Find the lowest edge that is not below the point
+			int low = slabStart[k];
+			int high = k + 1 < slabStart.length ? slabStart[k + 1] : slabEdges.length;
+			int end = high;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (side(slabEdges[middle], x, z) > 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			if (low < end && side(slabEdges[low], x, z) == 0)
+				return true; // On an edge
+			return ((end - low) & 1) == 1; // Odd number of edges above the point
+		}
+
+		private boolean onBorder(int column, int z) {
+			int low = borderStart[column];
+			int high = borderStart[column + 1];
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (borderMaxZ[middle] < z)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low < borderStart[column + 1] && borderMinZ[low] <= z;
+		}
+
+		/**
+		 * @return positive if the point is above the edge, negative if below it and zero if on it
+		 */
+		private int side(int edge, int x, int z) {
+			return Long.signum(((long) z - leftZ[edge]) * ((long) rightX[edge] - leftX[edge])
+					- ((long) rightZ[edge] - leftZ[edge]) * ((long) x - leftX[edge]));
+		}
+
+	}
+
+}
@@ -16,6 +16,9 @@ import java.util.List;
 public class PolygonalBankRegion extends BankRegion {
 	
 	private static final int MAX_COORDS_IN_TOSTRING = 5;
+	private static final int MIN_POINTS_TO_INDEX = 8; // Walking fewer edges than this is as fast as any index
+
+	private static volatile Integer bitmapAreaLimit;
 
 	private final int[] pointsX;
 	private final int[] pointsZ;
@@ -29,6 +32,8 @@ public class PolygonalBankRegion extends BankRegion {
 	private Integer maxX;
 	private Integer maxZ;
 	private Block centerBlock;
+	private Boolean simple;
+	private FootprintIndex footprintIndex;
 	
 	/**
 	 * Creates a new {@link PolygonalBankRegion} with the specified attributes
@@ -147,6 +152,15 @@ public class PolygonalBankRegion extends BankRegion {
 		return new Polygon(pointsX, pointsZ, nPoints);
 	}
 	
+	/**
+	 * @return whether no two edges of this region cross or touch, apart from neighboring edges at their common vertex
+	 */
+	boolean isSimple() {
+		if (simple == null)
+			simple = RegionOverlap.isSimple(pointsX, pointsZ);
+		return simple;
+	}
+	
 	@Override
 	public long getVolume() {
 		return (long) getArea() * getHeight();
@@ -161,8 +175,31 @@ public class PolygonalBankRegion extends BankRegion {
 		return Math.abs(area / 2);
 	}
 
+	/**
+	 * Sets the largest bounding box area, in blocks, of a region whose footprint is rasterized into a bitmap
+	 * the first time it is checked for a block. Larger regions are searched with an index of their edges instead.
+	 *
+	 * @param blocks the largest area to rasterize, or null to never rasterize
+	 */
+	public static void setBitmapAreaLimit(Integer blocks) {
+		bitmapAreaLimit = blocks;
+	}
+
 	@Override
 	public boolean contains(int pointX, int pointZ) {
+		if (pointX < getMinX() || pointX > getMaxX() || pointZ < getMinZ() || pointZ > getMaxZ())
+			return false;
+		if (nPoints < MIN_POINTS_TO_INDEX)
+			return containsByEdges(pointX, pointZ);
+		if (footprintIndex == null)
+			footprintIndex = FootprintIndex.build(this, bitmapAreaLimit);
+		return footprintIndex.contains(pointX, pointZ);
+	}
+
+	/**
+	 * Returns true if this region contains this (x,z) coordinate pair, by walking every edge.
+	 */
+	boolean containsByEdges(int pointX, int pointZ) {
 		int nextX, nextZ, x1, z1, x2, z2;
 		int prevX = pointsX[nPoints - 1];
 		int prevZ = pointsZ[nPoints - 1];
@@ -0,0 +1,185 @@
+package com.monst.bankingplugin.entity.geo.region;
+
+import java.awt.geom.Area;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Decides whether two regions overlap using integer arithmetic on their vertices.
+ * The footprint of a region includes its edges and vertices, just like {@link BankRegion#contains(int, int)},
+ * so two regions that share a border overlap.
+ * If no edge of one footprint touches an edge of the other, the footprints are either disjoint or one lies entirely
+ * inside the other, which is decided by testing a single vertex of each. This only holds for simple polygons;
+ * a polygon whose edges cross itself can have parts that are bounded by no vertex, so such polygons fall back to
+ * {@link Area} when the exact tests find nothing.
+ * Coordinates are assumed to lie well within the world border, so that every cross product fits in a long.
+ */
+final class RegionOverlap {
+
+	private RegionOverlap() {}
+
+	static boolean overlaps(BankRegion a, BankRegion b) {
+		if (!Objects.equals(a.getWorld(), b.getWorld()))
+			return false;
+		if (!a.overlapsX(b.getMinX(), b.getMaxX())
+				|| !a.overlapsY(b.getMinY(), b.getMaxY())
+				|| !a.overlapsZ(b.getMinZ(), b.getMaxZ()))
+			return false;
+		if (a.isCuboid() && b.isCuboid())
+			return true; // Overlapping bounding boxes are all there is to it
+		if (a.isCuboid())
+			return overlaps((CuboidBankRegion) a, (PolygonalBankRegion) b);
+		if (b.isCuboid())
+			return overlaps((CuboidBankRegion) b, (PolygonalBankRegion) a);
+		return overlaps((PolygonalBankRegion) a, (PolygonalBankRegion) b);
+	}
+
+	private static boolean overlaps(CuboidBankRegion cuboid, PolygonalBankRegion polygon) {
+		int[] pointsX = polygon.getPointsX();
+		int[] pointsZ = polygon.getPointsZ();
+		if (cuboid.contains(pointsX[0], pointsZ[0]) || polygon.contains(cuboid.getMinX(), cuboid.getMinZ()))
+			return true;
+		int minX = cuboid.getMinX(), maxX = cuboid.getMaxX(), minZ = cuboid.getMinZ(), maxZ = cuboid.getMaxZ();
+		int n = pointsX.length;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			int x1 = pointsX[i], z1 = pointsZ[i], x2 = pointsX[j], z2 = pointsZ[j];
+			if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(z1, z2) < minZ || Math.min(z1, z2) > maxZ)
+				continue;
+			// The edge meets the rectangle unless all four corners lie strictly on the same side of its line
+			int side = orientation(x1, z1, x2, z2, minX, minZ);
+			if (side == 0
+					|| orientation(x1, z1, x2, z2, maxX, minZ) != side
+					|| orientation(x1, z1, x2, z2, maxX, maxZ) != side
+					|| orientation(x1, z1, x2, z2, minX, maxZ) != side)
+				return true;
+		}
+		if (polygon.isSimple())
+			return false;
+		return intersectAreas(cuboid, polygon);
+	}
+
+	private static boolean overlaps(PolygonalBankRegion a, PolygonalBankRegion b) {
+		int[] aX = a.getPointsX(), aZ = a.getPointsZ();
+		int[] bX = b.getPointsX(), bZ = b.getPointsZ();
+		if (b.contains(aX[0], aZ[0]) || a.contains(bX[0], bZ[0]))
+			return true;
+		// Any point where the edges meet lies within both bounding boxes
+		int minX = Math.max(a.getMinX(), b.getMinX()), maxX = Math.min(a.getMaxX(), b.getMaxX());
+		int minZ = Math.max(a.getMinZ(), b.getMinZ()), maxZ = Math.min(a.getMaxZ(), b.getMaxZ());
+		long[] aEdges = edgesSortedByMinX(aX, aZ, minX, maxX, minZ, maxZ);
+		long[] bEdges = edgesSortedByMinX(bX, bZ, minX, maxX, minZ, maxZ);
+		for (long aEdge : aEdges) {
+			int i = (int) aEdge;
+			int i2 = (i + 1) % aX.length;
+			int aMinX = Math.min(aX[i], aX[i2]), aMaxX = Math.max(aX[i], aX[i2]);
+			int aMinZ = Math.min(aZ[i], aZ[i2]), aMaxZ = Math.max(aZ[i], aZ[i2]);
+			for (long bEdge : bEdges) {
+				if ((int) (bEdge >> 32) > aMaxX)
+					break; // This and all following edges of b lie to the right of the edge of a
+				int j = (int) bEdge;
+				int j2 = (j + 1) % bX.length;
+				if (Math.max(bX[j], bX[j2]) < aMinX || Math.max(bZ[j], bZ[j2]) < aMinZ || Math.min(bZ[j], bZ[j2]) > aMaxZ)
+					continue;
+				if (segmentsIntersect(aX[i], aZ[i], aX[i2], aZ[i2], bX[j], bZ[j], bX[j2], bZ[j2]))
+					return true;
+			}
+		}
+		if (a.isSimple() && b.isSimple())
+			return false;
+		return intersectAreas(a, b);
+	}
+
+	private static boolean intersectAreas(BankRegion a, BankRegion b) {
+		Area area = new Area(a.getShape());
+		area.intersect(new Area(b.getShape()));
+		return !area.isEmpty();
+	}
+
+	/**
+	 * Checks that no two edges of a polygon touch, except neighboring edges at their common vertex.
+	 */
+	static boolean isSimple(int[] pointsX, int[] pointsZ) {
+		int n = pointsX.length;
+		long[] edges = edgesSortedByMinX(pointsX, pointsZ, Integer.MIN_VALUE, Integer.MAX_VALUE,
+				Integer.MIN_VALUE, Integer.MAX_VALUE);
+		for (int p = 0; p < edges.length; p++) {
+			int i = (int) edges[p];
+			int i2 = (i + 1) % n;
+			int maxX = Math.max(pointsX[i], pointsX[i2]);
+			for (int q = p + 1; q < edges.length && (int) (edges[q] >> 32) <= maxX; q++) {
+				int j = (int) edges[q];
+				int j2 = (j + 1) % n;
+				if (j2 == i || i2 == j) {
+					// Neighboring edges may only fold back onto each other
+					int shared = j2 == i ? i : j;
+					int other1 = shared == i ? i2 : i;
+					int other2 = shared == i ? j : j2;
+					if (orientation(pointsX[shared], pointsZ[shared], pointsX[other1], pointsZ[other1],
+							pointsX[other2], pointsZ[other2]) == 0
+							&& (onSegment(pointsX[shared], pointsZ[shared], pointsX[other1], pointsZ[other1],
+									pointsX[other2], pointsZ[other2])
+							|| onSegment(pointsX[shared], pointsZ[shared], pointsX[other2], pointsZ[other2],
+									pointsX[other1], pointsZ[other1])))
+						return false;
+				} else if (segmentsIntersect(pointsX[i], pointsZ[i], pointsX[i2], pointsZ[i2],
+						pointsX[j], pointsZ[j], pointsX[j2], pointsZ[j2]))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the edges of a polygon whose bounding boxes meet a window, sorted by their minimum x-coordinate.
+	 * Edge i runs from vertex i to the next vertex. Each edge is packed into a long with its minimum x-coordinate in
+	 * the upper half and its index in the lower half, so that sorting the longs sorts the edges.
+	 */
+	private static long[] edgesSortedByMinX(int[] pointsX, int[] pointsZ, int minX, int maxX, int minZ, int maxZ) {
+		int n = pointsX.length;
+		long[] edges = new long[n];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			int edgeMinX = Math.min(pointsX[i], pointsX[j]);
+			if (edgeMinX > maxX || Math.max(pointsX[i], pointsX[j]) < minX
+					|| Math.min(pointsZ[i], pointsZ[j]) > maxZ || Math.max(pointsZ[i], pointsZ[j]) < minZ)
+				continue;
+			edges[count++] = ((long) edgeMinX << 32) | i;
+		}
+		edges = Arrays.copyOf(edges, count);
+		Arrays.sort(edges);
+		return edges;
+	}
+
+	/**
+	 * @return whether the closed segments (x1,z1)-(x2,z2) and (x3,z3)-(x4,z4) have a point in common
+	 */
+	static boolean segmentsIntersect(int x1, int z1, int x2, int z2, int x3, int z3, int x4, int z4) {
+		int d1 = orientation(x3, z3, x4, z4, x1, z1);
+		int d2 = orientation(x3, z3, x4, z4, x2, z2);
+		int d3 = orientation(x1, z1, x2, z2, x3, z3);
+		int d4 = orientation(x1, z1, x2, z2, x4, z4);
+		if (d1 * d2 < 0 && d3 * d4 < 0)
+			return true;
+		return (d1 == 0 && onSegment(x3, z3, x4, z4, x1, z1))
+				|| (d2 == 0 && onSegment(x3, z3, x4, z4, x2, z2))
+				|| (d3 == 0 && onSegment(x1, z1, x2, z2, x3, z3))
+				|| (d4 == 0 && onSegment(x1, z1, x2, z2, x4, z4));
+	}
+
+	/**
+	 * @return the sign of the cross product of (x2,z2)-(x1,z1) and (x,z)-(x1,z1)
+	 */
+	private static int orientation(int x1, int z1, int x2, int z2, int x, int z) {
+		return Long.signum(((long) x2 - x1) * ((long) z - z1) - ((long) z2 - z1) * ((long) x - x1));
+	}
+
+	/**
+	 * @return whether (x,z), which is collinear with the segment (x1,z1)-(x2,z2), lies on the segment
+	 */
+	private static boolean onSegment(int x1, int z1, int x2, int z2, int x, int z) {
+		return Math.min(x1, x2) <= x && x <= Math.max(x1, x2) && Math.min(z1, z2) <= z && z <= Math.max(z1, z2);
+	}
+
+}
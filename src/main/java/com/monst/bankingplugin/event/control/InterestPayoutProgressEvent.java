@@ -0,0 +1,84 @@
+package com.monst.bankingplugin.event.control;
+
+import com.monst.bankingplugin.entity.Bank;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.HandlerList;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Called on the main thread each time an interest payout triggered by an {@link InterestEvent} completes a stage.
+ * The payout is finished when {@link #isFinished()} returns true, either because it is complete or because it failed.
+ */
+public class InterestPayoutProgressEvent extends ControlEvent {
+
+	/**
+	 * The stages of an interest payout, in the order in which they complete.
+	 */
+	public enum Stage {
+		/** Interest and fees have been calculated for every account. */
+		CALCULATED,
+		/** The new multiplier stages and offline payout counters have been applied to the accounts. */
+		APPLIED,
+		/** Accounts and interest logs have been written to the database. */
+		PERSISTED,
+		/** All payments have been made at the banks where the payout was saved, and all players notified. */
+		COMPLETE,
+		/** The payout could not be calculated or could not be saved at any bank, and no payments were made. */
+		FAILED
+	}
+
+	private final Set<Bank> banks;
+	private final Stage stage;
+	private final int numberOfAccounts;
+
+	public InterestPayoutProgressEvent(CommandSender sender, Set<Bank> banks, Stage stage, int numberOfAccounts) {
+		super(sender);
+		this.banks = banks;
+		this.stage = stage;
+		this.numberOfAccounts = numberOfAccounts;
+	}
+
+	private static final HandlerList HANDLERS = new HandlerList();
+
+	@Override
+	public HandlerList getHandlers() {
+		return HANDLERS;
+	}
+
+	public static HandlerList getHandlerList() {
+		return HANDLERS;
+	}
+
+	public Set<Bank> getBanks() {
+		return Collections.unmodifiableSet(banks);
+	}
+
+	public Stage getStage() {
+		return stage;
+	}
+
+	/**
+	 * @return the number of accounts included in this payout
+	 */
+	public int getNumberOfAccounts() {
+		return numberOfAccounts;
+	}
+
+	public boolean isComplete() {
+		return stage == Stage.COMPLETE;
+	}
+
+	public boolean isFailed() {
+		return stage == Stage.FAILED;
+	}
+
+	/**
+	 * @return whether this is the last event of the payout
+	 */
+	public boolean isFinished() {
+		return isComplete() || isFailed();
+	}
+
+}
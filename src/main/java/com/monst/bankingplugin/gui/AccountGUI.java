@@ -1,10 +1,12 @@
 package com.monst.bankingplugin.gui;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.BankPolicies;
 import com.monst.bankingplugin.command.Permissions;
 import com.monst.bankingplugin.entity.Account;
 import com.monst.bankingplugin.entity.Bank;
 import com.monst.bankingplugin.lang.ColorStringBuilder;
+import com.monst.bankingplugin.util.Money;
 import com.monst.bankingplugin.util.Observer;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -16,7 +18,6 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -106,27 +107,28 @@ public class AccountGUI extends SinglePageGUI implements Observer {
 		if (!isTrusted)
 			return NO_PERMISSION;
 		Bank bank = account.getBank();
-		BigDecimal interestRate = plugin.config().interestRate.at(bank);
-		int multiplier = account.getInterestMultiplier(plugin.config().interestMultipliers.at(bank));
+		BankPolicies policies = plugin.config().policiesAt(bank);
+		BigDecimal interestRate = policies.getInterestRate();
+		int multiplier = account.getInterestMultiplier(policies.getInterestMultipliers());
 		BigDecimal multipliedInterestRate = interestRate.multiply(BigDecimal.valueOf(multiplier));
-		BigDecimal minBalance = plugin.config().minimumBalance.at(bank);
-		boolean isLowBalance = account.getBalance().compareTo(minBalance) < 0;
-		boolean payOnLowBalance = plugin.config().payOnLowBalance.at(bank);
-		BigDecimal fullPayout;
+		BigDecimal minBalance = policies.getMinimumBalance();
+		boolean isLowBalance = account.getBalance().toBigDecimal().compareTo(minBalance) < 0;
+		boolean payOnLowBalance = policies.paysOnLowBalance();
+		Money fullPayout;
 		if (isLowBalance && !payOnLowBalance)
-			fullPayout = BigDecimal.ZERO;
+			fullPayout = Money.ZERO;
 		else
-			fullPayout = account.getBalance().multiply(multipliedInterestRate).setScale(2, RoundingMode.HALF_EVEN);
-		BigDecimal lowBalanceFee;
+			fullPayout = account.getBalance().multiply(multipliedInterestRate);
+		Money lowBalanceFee;
 		if (isLowBalance)
-			lowBalanceFee = plugin.config().lowBalanceFee.at(bank);
+			lowBalanceFee = Money.of(policies.getLowBalanceFee());
 		else
-			lowBalanceFee = BigDecimal.ZERO;
-		BigDecimal nextPayout = fullPayout.subtract(lowBalanceFee);
+			lowBalanceFee = Money.ZERO;
+		Money nextPayout = fullPayout.subtract(lowBalanceFee);
 		return Arrays.asList(
 				"Balance: " + formatAndColorize(account.getBalance()) + (isLowBalance ?
 																		 ChatColor.RED + " (" + format(minBalance.subtract(
-																				 account.getBalance())) + " below minimum)" :
+																				 account.getBalance().toBigDecimal())) + " below minimum)" :
 																		 ""),
 				"Interest rate: " + ChatColor.GREEN + multipliedInterestRate.scaleByPowerOfTen(2) + "% "
 						+ ChatColor.GRAY + "(" + interestRate + " x " + multiplier + ")",
@@ -139,7 +141,7 @@ public class AccountGUI extends SinglePageGUI implements Observer {
 	List<String> getMultiplierLore(boolean isTrusted) {
 		if (!isTrusted)
 			return NO_PERMISSION;
-		List<Integer> interestMultipliers = plugin.config().interestMultipliers.at(account.getBank());
+		List<Integer> interestMultipliers = plugin.config().policiesAt(account.getBank()).getInterestMultipliers();
 		if (interestMultipliers.isEmpty())
 			return Collections.singletonList(ChatColor.GREEN + "1x");
 		
@@ -227,7 +229,7 @@ public class AccountGUI extends SinglePageGUI implements Observer {
 		if (!isTrusted)
 			return NO_PERMISSION;
 		int remainingOffline = account.getRemainingOfflinePayouts();
-		int offlineDecrement = plugin.config().offlineMultiplierDecrement.at(account.getBank());
+		int offlineDecrement = plugin.config().policiesAt(account.getBank()).getOfflineMultiplierDecrement();
 		return wordWrapAll(
 				"Account can generate interest for " + ChatColor.AQUA + remainingOffline + ChatColor.GRAY
 						+ String.format(" offline payout cycle%s.", remainingOffline == 1 ? "" : "s"),
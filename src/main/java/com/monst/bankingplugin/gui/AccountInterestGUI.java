@@ -29,13 +29,18 @@ public class AccountInterestGUI extends MultiPageGUI<AccountInterest> {
     
     @Override
     Promise<Integer> countItems() {
-        return Promise.sync(() -> plugin.getAccountInterestService().countByAccount(account));
+        return plugin.getAccountInterestService().countByAccount(account);
     }
     
     @Override
     Promise<List<AccountInterest>> fetchItems(int offset, int limit) {
         return plugin.getAccountInterestService().findByAccount(account, offset, limit);
     }
+    
+    @Override
+    Promise<List<AccountInterest>> fetchItemsAfter(AccountInterest last, int offset, int limit) {
+        return plugin.getAccountInterestService().findByAccountAfter(account, last, limit);
+    }
 
     @Override
     String getTitle() {
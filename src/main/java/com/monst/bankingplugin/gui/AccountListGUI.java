@@ -45,6 +45,17 @@ public class AccountListGUI extends MultiPageGUI<Account> {
         return Promise.fulfill(Collections.emptyList());
     }
     
+    @Override
+    Promise<List<Account>> fetchItemsAfter(Account last, int offset, int limit) {
+        if (owners.isEmpty())
+            return plugin.getAccountService().findByTrustedPlayerAfter(player, last, limit);
+        if (Permissions.ACCOUNT_LIST_OTHER.ownedBy(player))
+            return plugin.getAccountService().findByOwnersAfter(owners, last, limit);
+        if (owners.contains(player))
+            return plugin.getAccountService().findByOwnersAfter(Collections.singleton(player), last, limit);
+        return Promise.fulfill(Collections.emptyList());
+    }
+    
     @Override
     String getTitle() {
         return "Account List";
@@ -28,7 +28,7 @@ public class AccountTransactionGUI extends MultiPageGUI<AccountTransaction> {
     
     @Override
     Promise<Integer> countItems() {
-        return Promise.sync(() -> plugin.getAccountTransactionService().countByAccount(account));
+        return plugin.getAccountTransactionService().countByAccount(account);
     }
     
     @Override
@@ -36,6 +36,11 @@ public class AccountTransactionGUI extends MultiPageGUI<AccountTransaction> {
         return plugin.getAccountTransactionService().findByAccount(account, offset, limit);
     }
     
+    @Override
+    Promise<List<AccountTransaction>> fetchItemsAfter(AccountTransaction last, int offset, int limit) {
+        return plugin.getAccountTransactionService().findByAccountAfter(account, last, limit);
+    }
+    
     @Override
     String getTitle() {
         return "Account Transaction Log";
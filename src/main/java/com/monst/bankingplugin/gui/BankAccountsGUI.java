@@ -33,6 +33,11 @@ class BankAccountsGUI extends MultiPageGUI<Account> {
         return plugin.getAccountService().findByBank(bank, offset, limit);
     }
     
+    @Override
+    Promise<List<Account>> fetchItemsAfter(Account last, int offset, int limit) {
+        return plugin.getAccountService().findByBankAfter(bank, last, limit);
+    }
+    
     @Override
     String getTitle() {
         return "Accounts of " + bank.getName();
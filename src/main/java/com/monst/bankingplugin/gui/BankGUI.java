@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.gui;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.BankPolicies;
 import com.monst.bankingplugin.command.Permissions;
 import com.monst.bankingplugin.entity.Bank;
 import com.monst.bankingplugin.lang.ColorStringBuilder;
@@ -152,7 +153,7 @@ public class BankGUI extends SinglePageGUI implements Observer {
 				"Total account value: " + formatAndColorize(bank.getTotalValue()),
 				"Average account value: " + formatAndColorize(bank.getAverageValue()),
 				"Number of accounts: " + ChatColor.AQUA + bank.getNumberOfAccounts(),
-				"Number of account holders: " + ChatColor.AQUA + bank.getAccountHolders().size(),
+				"Number of account holders: " + ChatColor.AQUA + bank.getNumberOfAccountHolders(),
 				"Equality score: " + getEqualityLore(bank)
 		);
 	}
@@ -174,15 +175,16 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getCreationLore() {
-		boolean reimburse = plugin.config().reimburseAccountCreation.at(bank);
+		BankPolicies policies = plugin.config().policiesAt(bank);
+		boolean reimburse = policies.reimbursesAccountCreation();
 		return Arrays.asList(
-				"Fee per chest: " + ChatColor.GREEN + plugin.config().accountCreationPrice.at(bank),
+				"Fee per chest: " + ChatColor.GREEN + policies.getAccountCreationPrice(),
 				"Reimbursed on removal: " + (reimburse ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No")
 		);
 	}
 
 	private List<String> getMultipliersLore() {
-		List<Integer> interestMultipliers = plugin.config().interestMultipliers.at(bank);
+		List<Integer> interestMultipliers = plugin.config().policiesAt(bank).getInterestMultipliers();
 		if (interestMultipliers.isEmpty())
 			return Collections.singletonList(ChatColor.GREEN + "1x");
 		
@@ -219,10 +221,11 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getMinimumBalanceLore() {
-		BigDecimal minBalance = plugin.config().minimumBalance.at(bank);
-		BigDecimal lowBalanceFee = plugin.config().lowBalanceFee.at(bank);
+		BankPolicies policies = plugin.config().policiesAt(bank);
+		BigDecimal minBalance = policies.getMinimumBalance();
+		BigDecimal lowBalanceFee = policies.getLowBalanceFee();
 		boolean strikethrough = minBalance.signum() == 0;
-		boolean payOnLowBalance = plugin.config().payOnLowBalance.at(bank);
+		boolean payOnLowBalance = policies.paysOnLowBalance();
 		Stream.Builder<String> lore = Stream.builder();
 		lore.add("Minimum balance: " + ChatColor.GREEN + format(minBalance));
 		lore.add("Low balance fee: " + ChatColor.RED + (strikethrough ? ChatColor.STRIKETHROUGH : "") + format(lowBalanceFee));
@@ -235,8 +238,9 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getOfflinePayoutsLore() {
-		int offlinePayouts = plugin.config().allowedOfflinePayouts.at(bank);
-		int offlineDecrement = plugin.config().offlineMultiplierDecrement.at(bank);
+		BankPolicies policies = plugin.config().policiesAt(bank);
+		int offlinePayouts = policies.getAllowedOfflinePayouts();
+		int offlineDecrement = policies.getOfflineMultiplierDecrement();
 		Stream.Builder<String> lore = Stream.builder();
 		lore.add("Accounts will " + (offlinePayouts == 0 ? ChatColor.RED + "not generate interest" + ChatColor.GRAY
 				: "generate interest up to " + ChatColor.AQUA + offlinePayouts + ChatColor.GRAY
@@ -257,7 +261,7 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getWithdrawalPolicyLore() {
-		int withdrawalDecrement = plugin.config().withdrawalMultiplierDecrement.at(bank);
+		int withdrawalDecrement = plugin.config().policiesAt(bank).getWithdrawalMultiplierDecrement();
 		return wordWrapAll(
 				"Account multipliers will " + (withdrawalDecrement == 0
 						? ChatColor.GREEN + "not be affected on" + ChatColor.GRAY
@@ -267,7 +271,7 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getAccountLimitLore() {
-		int accountLimit = plugin.config().playerAccountPerBankLimit.at(bank);
+		int accountLimit = plugin.config().policiesAt(bank).getPlayerAccountPerBankLimit();
 		return wordWrapAll(
 				(accountLimit == 0
 						? "Account creation is currently " + ChatColor.RED + "disabled" + ChatColor.GRAY
@@ -279,7 +283,7 @@ public class BankGUI extends SinglePageGUI implements Observer {
 	}
 
 	private List<String> getPayoutTimeLore() {
-		Set<LocalTime> times = plugin.config().interestPayoutTimes.at(bank);
+		Set<LocalTime> times = plugin.config().policiesAt(bank).getInterestPayoutTimes();
 		Stream.Builder<String> lore = Stream.builder();
 		if (!times.isEmpty()) {
 			lore.add("Accounts will generate interest every day at: ");
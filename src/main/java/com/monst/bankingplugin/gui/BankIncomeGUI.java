@@ -27,7 +27,7 @@ public class BankIncomeGUI extends MultiPageGUI<BankIncome> {
     
     @Override
     Promise<Integer> countItems() {
-        return Promise.sync(() -> plugin.getBankIncomeService().countByBank(bank));
+        return plugin.getBankIncomeService().countByBank(bank);
     }
     
     @Override
@@ -35,6 +35,11 @@ public class BankIncomeGUI extends MultiPageGUI<BankIncome> {
         return plugin.getBankIncomeService().findByBank(bank, offset, limit);
     }
     
+    @Override
+    Promise<List<BankIncome>> fetchItemsAfter(BankIncome last, int offset, int limit) {
+        return plugin.getBankIncomeService().findByBankAfter(bank, last, limit);
+    }
+    
     @Override
     String getTitle() {
         return "Bank Income Log";
@@ -1,6 +1,8 @@
 package com.monst.bankingplugin.gui;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.util.Money;
+import com.monst.bankingplugin.util.Promise;
 import org.bukkit.*;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
@@ -30,6 +32,8 @@ public abstract class GUI implements InventoryHolder {
 	GUI parentGUI;
 	boolean visible = true;
 	
+	private final Set<Promise<?>> pendingPromises = new HashSet<>();
+	
 	public GUI(BankingPlugin plugin, Player player) {
 		this.plugin = plugin;
 		this.player = player;
@@ -72,10 +76,20 @@ public abstract class GUI implements InventoryHolder {
 	 */
 	public void onClose() {
 		unsubscribe();
+		pendingPromises.forEach(Promise::cancel); // The results would have nowhere to go
+		pendingPromises.clear();
 		if (visible && parentGUI != null)
 			Bukkit.getScheduler().runTask(plugin, parentGUI::reopen); // Delay to prevent inventory closing issues
 	}
 	
+	/**
+	 * Registers a promise whose result is meant for this GUI, so that it is cancelled if the GUI is closed first.
+	 */
+	<T> Promise<T> track(Promise<T> promise) {
+		pendingPromises.add(promise);
+		return promise.finallyDo(() -> pendingPromises.remove(promise));
+	}
+	
 	/**
 	 * Subclasses should override this method to unsubscribe from any observables.
 	 */
@@ -185,6 +199,18 @@ public abstract class GUI implements InventoryHolder {
 			return ChatColor.RED + format(bd);
 		return ChatColor.GRAY + format(bd);
 	}
+
+	String format(Money money) {
+		return plugin.getEconomy().format(money.doubleValue());
+	}
+
+	String formatAndColorize(Money money) {
+		if (money.signum() > 0)
+			return ChatColor.GREEN + format(money);
+		if (money.signum() < 0)
+			return ChatColor.RED + format(money);
+		return ChatColor.GRAY + format(money);
+	}
 	
 	@Override
 	public boolean equals(Object o) {
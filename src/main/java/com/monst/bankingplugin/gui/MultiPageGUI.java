@@ -3,6 +3,7 @@ package com.monst.bankingplugin.gui;
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.gui.option.MenuItemFilter;
 import com.monst.bankingplugin.gui.option.MenuItemSorter;
+import com.monst.bankingplugin.util.DebugCategory;
 import com.monst.bankingplugin.util.Promise;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -12,6 +13,8 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.stream.IntStream;
 
 /**
@@ -37,12 +40,19 @@ abstract class MultiPageGUI<T> extends GUI {
     private static final int FILTER_SLOT = 29;
     private static final int SORTER_SLOT = 33;
 
+    private static final int PAGE_SIZE = ITEM_SLOTS.length;
+
     private final Map<Integer, T> displayedItems = new HashMap<>();
+    /** The current page and the pages around it, fetched or being fetched */
+    private final Map<Integer, Promise<List<T>>> pages = new HashMap<>();
+    /** The last item of the page before each page, to seek past when fetching the page */
+    private final Map<Integer, T> cursors = new HashMap<>();
 
     private final ItemFilter itemFilter = new ItemFilter();
     private final ItemSorterSlot itemSorterSlot = new ItemSorterSlot();
 
     private int currentPage;
+    private int itemCount;
     
     MultiPageGUI(BankingPlugin plugin, Player player) {
         super(plugin, player);
@@ -61,29 +71,83 @@ abstract class MultiPageGUI<T> extends GUI {
     public void open() {
         this.inventory = createInventory();
         shortenGUIChain();
-        countItems().then(count -> {
-            int pageSize = ITEM_SLOTS.length;
-            int maxPage = Math.max(0, count - 1) / pageSize;
-            currentPage = Math.min(currentPage, maxPage);
-            if (currentPage > 0)
-                inventory.setItem(PREV_PAGE_SLOT, item(Material.ARROW, "Previous page"));
-            if (currentPage < maxPage)
-                inventory.setItem(NEXT_PAGE_SLOT, item(Material.ARROW, "Next page"));
-            int offset = currentPage * pageSize;
-            fetchItems(offset, pageSize).then(this::populateInventory).finallyDo(() -> player.openInventory(inventory));
-        });
+        forgetPages();
+        loadPage(true, () -> player.openInventory(inventory));
     }
     
+    /**
+     * Reloads the current page and the number of items, discarding any pages fetched in advance.
+     */
     void reloadPage() {
-        countItems().then(count -> {
-            int pageSize = ITEM_SLOTS.length;
-            int maxPage = Math.max(0, count - 1) / pageSize;
-            currentPage = Math.min(currentPage, maxPage);
-            int offset = currentPage * pageSize;
-            fetchItems(offset, pageSize).then(this::populateInventory);
+        forgetPages();
+        loadPage(true, () -> {});
+    }
+    
+    @Override
+    public void onClose() {
+        super.onClose();
+        pages.clear(); // Pages that were still being fetched have been cancelled
+    }
+    
+    private void forgetPages() {
+        pages.clear();
+        cursors.clear();
+    }
+    
+    /**
+     * Fills the inventory with the current page, fetching it unless it was already fetched in advance.
+     * When recounting, the items are counted at the same time as the page is fetched; otherwise the last count is used.
+     * If the current page no longer exists because items were removed, the last page is loaded instead.
+     * Once the page is shown, the pages on either side of it are fetched in advance.
+     * The inventory is shown even if loading fails or takes too long, so that the player is not left waiting.
+     */
+    private void loadPage(boolean recount, Runnable afterLoad) {
+        int page = currentPage;
+        Promise<Integer> count = recount ? countItems() : Promise.fulfill(itemCount);
+        track(count.zip(fetchPage(page), Page::new).timeout(10, TimeUnit.SECONDS)).then(result -> {
+            itemCount = result.count;
+            int maxPage = Math.max(0, itemCount - 1) / PAGE_SIZE;
+            if (page > maxPage || (result.items.isEmpty() && page > 0)) {
+                // Items were removed since they were last counted
+                currentPage = Math.min(page - 1, maxPage);
+                forgetPages();
+                loadPage(true, afterLoad);
+                return;
+            }
+            inventory.setItem(PREV_PAGE_SLOT, page > 0 ? item(Material.ARROW, "Previous page") : null);
+            inventory.setItem(NEXT_PAGE_SLOT, page < maxPage ? item(Material.ARROW, "Next page") : null);
+            populateInventory(result.items);
+            afterLoad.run();
+            if (!result.items.isEmpty())
+                cursors.put(page + 1, result.items.get(result.items.size() - 1));
+            pages.keySet().removeIf(p -> Math.abs(p - page) > 1);
+            if (page < maxPage)
+                fetchPage(page + 1);
+            if (page > 0)
+                fetchPage(page - 1);
+        }).catchError(error -> {
+            plugin.debug(DebugCategory.GUI, Level.WARNING, "Failed to load page %d of %s for %s: %s",
+                    page + 1, getTitle(), player.getName(), error);
+            pages.remove(page);
+            afterLoad.run();
         });
     }
     
+    /**
+     * Gets the items on a page, fetching them if they are not already being fetched.
+     * A page is fetched by seeking past the last item of the page before it, if that item is known.
+     */
+    private Promise<List<T>> fetchPage(int page) {
+        Promise<List<T>> items = pages.get(page);
+        if (items != null)
+            return items;
+        T cursor = cursors.get(page);
+        int offset = page * PAGE_SIZE;
+        items = cursor != null ? fetchItemsAfter(cursor, offset, PAGE_SIZE) : fetchItems(offset, PAGE_SIZE);
+        pages.put(page, track(items));
+        return items;
+    }
+    
     private void populateInventory(List<T> items) {
         displayedItems.clear();
         Iterator<T> iterator = items.iterator();
@@ -100,6 +164,15 @@ abstract class MultiPageGUI<T> extends GUI {
     abstract Promise<Integer> countItems();
     
     abstract Promise<List<T>> fetchItems(int offset, int limit);
+    
+    /**
+     * Fetches the items following the given item, which is the last item on the previous page.
+     * GUIs that list items from the database in the order of their IDs should override this to seek past the ID,
+     * which does not get slower as the page number grows, unlike an offset. By default, the offset is used.
+     */
+    Promise<List<T>> fetchItemsAfter(T last, int offset, int limit) {
+        return fetchItems(offset, limit);
+    }
 
     /**
      * Gets the name of this GUI, which is displayed in the title bar.
@@ -135,12 +208,21 @@ abstract class MultiPageGUI<T> extends GUI {
         if (currentPage == 0)
             return;
         currentPage--;
-        reloadPage();
+        loadPage(false, () -> {});
     }
     
     private void nextPage() {
         currentPage++;
-        reloadPage();
+        loadPage(false, () -> {});
+    }
+
+    private static class Page<E> {
+        private final int count;
+        private final List<E> items;
+        private Page(int count, List<E> items) {
+            this.count = count;
+            this.items = items;
+        }
     }
 
     private abstract class OptionCycler<Option> {
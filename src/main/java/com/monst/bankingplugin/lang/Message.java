@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.lang;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.util.DebugCategory;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -364,6 +365,11 @@ public enum Message implements Translatable {
             red("\"" + INPUT + "\" is not a world."),
             INPUT
     ),
+    NOT_A_LOG_LEVEL(
+            "A player attempts to set a configuration property to a log level, but provided a string that was not a log level.",
+            red("\"" + INPUT + "\" is not a log level."),
+            INPUT
+    ),
     NOT_A_BANK_POLICY(
             "A player attempts to configure a bank policy, but provided a string that was not a policy.",
             red("\"" + INPUT + "\" is not a bank policy."),
@@ -1027,7 +1033,7 @@ public enum Message implements Translatable {
             }
             if (!remainingPlaceholders.isEmpty()) {
                 plugin.log(Level.WARNING, "Notify author! Message " + path + " has unfilled placeholders!");
-                plugin.debug(remainingPlaceholders.toString());
+                plugin.debug(DebugCategory.GENERAL, Level.WARNING, remainingPlaceholders.toString());
             }
             return translation;
         }
@@ -1051,7 +1057,7 @@ public enum Message implements Translatable {
     public String translate(BankingPlugin plugin) {
         if (!availablePlaceholders.isEmpty()) {
             plugin.log(Level.WARNING, "Notify author! Message " + path + " has unfilled placeholders!");
-            plugin.debug(availablePlaceholders.toString());
+            plugin.debug(DebugCategory.GENERAL, Level.WARNING, availablePlaceholders.toString());
         }
         return plugin.config().languageFile.getTranslation(this, defaultMessage);
     }
@@ -1,5 +1,6 @@
 package com.monst.bankingplugin.listener;
 
+import com.google.common.cache.CacheStats;
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.entity.Account;
 import com.monst.bankingplugin.entity.Bank;
@@ -8,6 +9,9 @@ import com.monst.bankingplugin.event.account.AccountContractEvent;
 import com.monst.bankingplugin.event.account.AccountTransactionEvent;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
+import com.monst.bankingplugin.util.AccountContentsTracker;
+import com.monst.bankingplugin.util.DebugCategory;
+import com.monst.bankingplugin.util.Money;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -16,7 +20,7 @@ import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 
-import java.math.BigDecimal;
+import java.util.logging.Level;
 
 /**
  * Continuously updates account balances.
@@ -54,17 +58,20 @@ public class AccountBalanceListener implements Listener {
 
 	private void evaluateAccountTransaction(Player executor, Account account) {
 
-		BigDecimal oldBalance = account.getBalance();
-		BigDecimal newBalance = plugin.getWorths().appraise(account);
-		BigDecimal difference = newBalance.subtract(oldBalance);
+		Money oldBalance = account.getBalance();
+		Money newBalance = plugin.getWorths().appraise(plugin.getContentsTracker().getContents(account));
+		Money difference = newBalance.subtract(oldBalance);
 
 		if (difference.signum() == 0)
 			return;
 		
 		account.setBalance(newBalance);
 
-		plugin.debug("Appraised balance of account #d: %s, difference to previous: %s",
-				account.getID(), newBalance, difference);
+		if (plugin.isDebugEnabled(DebugCategory.LISTENER, Level.FINER)) {
+			CacheStats shulkerCacheStats = AccountContentsTracker.getShulkerCacheStats();
+			plugin.debug(DebugCategory.LISTENER, Level.FINER, "Appraised balance of account #%d: %s, difference to previous: %s (shulker box cache: %d hits, %d misses)",
+					account.getID(), newBalance, difference, shulkerCacheStats.hitCount(), shulkerCacheStats.missCount());
+		}
 
 		Message message = difference.signum() > 0 ? Message.ACCOUNT_DEPOSIT : Message.ACCOUNT_WITHDRAWAL;
 		executor.sendMessage(message
@@ -75,22 +82,23 @@ public class AccountBalanceListener implements Listener {
 		if (difference.signum() < 0 && newBalance.compareTo(account.getPreviousBalance()) < 0) {
 			Bank bank = account.getBank();
 			int multiplierStage = account.getInterestMultiplierStage();
-			account.decrementMultiplier(plugin.config().withdrawalMultiplierDecrement.at(bank));
+			account.decrementMultiplier(plugin.config().policiesAt(bank).getWithdrawalMultiplierDecrement());
 			if (multiplierStage != account.getInterestMultiplierStage())
 				executor.sendMessage(Message.ACCOUNT_INTEREST_MULTIPLIER_DECREASED
-						.with(Placeholder.INTEREST_MULTIPLIER).as(account.getInterestMultiplier(plugin.config().interestMultipliers.at(bank)))
+						.with(Placeholder.INTEREST_MULTIPLIER).as(account.getInterestMultiplier(plugin.config().policiesAt(bank).getInterestMultipliers()))
 						.translate(plugin));
 		}
 
 		plugin.getAccountService().update(account);
-		plugin.debug("Account has been updated with a new balance: " + account);
-		new AccountTransactionEvent(executor, account, difference, newBalance).fire();
+		plugin.debug(DebugCategory.LISTENER, "Account has been updated with a new balance: %s", account);
+		new AccountTransactionEvent(executor, account, difference.toBigDecimal(), newBalance.toBigDecimal()).fire();
 
 		if (account.getOwner().isOnline())
 			plugin.getLastSeenService().updateLastSeenTime(account.getOwner());
 
 		plugin.getAccountTransactionService().save(
-				new AccountTransaction(account, account.getBank(), executor, oldBalance, difference, newBalance));
+				new AccountTransaction(account, account.getBank(), executor,
+						oldBalance.toBigDecimal(), difference.toBigDecimal(), newBalance.toBigDecimal()));
 	}
 
 }
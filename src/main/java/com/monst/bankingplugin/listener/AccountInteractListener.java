@@ -9,6 +9,7 @@ import com.monst.bankingplugin.gui.AccountGUI;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
 import com.monst.bankingplugin.command.Permissions;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
@@ -20,6 +21,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.stream.Stream;
 
 public class AccountInteractListener implements Listener {
@@ -69,9 +71,9 @@ public class AccountInteractListener implements Listener {
 				}
 			} catch (CommandExecutionException ex) {
 				player.sendMessage(ex.getLocalizedMessage());
-				plugin.debug(ex.getMessage());
+				plugin.debug(DebugCategory.LISTENER, ex.getMessage());
 			} catch (EventCancelledException ex) {
-				plugin.debug("Interact event cancelled: " + ex);
+				plugin.debug(DebugCategory.LISTENER, "Interact event cancelled: %s", ex);
 			}
 			
 			e.setCancelled(true); // Do not open the chest, even if the interaction fails
@@ -113,7 +115,7 @@ public class AccountInteractListener implements Listener {
 				// Player is not owner of the bank either, and does not have permission to open other players' accounts.
 				e.setCancelled(true); // Do not open the chest
 				player.sendMessage(Message.NO_PERMISSION_ACCOUNT_VIEW_OTHER.translate(plugin)); // Show the no permission message
-				plugin.debug("%s does not have permission to open %s's account chest.", player.getName(), account.getOwner().getName());
+				plugin.debug(DebugCategory.LISTENER, "%s does not have permission to open %s's account chest.", player.getName(), account.getOwner().getName());
 				return;
 			}
 			// Player has permission to open the account despite not being trusted on the account.
@@ -122,7 +124,7 @@ public class AccountInteractListener implements Listener {
 		}
 
 		e.setCancelled(false); // Ensure that the chest is opened.
-		plugin.debug("%s is opening account %s", player.getName(), account);
+		plugin.debug(DebugCategory.LISTENER, Level.FINER, "%s is opening account %s", player.getName(), account);
 
 	}
 }
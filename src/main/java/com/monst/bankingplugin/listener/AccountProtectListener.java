@@ -12,10 +12,13 @@ import com.monst.bankingplugin.event.EventCancelledException;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
 import com.monst.bankingplugin.command.Permissions;
+import com.monst.bankingplugin.util.AccountContentsTracker;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Chest;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -25,14 +28,18 @@ import org.bukkit.event.block.BlockBurnEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
 
 import java.math.BigDecimal;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -63,7 +70,7 @@ public class AccountProtectListener implements Listener {
 			return;
 
 		Player player = e.getPlayer();
-		plugin.debug("%s tries to break account %s", player.getName(), account);
+		plugin.debug(DebugCategory.LISTENER, Level.FINER, "%s tries to break account %s", player.getName(), account);
   
 		boolean canBreak = player.isSneaking();
         if (canBreak)
@@ -77,15 +84,15 @@ public class AccountProtectListener implements Listener {
 		}
   
 		if (!canBreak) {
-            plugin.debug("%s cannot break account %s", player.getName(), account);
+            plugin.debug(DebugCategory.LISTENER, "%s cannot break account %s", player.getName(), account);
 			e.setCancelled(true);
 			e.getPlayer().sendMessage(Message.CANNOT_BREAK_ACCOUNT_CHEST.translate(plugin));
 			return;
 		}
 
 		Bank bank = account.getBank();
-		if (plugin.config().reimburseAccountCreation.at(bank) && account.isOwner(player) && !bank.isOwner(player)) {
-			final double finalCreationPrice = plugin.config().accountCreationPrice.at(bank).doubleValue();
+		if (plugin.config().policiesAt(bank).reimbursesAccountCreation() && account.isOwner(player) && !bank.isOwner(player)) {
+			final double finalCreationPrice = plugin.config().policiesAt(bank).getAccountCreationPrice().doubleValue();
 			// Account owner is reimbursed for the part of the chest that was broken
 			if (plugin.getPaymentService().deposit(player, finalCreationPrice))
 				player.sendMessage(Message.ACCOUNT_REIMBURSEMENT_RECEIVED
@@ -112,7 +119,7 @@ public class AccountProtectListener implements Listener {
 			new AccountCloseEvent(player, account).fire();
 			bank.removeAccount(account);
 			plugin.getAccountService().remove(account);
-			plugin.debug("%s broke account %s", player.getName(), account);
+			plugin.debug(DebugCategory.LISTENER, "%s broke account %s", player.getName(), account);
 			player.sendMessage(Message.ACCOUNT_CLOSED.with(Placeholder.BANK_NAME).as(bank.getColorizedName()).translate(plugin));
 		}
 	}
@@ -159,13 +166,13 @@ public class AccountProtectListener implements Listener {
 		Player player = e.getPlayer();
 		Bank bank = plugin.getBankService().findContaining(placedBlock);
 		if (bank == null || !bank.equals(account.getBank())) {
-			plugin.debug("Chest not in bank.");
+			plugin.debug(DebugCategory.LISTENER, "Chest not in bank.");
 			player.sendMessage(Message.CHEST_NOT_IN_BANK.translate(plugin));
 			e.setCancelled(true);
 			return;
 		}
 
-		plugin.debug("%s tries to extend account %s", player.getName(), account);
+		plugin.debug(DebugCategory.LISTENER, Level.FINER, "%s tries to extend account %s", player.getName(), account);
 
 		if (!account.isOwner(player) && Permissions.ACCOUNT_EXTEND_OTHER.notOwnedBy(player)) {
 			player.sendMessage(Message.NO_PERMISSION_ACCOUNT_EXTEND_OTHER.translate(plugin));
@@ -185,7 +192,7 @@ public class AccountProtectListener implements Listener {
 			}
 		}
 
-		BigDecimal creationPrice = plugin.config().accountCreationPrice.at(bank);
+		BigDecimal creationPrice = plugin.config().policiesAt(bank).getAccountCreationPrice();
 		if (creationPrice.signum() > 0 && !bank.isOwner(player)) {
 			final double finalCreationPrice = creationPrice.doubleValue();
 			if (!plugin.getPaymentService().withdraw(player, finalCreationPrice)) {
@@ -236,28 +243,70 @@ public class AccountProtectListener implements Listener {
     }
 
 	/**
-	 * Prevents unauthorized players from editing the items in other players' account chests
-	 * TODO: Try to find another way to do this that does not require querying the database
+	 * Prevents unauthorized players from editing the items in other players' account chests,
+	 * and tells the contents tracker which slots of the chest may have changed.
 	 */
 	@EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
 	public void onAccountItemClick(InventoryClickEvent e) {
-		if (!(e.getWhoClicked() instanceof Player))
-			return;
-		if (e.getInventory().getType() != InventoryType.CHEST)
+		Account account = findEditedAccount(e.getInventory(), e.getWhoClicked());
+		if (account == null)
 			return;
-		if (e.getInventory().getLocation() == null)
+		if (isUnauthorized((Player) e.getWhoClicked(), account)) {
+			e.setCancelled(true);
 			return;
-		Block block = e.getInventory().getLocation().getBlock();
-		if (block.getType() != Material.CHEST && block.getType() != Material.TRAPPED_CHEST)
+		}
+		InventoryAction action = e.getAction();
+		if (action == InventoryAction.NOTHING)
 			return;
-		Account account = plugin.getAccountService().findAtChest(block);
+		int rawSlot = e.getRawSlot();
+		boolean clickedAccount = rawSlot >= 0 && rawSlot < e.getView().getTopInventory().getSize();
+		AccountContentsTracker tracker = plugin.getContentsTracker();
+		if (action == InventoryAction.COLLECT_TO_CURSOR || action == InventoryAction.UNKNOWN
+				|| (action == InventoryAction.MOVE_TO_OTHER_INVENTORY && !clickedAccount))
+			tracker.markAllDirty(account); // Items may have gone into or out of any slot
+		else if (clickedAccount)
+			tracker.markDirty(account, rawSlot);
+	}
+
+	/**
+	 * Prevents unauthorized players from dragging items into other players' account chests,
+	 * and tells the contents tracker which slots of the chest may have changed.
+	 */
+	@EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+	public void onAccountItemDrag(InventoryDragEvent e) {
+		Account account = findEditedAccount(e.getInventory(), e.getWhoClicked());
 		if (account == null)
 			return;
-		Player executor = (Player) e.getWhoClicked();
-		if (!account.isTrusted(executor) && Permissions.ACCOUNT_EDIT_OTHER.notOwnedBy(executor)) {
-			executor.sendMessage(Message.NO_PERMISSION_ACCOUNT_EDIT_OTHER.translate(plugin));
+		int accountSize = e.getView().getTopInventory().getSize();
+		if (e.getRawSlots().stream().noneMatch(rawSlot -> rawSlot < accountSize))
+			return;
+		if (isUnauthorized((Player) e.getWhoClicked(), account)) {
 			e.setCancelled(true);
+			return;
 		}
+		for (int rawSlot : e.getRawSlots())
+			if (rawSlot < accountSize)
+				plugin.getContentsTracker().markDirty(account, rawSlot);
+	}
+
+	private Account findEditedAccount(Inventory inventory, HumanEntity editor) {
+		if (!(editor instanceof Player))
+			return null;
+		if (inventory.getType() != InventoryType.CHEST)
+			return null;
+		if (inventory.getLocation() == null)
+			return null;
+		Block block = inventory.getLocation().getBlock();
+		if (block.getType() != Material.CHEST && block.getType() != Material.TRAPPED_CHEST)
+			return null;
+		return plugin.getAccountService().findAtChest(block);
+	}
+
+	private boolean isUnauthorized(Player executor, Account account) {
+		if (account.isTrusted(executor) || Permissions.ACCOUNT_EDIT_OTHER.ownedBy(executor))
+			return false;
+		executor.sendMessage(Message.NO_PERMISSION_ACCOUNT_EDIT_OTHER.translate(plugin));
+		return true;
 	}
 
 	@EventHandler(priority = EventPriority.HIGH)
@@ -1,30 +1,60 @@
 package com.monst.bankingplugin.listener;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.BankPolicies;
+import com.monst.bankingplugin.configuration.values.BankRevenueExpression.ExpressionWrapper;
 import com.monst.bankingplugin.entity.Account;
 import com.monst.bankingplugin.entity.Bank;
 import com.monst.bankingplugin.entity.log.AccountInterest;
-import com.monst.bankingplugin.entity.log.BankIncome;
 import com.monst.bankingplugin.event.control.InterestEvent;
+import com.monst.bankingplugin.event.control.InterestPayoutProgressEvent;
+import com.monst.bankingplugin.event.control.InterestPayoutProgressEvent.Stage;
 import com.monst.bankingplugin.lang.Message;
 import com.monst.bankingplugin.lang.Placeholder;
+import com.monst.bankingplugin.util.DebugCategory;
+import com.monst.bankingplugin.util.Money;
+import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
  * Listens for {@link InterestEvent}s and calculates the incomes and expenses for each
  * {@link OfflinePlayer} on the server.
+ *
+ * The payout runs in stages so that the main thread is never blocked for long:
+ * the state of every bank and account is copied on the main thread, interest is calculated from those copies
+ * off the main thread with the banks divided among the threads of the common fork-join pool, the results are
+ * applied back to the accounts and written to the database in one transaction per bank on the database executor,
+ * and finally the payments and notifications for the banks that were saved are made on the main thread a few
+ * milliseconds per tick at a time. An {@link InterestPayoutProgressEvent} is fired after each stage.
  */
 public class InterestEventListener implements Listener {
 
+	/**
+	 * How long the payment and notification stages may run on the main thread in a single tick.
+	 */
+	private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
 	private final BankingPlugin plugin;
 
+	/**
+	 * The banks with a payout in progress. Only accessed on the main thread.
+	 */
+	private final Set<Bank> banksInPayout = new HashSet<>();
+
 	public InterestEventListener(BankingPlugin plugin) {
 		this.plugin = plugin;
 	}
@@ -34,191 +64,591 @@ public class InterestEventListener implements Listener {
 		if (e.getBanks().isEmpty())
 			return;
 
-		plugin.debug("Interest payout event occurring now at bank(s) %s.", e.getBanks());
-
-		Map<Bank, Set<Account>> banksAndAccounts = e.getBanks().stream()
-				.collect(Collectors.toMap(bank -> bank, Bank::getAccounts));
+		Set<Bank> banks = new HashSet<>(e.getBanks());
+		Set<Bank> busy = banks.stream().filter(banksInPayout::contains).collect(Collectors.toSet());
+		if (!busy.isEmpty()) {
+			plugin.debug(DebugCategory.INTEREST, Level.WARNING, "Skipping bank(s) %s, the previous payout there is still in progress.", busy);
+			banks.removeAll(busy);
+			if (banks.isEmpty())
+				return;
+		}
 
-		Map<Account, BigDecimal> accountInterest = new HashMap<>(); // Interest per account
-		Map<Account, BigDecimal> accountFees = new HashMap<>(); // Low balance fees per account
+		plugin.debug(DebugCategory.INTEREST, Level.INFO, "Interest payout event occurring now at bank(s) %s.", banks);
 
-		List<AccountInterest> interests = new LinkedList<>();
-		List<BankIncome> incomes = new LinkedList<>();
+		banksInPayout.addAll(banks);
+		new Payout(e.getExecutor(), banks).start();
+	}
 
-		banksAndAccounts.forEach((bank, accounts) -> {
-			for (Account account : accounts) {
+	/**
+	 * A single interest payout at a set of banks.
+	 */
+	private class Payout {
+
+		private final CommandSender executor;
+		private final Set<Bank> banks;
+		private final List<BankSnapshot> bankSnapshots = new ArrayList<>();
+		private int numberOfAccounts;
+		// The payments at the banks that have been saved so far, and the number of banks that are still being saved
+		private final Payments payments = new Payments();
+		private int banksSaving;
+		private boolean anyBankSaved;
+
+		private Payout(CommandSender executor, Set<Bank> banks) {
+			this.executor = executor;
+			this.banks = banks;
+		}
 
-				boolean trustedPlayerOnline = account.getTrustedPlayers().stream().anyMatch(OfflinePlayer::isOnline);
-				if (trustedPlayerOnline) {
-					account.setRemainingOfflinePayouts(plugin.config().allowedOfflinePayouts.at(bank));
-				} else {
-					if (account.getRemainingOfflinePayouts() > 0)
-						account.setRemainingOfflinePayouts(account.getRemainingOfflinePayouts() - 1);
-					if (account.getRemainingOfflinePayouts() == 0)
-						continue;
+		/**
+		 * Copies everything the calculation needs on the main thread, then hands off to an async task.
+		 */
+		private void start() {
+			for (Bank bank : banks) {
+				BankSnapshot bankSnapshot = new BankSnapshot(bank);
+				for (Account account : bank.getAccounts())
+					bankSnapshot.accounts.add(new AccountSnapshot(account, bankSnapshot));
+				numberOfAccounts += bankSnapshot.accounts.size();
+				bankSnapshots.add(bankSnapshot);
+			}
+			Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+				Results results;
+				try {
+					results = calculate();
+				} catch (RuntimeException e) {
+					plugin.debug(DebugCategory.INTEREST, Level.WARNING, "Failed to calculate interest payout!");
+					plugin.debug(e);
+					Bukkit.getScheduler().runTask(plugin, this::fail);
+					return;
 				}
+				Bukkit.getScheduler().runTask(plugin, () -> apply(results));
+			});
+		}
+
+		/**
+		 * Calculates interest and fees for every account. Runs off the main thread and touches only snapshots.
+		 */
+		private Results calculate() {
+			return ForkJoinPool.commonPool().invoke(new Calculation(bankSnapshots));
+		}
+
+		/**
+		 * Writes the calculated multiplier stages and offline payout counters back to the accounts on the main thread.
+		 * The accounts are saved with these changes, which are undone at every bank where saving fails.
+		 */
+		private void apply(Results results) {
+			progress(Stage.CALCULATED);
+			inSlices(results.accountResults, AccountResult::apply, () -> {
+				progress(Stage.APPLIED);
+				persist(results);
+			});
+		}
+
+		/**
+		 * Saves the payout at each bank in a transaction of its own on the database executor, so that a failure at
+		 * one bank does not keep the players at the other banks from being paid.
+		 */
+		private void persist(Results results) {
+			banksSaving = results.bankResults.size();
+			for (BankResult bankResult : results.bankResults) {
+				plugin.getInterestPayoutService().savePayout(bankResult.snapshot.bank, bankResult.accounts(),
+								bankResult.interests, bankResult.revenue.toBigDecimal(), bankResult.paidPlayers)
+						.map(savedAccountIDs -> savedAccountIDs == null ? null
+								: new Payments().add(bankResult, account -> savedAccountIDs.contains(account.getID())))
+						.then(bankPayments -> saved(bankResult, bankPayments))
+						.catchError(e -> saved(bankResult, null));
+			}
+		}
 
-				BigDecimal interest = BigDecimal.ZERO;
-				BigDecimal lowBalanceFee = BigDecimal.ZERO;
+		/**
+		 * Collects the payments at a bank once its payout has been saved, or undoes the changes to its accounts if the
+		 * payments are null because it could not be saved. Once every bank is done, the payments are made.
+		 */
+		private void saved(BankResult bankResult, Payments bankPayments) {
+			if (bankPayments == null) {
+				plugin.debug(DebugCategory.INTEREST, Level.WARNING, "Failed to save interest payout at bank %s, no payments made there.",
+						bankResult.snapshot.bank);
+				bankResult.accountResults.forEach(AccountResult::revert);
+			} else {
+				payments.merge(bankPayments);
+				anyBankSaved = true;
+			}
+			if (--banksSaving > 0)
+				return;
+			if (!anyBankSaved) {
+				fail();
+				return;
+			}
+			progress(Stage.PERSISTED);
+			pay();
+		}
 
-				// See if account balance is below the bank minimum
-				if (account.getBalance().compareTo(plugin.config().minimumBalance.at(bank)) < 0) {
+		/**
+		 * Notifies players and makes the payments through the economy on the main thread.
+		 */
+		private void pay() {
+			List<Runnable> tasks = new ArrayList<>();
+			addNotifications(tasks, payments.totalFeesPayableByPlayer, Message.ACCOUNT_LOW_BALANCE_FEES_PAID);
+			addNotifications(tasks, payments.totalInterestReceivableByPlayer, Message.ACCOUNT_INTEREST_EARNED);
+			addNotifications(tasks, payments.totalInterestPayableByPlayer, Message.ACCOUNT_INTEREST_PAID);
+			addNotifications(tasks, payments.totalFeesReceivableByPlayer, Message.ACCOUNT_LOW_BALANCE_FEES_RECEIVED);
+			addNotifications(tasks, payments.totalRevenueReceivableByPlayer, Message.BANK_REVENUE_EARNED);
+			payments.finalPayments.forEach((player, payment) -> tasks.add(() -> {
+				plugin.getPaymentService().transact(player, payment.doubleValue());
+				// TODO: if payment cannot be made, ...
+			}));
+			inSlices(tasks, Runnable::run, () -> {
+				plugin.debug(DebugCategory.INTEREST, Level.INFO, "Interest payout at bank(s) %s complete.", banks);
+				finish();
+				progress(Stage.COMPLETE);
+			});
+		}
 
-					lowBalanceFee = plugin.config().lowBalanceFee.at(bank);
-					if (lowBalanceFee.signum() != 0)
-						accountFees.put(account, lowBalanceFee); // Account must pay fee
+		/**
+		 * Ends a payout in which nothing was paid.
+		 */
+		private void fail() {
+			plugin.debug(DebugCategory.INTEREST, Level.WARNING, "Interest payout at bank(s) %s failed.", banks);
+			finish();
+			progress(Stage.FAILED);
+		}
 
-					if (!plugin.config().payOnLowBalance.at(bank)) { // Bank will not pay interest since balance low
-						interests.add(new AccountInterest(account, bank, interest, lowBalanceFee));
-						continue;
+		/**
+		 * Allows new payouts at the banks of this payout. Called on the main thread.
+		 */
+		private void finish() {
+			banksInPayout.removeAll(banks);
+		}
+
+		private void addNotifications(List<Runnable> tasks, PaymentCounter map, Message message) {
+			map.forEach((player, counter) -> tasks.add(() -> {
+				if (!player.isOnline())
+					return;
+				player.getPlayer().sendMessage(message
+						.with(Placeholder.AMOUNT).as(plugin.getEconomy().format(counter.total.doubleValue()))
+						.and(Placeholder.NUMBER_OF_ACCOUNTS).as(counter.paymentCount)
+						.and(Placeholder.NUMBER_OF_BANKS).as(counter.paymentCount)
+						.translate(plugin));
+			}));
+		}
+
+		private void progress(Stage stage) {
+			Bukkit.getPluginManager().callEvent(new InterestPayoutProgressEvent(executor, banks, stage, numberOfAccounts));
+		}
+
+		/**
+		 * Processes the elements on the main thread, spreading the work over as many ticks as necessary
+		 * to stay within {@link #TICK_BUDGET_NANOS} per tick, and then runs the continuation.
+		 */
+		private <T> void inSlices(List<T> elements, Consumer<T> action, Runnable then) {
+			Iterator<T> iterator = elements.iterator();
+			Runnable slice = new Runnable() {
+				@Override
+				public void run() {
+					long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+					while (iterator.hasNext()) {
+						try {
+							action.accept(iterator.next());
+						} catch (RuntimeException e) {
+							plugin.debug(e);
+						}
+						if (System.nanoTime() > deadline && iterator.hasNext()) {
+							Bukkit.getScheduler().runTask(plugin, this);
+							return;
+						}
 					}
+					then.run();
 				}
+			};
+			slice.run();
+		}
 
-				{
-					BigDecimal balance = account.getBalance();
-					BigDecimal interestRate = plugin.config().interestRate.at(bank);
-					BigDecimal multiplier = BigDecimal.valueOf(account.getInterestMultiplier(plugin.config().interestMultipliers.at(bank)));
-					interest = balance.multiply(interestRate).multiply(multiplier).setScale(2, RoundingMode.HALF_EVEN);
-				}
+	}
 
-				if (interest.signum() != 0)
-					accountInterest.put(account, interest); // Account receives interest
+	/**
+	 * An immutable copy of the state of a bank and its policies at the moment the payout began.
+	 */
+	private class BankSnapshot {
+
+		private final Bank bank;
+		private final OfflinePlayer owner;
+		private final Money minimumBalance;
+		private final Money lowBalanceFee;
+		private final boolean payOnLowBalance;
+		private final int allowedOfflinePayouts;
+		private final int numberOfMultiplierStages;
+		// The interest rate times the multiplier at each stage, split into unscaled value and scale
+		private final long[] interestFactors;
+		private final int[] interestFactorScales;
+		private final int offlineMultiplierDecrement;
+		private final ExpressionWrapper revenueExpression;
+		private final double totalValue;
+		private final double averageValue;
+		private final int numberOfAccounts;
+		private final int numberOfAccountHolders;
+		private final double giniCoefficient;
+		private final List<AccountSnapshot> accounts = new ArrayList<>();
+
+		private BankSnapshot(Bank bank) {
+			this.bank = bank;
+			this.owner = bank.getOwner();
+			BankPolicies policies = plugin.config().policiesAt(bank);
+			// A balance is below the minimum if it is below the minimum rounded up to the next cent
+			this.minimumBalance = Money.of(policies.getMinimumBalance().setScale(2, RoundingMode.CEILING));
+			this.lowBalanceFee = Money.of(policies.getLowBalanceFee());
+			this.payOnLowBalance = policies.paysOnLowBalance();
+			this.allowedOfflinePayouts = policies.getAllowedOfflinePayouts();
+			BigDecimal interestRate = policies.getInterestRate();
+			List<Integer> multipliers = policies.getInterestMultipliers();
+			this.numberOfMultiplierStages = multipliers.size();
+			this.interestFactors = new long[multipliers.size()];
+			this.interestFactorScales = new int[multipliers.size()];
+			for (int stage = 0; stage < multipliers.size(); stage++) {
+				BigDecimal factor = interestRate.multiply(BigDecimal.valueOf(multipliers.get(stage)));
+				interestFactors[stage] = factor.unscaledValue().longValueExact();
+				interestFactorScales[stage] = factor.scale();
+			}
+			this.offlineMultiplierDecrement = policies.getOfflineMultiplierDecrement();
+			this.revenueExpression = plugin.config().bankRevenueExpression.get();
+			this.totalValue = bank.getTotalValue().doubleValue();
+			this.averageValue = bank.getAverageValue().doubleValue();
+			this.numberOfAccounts = bank.getNumberOfAccounts();
+			this.numberOfAccountHolders = bank.getNumberOfAccountHolders();
+			this.giniCoefficient = bank.getGiniCoefficient().doubleValue();
+		}
 
-				if (trustedPlayerOnline)
-					account.incrementMultiplierByOne(plugin.config().interestMultipliers.at(bank).size() - 1);
-				else
-					account.decrementMultiplier(plugin.config().offlineMultiplierDecrement.at(bank));
-				account.updatePreviousBalance();
+		/**
+		 * Evaluates the revenue expression, which is safe to do on any thread.
+		 */
+		private Money calculateRevenue() {
+			return Money.of(revenueExpression.evaluate(
+					totalValue, averageValue, numberOfAccounts, numberOfAccountHolders, giniCoefficient));
+		}
 
-				interests.add(new AccountInterest(account, bank, interest, lowBalanceFee));
+	}
 
+	/**
+	 * An immutable copy of the state of an account at the moment the payout began.
+	 */
+	private static class AccountSnapshot {
+
+		private final Account account;
+		private final BankSnapshot bank;
+		private final OfflinePlayer owner;
+		private final boolean ownedByBankOwner;
+		private final boolean trustedPlayerOnline;
+		private final Money balance;
+		private final int multiplierStage;
+		private final int remainingOfflinePayouts;
+
+		private AccountSnapshot(Account account, BankSnapshot bank) {
+			this.account = account;
+			this.bank = bank;
+			this.owner = account.getOwner();
+			this.ownedByBankOwner = bank.bank.isOwner(owner);
+			this.trustedPlayerOnline = account.getTrustedPlayers().stream().anyMatch(OfflinePlayer::isOnline);
+			this.balance = account.getBalance();
+			this.multiplierStage = account.getInterestMultiplierStage();
+			this.remainingOfflinePayouts = account.getRemainingOfflinePayouts();
+		}
+
+		private AccountResult calculate() {
+			int remainingOfflinePayouts = this.remainingOfflinePayouts;
+			if (trustedPlayerOnline) {
+				remainingOfflinePayouts = bank.allowedOfflinePayouts;
+			} else {
+				if (remainingOfflinePayouts > 0)
+					remainingOfflinePayouts--;
+				if (remainingOfflinePayouts == 0)
+					return AccountResult.skipped(this, remainingOfflinePayouts);
 			}
-		});
 
-		for (Set<Account> accounts : banksAndAccounts.values())
-			plugin.getAccountService().updateAll(accounts); // Update accounts by-bank TODO: altogether?
+			Money lowBalanceFee = Money.ZERO;
 
-		Map<Bank, BigDecimal> revenueTracker = new HashMap<>(); // Revenues by bank
+			// See if account balance is below the bank minimum
+			if (balance.compareTo(bank.minimumBalance) < 0) {
+				lowBalanceFee = bank.lowBalanceFee; // Account must pay fee
+				if (!bank.payOnLowBalance) // Bank will not pay interest since balance low
+					return AccountResult.unpaid(this, remainingOfflinePayouts, lowBalanceFee);
+			}
 
-		banksAndAccounts.forEach((bank, accounts) -> {
+			int maxStage = bank.numberOfMultiplierStages - 1;
+			int stage = Math.max(0, Math.min(multiplierStage, maxStage));
+			Money interest = balance.multiply(bank.interestFactors[stage], bank.interestFactorScales[stage]);
 
-			BigDecimal revenue = plugin.config().bankRevenueExpression.evaluate(
-					bank.getTotalValue().doubleValue(),
-					bank.getAverageValue().doubleValue(),
-					bank.getNumberOfAccounts(),
-					bank.getAccountHolders().size(),
-					bank.getGiniCoefficient().doubleValue()
-			);
+			if (trustedPlayerOnline)
+				stage = Math.min(stage + 1, maxStage);
+			else if (bank.offlineMultiplierDecrement > 0)
+				stage = Math.max(0, stage - bank.offlineMultiplierDecrement);
+			else if (bank.offlineMultiplierDecrement < 0)
+				stage = 0;
 
-			if (revenue.signum() != 0)
-				revenueTracker.put(bank, revenue); // Bank will receive revenue
+			return AccountResult.paid(this, remainingOfflinePayouts, stage, interest, lowBalanceFee);
+		}
 
-			BigDecimal interest = accounts.stream()
-					.filter(accountInterest::containsKey)
-					.map(accountInterest::get)
-					.reduce(BigDecimal.ZERO, BigDecimal::add);
-			BigDecimal lowBalanceFees = accounts.stream()
-					.filter(accountFees::containsKey)
-					.map(accountFees::get)
-					.reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
 
-			incomes.add(new BankIncome(bank, revenue, interest, lowBalanceFees));
+	/**
+	 * Calculates the payout at a list of banks, splitting the list in half until each part is small enough to
+	 * calculate directly. Each part collects its own {@link Results}, which are merged in the order of the banks,
+	 * so the results are the same as if every bank were calculated one after another.
+	 * Since {@link Money} is exact to the cent, the totals do not depend on the order in which they are added.
+	 */
+	private static class Calculation extends RecursiveTask<Results> {
 
-		});
+		/**
+		 * The number of accounts below which a part is calculated directly rather than split further.
+		 */
+		private static final int SEQUENTIAL_THRESHOLD = 1000;
 
-		plugin.getAccountInterestService().saveAll(interests);
-		plugin.getBankIncomeService().saveAll(incomes);
+		private final List<BankSnapshot> banks;
+
+		private Calculation(List<BankSnapshot> banks) {
+			this.banks = banks;
+		}
+
+		@Override
+		protected Results compute() {
+			if (banks.size() == 1 || countAccounts() < SEQUENTIAL_THRESHOLD) {
+				Results results = new Results();
+				for (BankSnapshot bank : banks)
+					results.add(bank);
+				return results;
+			}
+			int middle = banks.size() / 2;
+			Calculation first = new Calculation(banks.subList(0, middle));
+			Calculation second = new Calculation(banks.subList(middle, banks.size()));
+			first.fork();
+			Results secondResults = second.compute();
+			return first.join().merge(secondResults);
+		}
+
+		private int countAccounts() {
+			int count = 0;
+			for (BankSnapshot bank : banks)
+				count += bank.accounts.size();
+			return count;
+		}
+
+	}
+
+	/**
+	 * The outcome of the payout for a single account.
+	 */
+	private static class AccountResult {
+
+		private final AccountSnapshot snapshot;
+		private final int remainingOfflinePayouts;
+		private final Integer multiplierStage; // Null if the account was not paid and the stage does not change
+		private final Money interest;
+		private final Money lowBalanceFee;
+		private final boolean logged;
+		// What apply() actually changed, so that it can be undone
+		private int appliedOfflinePayoutsChange;
+		private int appliedStageChange;
+		private Money replacedPreviousBalance;
+
+		private AccountResult(AccountSnapshot snapshot, int remainingOfflinePayouts, Integer multiplierStage,
+							  Money interest, Money lowBalanceFee, boolean logged) {
+			this.snapshot = snapshot;
+			this.remainingOfflinePayouts = remainingOfflinePayouts;
+			this.multiplierStage = multiplierStage;
+			this.interest = interest;
+			this.lowBalanceFee = lowBalanceFee;
+			this.logged = logged;
+		}
+
+		private static AccountResult skipped(AccountSnapshot snapshot, int remainingOfflinePayouts) {
+			return new AccountResult(snapshot, remainingOfflinePayouts, null, Money.ZERO, Money.ZERO, false);
+		}
+
+		private static AccountResult unpaid(AccountSnapshot snapshot, int remainingOfflinePayouts, Money lowBalanceFee) {
+			return new AccountResult(snapshot, remainingOfflinePayouts, null, Money.ZERO, lowBalanceFee, true);
+		}
+
+		private static AccountResult paid(AccountSnapshot snapshot, int remainingOfflinePayouts, int multiplierStage,
+										  Money interest, Money lowBalanceFee) {
+			return new AccountResult(snapshot, remainingOfflinePayouts, multiplierStage, interest, lowBalanceFee, true);
+		}
+
+		/**
+		 * Applies the changes calculated from the snapshot to the account as it is now, so that changes made to the
+		 * account while the payout was being calculated are kept.
+		 */
+		private void apply() {
+			Account account = snapshot.account;
+			int offlinePayouts = account.getRemainingOfflinePayouts();
+			int offlinePayoutsChange = remainingOfflinePayouts - snapshot.remainingOfflinePayouts;
+			account.setRemainingOfflinePayouts(Math.max(0, offlinePayouts + offlinePayoutsChange));
+			appliedOfflinePayoutsChange = account.getRemainingOfflinePayouts() - offlinePayouts;
+			if (multiplierStage == null)
+				return;
+			int stage = account.getInterestMultiplierStage();
+			int stageChange = multiplierStage - snapshot.multiplierStage;
+			int maxStage = snapshot.bank.numberOfMultiplierStages - 1;
+			account.setMultiplierStage(Math.min(stage + stageChange, maxStage));
+			appliedStageChange = account.getInterestMultiplierStage() - stage;
+			replacedPreviousBalance = account.getPreviousBalance();
+			account.setPreviousBalance(snapshot.balance); // The balance the interest was paid on
+		}
+
+		/**
+		 * Undoes {@link #apply()} after the payout could not be saved, keeping changes made to the account since.
+		 */
+		private void revert() {
+			Account account = snapshot.account;
+			account.setRemainingOfflinePayouts(Math.max(0, account.getRemainingOfflinePayouts() - appliedOfflinePayoutsChange));
+			if (replacedPreviousBalance == null) // The stage was not changed
+				return;
+			account.setMultiplierStage(account.getInterestMultiplierStage() - appliedStageChange);
+			account.setPreviousBalance(replacedPreviousBalance);
+		}
+
+	}
+
+	/**
+	 * The outcome of the payout at a single bank, calculated off the main thread.
+	 */
+	private static class BankResult {
+
+		private final BankSnapshot snapshot;
+		private final List<AccountResult> accountResults = new ArrayList<>();
+		private final List<AccountInterest> interests = new ArrayList<>();
+		private final Money revenue;
+		private final Set<OfflinePlayer> paidPlayers;
+
+		private BankResult(BankSnapshot snapshot) {
+			this.snapshot = snapshot;
+			// TODO: Change payment recipient to also include account co-owners
+			for (AccountSnapshot accountSnapshot : snapshot.accounts) {
+				AccountResult result = accountSnapshot.calculate();
+				accountResults.add(result);
+				if (result.logged)
+					interests.add(new AccountInterest(accountSnapshot.account, snapshot.bank,
+							result.interest.toBigDecimal(), result.lowBalanceFee.toBigDecimal()));
+			}
+			this.revenue = snapshot.calculateRevenue();
+			this.paidPlayers = new HashSet<>(new Payments().add(this, account -> true).finalPayments.keySet());
+		}
+
+		private List<Account> accounts() {
+			return accountResults.stream().map(result -> result.snapshot.account).collect(Collectors.toList());
+		}
+
+	}
+
+	/**
+	 * Everything calculated off the main thread that the later stages need.
+	 */
+	private static class Results {
+
+		private final List<BankResult> bankResults = new ArrayList<>();
+		private final List<AccountResult> accountResults = new ArrayList<>();
+
+		/**
+		 * Calculates the payout of every account at a bank.
+		 */
+		private void add(BankSnapshot bankSnapshot) {
+			BankResult bankResult = new BankResult(bankSnapshot);
+			bankResults.add(bankResult);
+			accountResults.addAll(bankResult.accountResults);
+		}
+
+		/**
+		 * Adds the results of the banks after these ones to these results.
+		 */
+		private Results merge(Results later) {
+			bankResults.addAll(later.bankResults);
+			accountResults.addAll(later.accountResults);
+			return this;
+		}
+
+	}
+
+	/**
+	 * The payments and notifications owed to each player.
+	 */
+	private static class Payments {
 
 		// Total account interest + number of accounts, grouped by player
-		PaymentCounter totalInterestReceivableByPlayer = new PaymentCounter();
+		private final PaymentCounter totalInterestReceivableByPlayer = new PaymentCounter();
 		// Total account interest to pay + number of accounts, grouped by player
-		PaymentCounter totalInterestPayableByPlayer = new PaymentCounter();
+		private final PaymentCounter totalInterestPayableByPlayer = new PaymentCounter();
 		// Total account fees + number of accounts, grouped by player
-		PaymentCounter totalFeesPayableByPlayer = new PaymentCounter();
+		private final PaymentCounter totalFeesPayableByPlayer = new PaymentCounter();
 		// Total account fees to receive + number of accounts, grouped by player
-		PaymentCounter totalFeesReceivableByPlayer = new PaymentCounter();
+		private final PaymentCounter totalFeesReceivableByPlayer = new PaymentCounter();
 		// Total bank revenue + number of banks, grouped by player
-		PaymentCounter totalRevenueReceivableByPlayer = new PaymentCounter();
+		private final PaymentCounter totalRevenueReceivableByPlayer = new PaymentCounter();
 		// Sum of all profits/losses, grouped by player
-		Payroll finalPayments = new Payroll();
+		private final Payroll finalPayments = new Payroll();
+
+		/**
+		 * Adds the payments for the saved accounts at a bank, and the revenue of the bank.
+		 */
+		private Payments add(BankResult bankResult, Predicate<Account> saved) {
+			OfflinePlayer bankOwner = bankResult.snapshot.owner;
+			for (AccountResult result : bankResult.accountResults) {
+				AccountSnapshot snapshot = result.snapshot;
+				if (snapshot.ownedByBankOwner || !saved.test(snapshot.account))
+					continue;
+				if (result.interest.signum() != 0) {
+					finalPayments.add(snapshot.owner, result.interest);
+					finalPayments.subtract(bankOwner, result.interest);
+					totalInterestReceivableByPlayer.add(snapshot.owner, result.interest);
+					totalInterestPayableByPlayer.add(bankOwner, result.interest);
+				}
+				if (result.lowBalanceFee.signum() != 0) {
+					finalPayments.subtract(snapshot.owner, result.lowBalanceFee);
+					finalPayments.add(bankOwner, result.lowBalanceFee);
+					totalFeesPayableByPlayer.add(snapshot.owner, result.lowBalanceFee);
+					totalFeesReceivableByPlayer.add(bankOwner, result.lowBalanceFee);
+				}
+			}
+			if (bankResult.revenue.signum() != 0) { // Admin banks are ignored
+				finalPayments.add(bankOwner, bankResult.revenue);
+				totalRevenueReceivableByPlayer.add(bankOwner, bankResult.revenue);
+			}
+			return this;
+		}
 
-		// TODO: Change payment recipient to also include account co-owners
-		accountInterest.forEach((account, interest) -> {
-			if (account.getBank().isOwner(account.getOwner()))
-				return;
-			finalPayments.add(account.getOwner(), interest);
-			finalPayments.subtract(account.getBank().getOwner(), interest);
-			totalInterestReceivableByPlayer.add(account.getOwner(), interest);
-			totalInterestPayableByPlayer.add(account.getBank().getOwner(), interest);
-		});
-
-		accountFees.forEach((account, fee) -> {
-			if (account.getBank().isOwner(account.getOwner()))
-				return;
-			finalPayments.subtract(account.getOwner(), fee);
-			finalPayments.add(account.getBank().getOwner(), fee);
-			totalFeesPayableByPlayer.add(account.getOwner(), fee);
-			totalFeesReceivableByPlayer.add(account.getBank().getOwner(), fee);
-		});
-
-		revenueTracker.forEach((bank, revenue) -> {
-			finalPayments.add(bank.getOwner(), revenue);
-			totalRevenueReceivableByPlayer.add(bank.getOwner(), revenue);
-		}); // Admin banks are ignored
-
-		notifyAll(totalFeesPayableByPlayer, Message.ACCOUNT_LOW_BALANCE_FEES_PAID);
-		notifyAll(totalInterestReceivableByPlayer, Message.ACCOUNT_INTEREST_EARNED);
-		notifyAll(totalInterestPayableByPlayer, Message.ACCOUNT_INTEREST_PAID);
-		notifyAll(totalFeesReceivableByPlayer, Message.ACCOUNT_LOW_BALANCE_FEES_RECEIVED);
-		notifyAll(totalRevenueReceivableByPlayer, Message.BANK_REVENUE_EARNED);
-
-		// Log last seen time for all players receiving a message
-		plugin.getLastSeenService().updateLastSeenTime(finalPayments.keySet());
-
-		finalPayments.forEach((player, payment) -> {
-			plugin.getPaymentService().transact(player, payment.doubleValue());
-			// TODO: if payment cannot be made, ...
-		});
-	}
+		private void merge(Payments other) {
+			totalInterestReceivableByPlayer.merge(other.totalInterestReceivableByPlayer);
+			totalInterestPayableByPlayer.merge(other.totalInterestPayableByPlayer);
+			totalFeesPayableByPlayer.merge(other.totalFeesPayableByPlayer);
+			totalFeesReceivableByPlayer.merge(other.totalFeesReceivableByPlayer);
+			totalRevenueReceivableByPlayer.merge(other.totalRevenueReceivableByPlayer);
+			other.finalPayments.forEach(finalPayments::add);
+		}
 
-	private void notifyAll(PaymentCounter map, Message message) {
-		map.forEach((player, counter) -> {
-					if (!player.isOnline())
-						return;
-					player.getPlayer().sendMessage(message
-							.with(Placeholder.AMOUNT).as(plugin.getEconomy().format(counter.total.doubleValue()))
-							.and(Placeholder.NUMBER_OF_ACCOUNTS).as(counter.paymentCount)
-							.and(Placeholder.NUMBER_OF_BANKS).as(counter.paymentCount)
-							.translate(plugin));
-				}
-		);
 	}
 
-	private static class Payroll extends HashMap<OfflinePlayer, BigDecimal> {
-		private void add(OfflinePlayer player, BigDecimal amount) {
+	private static class Payroll extends HashMap<OfflinePlayer, Money> {
+		private void add(OfflinePlayer player, Money amount) {
 			if (player == null)
 				return;
-			merge(player, amount, BigDecimal::add);
+			merge(player, amount, Money::add);
 		}
-		private void subtract(OfflinePlayer player, BigDecimal amount) {
+		private void subtract(OfflinePlayer player, Money amount) {
 			if (player == null)
 				return;
-			merge(player, amount, BigDecimal::subtract);
+			merge(player, amount.negate(), Money::add);
 		}
 	}
 
 	private static class PaymentCounter extends HashMap<OfflinePlayer, Counter> {
-		private void add(OfflinePlayer key, BigDecimal amount) {
+		private void add(OfflinePlayer key, Money amount) {
 			if (key == null)
 				return;
 			merge(key, new Counter(amount), Counter::add);
 		}
+		private void merge(PaymentCounter other) {
+			other.forEach((key, counter) -> merge(key, counter, Counter::add));
+		}
 	}
 
 	private static class Counter {
-		private BigDecimal total;
+		private Money total;
 		private int paymentCount;
-		private Counter(BigDecimal value) {
+		private Counter(Money value) {
 			this.total = value;
 			this.paymentCount = 1;
 		}
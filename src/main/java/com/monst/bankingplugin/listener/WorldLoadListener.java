@@ -0,0 +1,26 @@
+package com.monst.bankingplugin.listener;
+
+import com.monst.bankingplugin.BankingPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+
+/**
+ * Indexes the banks and accounts in worlds that are loaded after the plugin has been enabled, such as by a world manager plugin.
+ */
+public class WorldLoadListener implements Listener {
+
+	private final BankingPlugin plugin;
+
+	public WorldLoadListener(BankingPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldLoad(WorldLoadEvent e) {
+		plugin.getBankService().loadWorld(e.getWorld()); // Before the accounts, which look up their banks
+		plugin.getAccountService().loadWorld(e.getWorld());
+	}
+
+}
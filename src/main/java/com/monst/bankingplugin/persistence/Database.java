@@ -1,22 +1,42 @@
 package com.monst.bankingplugin.persistence;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.configuration.values.ExternalDatabase;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import com.monst.bankingplugin.persistence.service.*;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.Bukkit;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public class Database {
 
+    /**
+     * Thrown when the external database is already used by another server.
+     */
+    public static class DatabaseInUseException extends Exception {
+        private DatabaseInUseException(String message) {
+            super(message);
+        }
+    }
+
+    private static final long LOCK_REFRESH_TICKS = 5 * 60 * 20L;
+
     private final BankingPlugin plugin;
     private HikariDataSource dataSource;
+    private ServerLock serverLock;
+    private int lockTaskID = -1;
+    private final DatabaseExecutor executor;
     
     private final BankService bankService;
     private final AccountService accountService;
@@ -24,36 +44,110 @@ public class Database {
     private final AccountTransactionService accountTransactionService;
     private final BankIncomeService bankIncomeService;
     private final LastSeenService lastSeenService;
+    private final InterestPayoutService interestPayoutService;
+    private int flushTaskID = -1;
 
-    public Database(BankingPlugin plugin) {
+    public Database(BankingPlugin plugin) throws DatabaseInUseException {
         this.plugin = plugin;
         this.dataSource = createDataSource();
+        lock();
+        this.executor = new DatabaseExecutor(plugin);
+        executor.start(dataSource.getMaximumPoolSize());
         ConnectionSupplier connectionSupplier = this::getConnection;
-        this.bankService = new BankService(plugin, connectionSupplier);
-        this.accountService = new AccountService(plugin, connectionSupplier);
-        this.accountInterestService = new AccountInterestService(plugin, connectionSupplier);
-        this.accountTransactionService = new AccountTransactionService(plugin, connectionSupplier);
-        this.bankIncomeService = new BankIncomeService(plugin, connectionSupplier);
-        this.lastSeenService = new LastSeenService(plugin, connectionSupplier);
+        this.bankService = new BankService(plugin, connectionSupplier, executor.forCategory("banks"));
+        this.accountService = new AccountService(plugin, connectionSupplier, executor.forCategory("accounts"));
+        this.accountInterestService = new AccountInterestService(plugin, connectionSupplier,
+                executor.forCategory("account interest"));
+        this.accountTransactionService = new AccountTransactionService(plugin, connectionSupplier,
+                executor.forCategory("account transactions"));
+        this.bankIncomeService = new BankIncomeService(plugin, connectionSupplier, executor.forCategory("bank income"));
+        this.lastSeenService = new LastSeenService(plugin, connectionSupplier, executor.forCategory("last seen"));
+        this.interestPayoutService = new InterestPayoutService(plugin, connectionSupplier,
+                executor.forCategory("interest payouts"),
+                bankService, accountService, accountInterestService, bankIncomeService, lastSeenService);
         
         accountService.setBankService(bankService);
         bankService.setAccountService(accountService);
 
         createTables();
+        accountTransactionService.recoverJournal();
         cleanupLogs();
+        bankService.loadRegionIndex();
+        accountService.loadLocationIndex();
+        scheduleFlush();
     }
     
     private HikariDataSource createDataSource() {
-        try {
-            Class.forName("org.hsqldb.jdbc.JDBCDriver");
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("Failed to find HSQLDB JDBC Driver!", e);
-        }
+        ExternalDatabase external = plugin.config().externalDatabase;
+        String url = external.url.get().orElse(plugin.config().databaseFile.getJdbcUrl());
+        Dialect dialect = Dialect.forUrl(url);
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(plugin.config().databaseFile.getJdbcUrl() + ";hsqldb.sqllog=3");
-        config.setConnectionTestQuery("CALL NOW()");
+        config.setJdbcUrl(url);
+        config.setDriverClassName(findDriver(external.driver.get().map(Collections::singletonList)
+                .orElse(dialect.getDriverClassNames())));
+        if (external.isEnabled()) {
+            external.username.get().ifPresent(config::setUsername);
+            external.password.get().ifPresent(config::setPassword);
+            config.setMaximumPoolSize(external.maximumPoolSize.get());
+            config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(external.connectionTimeout.get()));
+        }
+        dialect.getDataSourceProperties().forEach(config::addDataSourceProperty);
+        if (dialect.getConnectionTestQuery() != null)
+            config.setConnectionTestQuery(dialect.getConnectionTestQuery());
+        config.setPoolName("BankingPlugin");
+        Dialect.use(dialect);
+        QueryLog.start(plugin);
         return new HikariDataSource(config);
     }
+
+    /**
+     * Locks the external database for this server, so that no other server uses it at the same time.
+     * See {@link ServerLock} for why the database cannot be shared.
+     * @throws DatabaseInUseException if another server holds the lock, after closing the connection pool
+     */
+    private void lock() throws DatabaseInUseException {
+        ExternalDatabase external = plugin.config().externalDatabase;
+        if (!external.isEnabled())
+            return;
+        Properties properties = new Properties();
+        external.username.get().ifPresent(username -> properties.setProperty("user", username));
+        external.password.get().ifPresent(password -> properties.setProperty("password", password));
+        serverLock = new ServerLock(plugin, external.url.get().get(), properties);
+        try {
+            if (!serverLock.acquire()) {
+                serverLock = null;
+                dataSource.close();
+                dataSource = null;
+                throw new DatabaseInUseException("The external database is already in use by another server! "
+                        + "Only one server may use it at a time, or they will overwrite each other's changes.");
+            }
+        } catch (SQLException e) {
+            // The pool cannot connect either, so nothing will be written until the connection is back
+            plugin.log(Level.SEVERE, "Failed to lock the external database for this server!");
+            plugin.debug(e);
+        }
+        lockTaskID = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, serverLock::refresh,
+                LOCK_REFRESH_TICKS, LOCK_REFRESH_TICKS).getTaskId();
+    }
+
+    private void unlock() {
+        if (lockTaskID != -1)
+            Bukkit.getScheduler().cancelTask(lockTaskID);
+        lockTaskID = -1;
+        if (serverLock != null)
+            serverLock.release();
+        serverLock = null;
+    }
+
+    private static String findDriver(List<String> classNames) {
+        for (String className : classNames) {
+            try {
+                Class.forName(className);
+                return className;
+            } catch (ClassNotFoundException ignored) {}
+        }
+        throw new RuntimeException("Failed to find JDBC driver! Tried " + String.join(", ", classNames));
+    }
     
     private Connection getConnection() throws SQLException {
         if (dataSource == null)
@@ -68,6 +162,12 @@ public class Database {
         accountTransactionService.createTables();
         bankIncomeService.createTables();
         lastSeenService.createTables();
+        try (Connection con = getConnection()) {
+            SchemaMigrations.migrate(plugin, con);
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "Failed to connect to the database to upgrade the schema!");
+            plugin.debug(e);
+        }
     }
 
     private void cleanupLogs() {
@@ -81,25 +181,69 @@ public class Database {
         bankIncomeService.deleteBefore(oldest);
     }
     
-    public void reload() {
+    /**
+     * Schedules changed banks and accounts to be written to the database at the interval set in the config,
+     * replacing any previous schedule.
+     */
+    public void scheduleFlush() {
+        if (flushTaskID != -1)
+            Bukkit.getScheduler().cancelTask(flushTaskID);
+        flushTaskID = -1;
+        Optional<Integer> seconds = plugin.config().databaseFlushInterval.get();
+        if (!seconds.isPresent() || seconds.get() <= 0) {
+            flush(); // Changes are now written immediately
+            return;
+        }
+        long ticks = seconds.get() * 20L;
+        flushTaskID = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, ticks, ticks).getTaskId();
+    }
+    
+    /**
+     * Writes all changed banks and accounts and all new account transactions to the database.
+     */
+    public void flush() {
+        bankService.flush();
+        accountService.flush();
+        accountTransactionService.flush();
+    }
+    
+    /**
+     * Closes the database and opens it again with the current settings.
+     * @throws DatabaseInUseException if the external database is now used by another server
+     */
+    public void reload() throws DatabaseInUseException {
         shutdown();
         dataSource = createDataSource();
+        lock();
+        executor.start(dataSource.getMaximumPoolSize());
+        bankService.invalidateAll();
+        accountService.invalidateAll();
         createTables();
+        accountTransactionService.recoverJournal();
         cleanupLogs();
+        bankService.loadRegionIndex();
+        accountService.loadLocationIndex();
+        scheduleFlush();
     }
 
     public void shutdown() {
         if (dataSource == null)
             return;
-        try (Connection con = getConnection();
-             Statement stmt = con.createStatement()) {
-            stmt.execute("SHUTDOWN");
+        if (flushTaskID != -1)
+            Bukkit.getScheduler().cancelTask(flushTaskID);
+        flushTaskID = -1;
+        executor.stop(); // Let pending reads finish before the connections are closed
+        flush();
+        QueryLog.logStatistics();
+        try (Connection con = getConnection()) {
+            Dialect.current().shutdown(con);
         } catch (SQLException e) {
             plugin.log(Level.SEVERE, "Failed to shut down database.");
             plugin.debug(e);
         }
         dataSource.close();
         dataSource = null;
+        unlock(); // Only once every change is written
     }
     
     public AccountService getAccountService() {
@@ -126,4 +270,8 @@ public class Database {
         return bankIncomeService;
     }
     
+    public InterestPayoutService getInterestPayoutService() {
+        return interestPayoutService;
+    }
+    
 }
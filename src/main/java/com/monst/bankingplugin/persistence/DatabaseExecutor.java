@@ -0,0 +1,118 @@
+package com.monst.bankingplugin.persistence;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.util.DebugCategory;
+import org.bukkit.Bukkit;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Runs asynchronous database reads on a dedicated pool of worker threads, rather than on the shared Bukkit scheduler.
+ * There is one worker per connection in the connection pool, since any more would only wait for a connection.
+ * Tasks wait in a bounded queue. When the queue is full, a task submitted from a background thread is run on that
+ * thread, which slows the submitter down to the pace of the database. A task submitted from the main thread is
+ * rejected instead, since the server must never wait for the database; its promise fails.
+ * The latency of every task is recorded per category, together with the time tasks spend waiting in the queue.
+ */
+public class DatabaseExecutor {
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final BankingPlugin plugin;
+    private final LatencyHistogram queueTimes = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> runTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger rejections = new AtomicInteger();
+    private volatile ThreadPoolExecutor pool;
+
+    public DatabaseExecutor(BankingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts the worker threads. This must be called before any tasks are submitted.
+     * @param threads the number of workers, which should be the maximum size of the connection pool
+     */
+    public void start(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "BankingPlugin Database Worker #" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory, this::onQueueFull);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Started %d database worker threads.", threads);
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued tasks to finish, so that the connection pool can be closed.
+     * The latency statistics are written to the debug log.
+     */
+    public void stop() {
+        ThreadPoolExecutor pool = this.pool;
+        if (pool == null)
+            return;
+        this.pool = null;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                plugin.log(Level.WARNING, "Database tasks did not finish in time and were abandoned.");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logStatistics();
+    }
+
+    /**
+     * Gets an executor that submits tasks to this one, and records their latency under the given category.
+     */
+    public Executor forCategory(String category) {
+        LatencyHistogram histogram = runTimes.computeIfAbsent(category, c -> new LatencyHistogram());
+        return task -> execute(task, histogram);
+    }
+
+    private void execute(Runnable task, LatencyHistogram histogram) {
+        ThreadPoolExecutor pool = this.pool;
+        if (pool == null)
+            throw new RejectedExecutionException("The database is not running");
+        long submitted = System.nanoTime();
+        pool.execute(() -> {
+            long started = System.nanoTime();
+            queueTimes.record(started - submitted);
+            try {
+                task.run();
+            } finally {
+                histogram.record(System.nanoTime() - started);
+            }
+        });
+    }
+
+    private void onQueueFull(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown())
+            throw new RejectedExecutionException("The database is shutting down");
+        if (Bukkit.isPrimaryThread()) {
+            if (rejections.getAndIncrement() % 100 == 0)
+                plugin.log(Level.WARNING, "The database cannot keep up; " + rejections.get() + " reads rejected so far.");
+            throw new RejectedExecutionException("The database queue is full");
+        }
+        task.run();
+    }
+
+    private void logStatistics() {
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Database queue wait: %s", queueTimes);
+        runTimes.forEach((category, histogram) -> {
+            if (histogram.count() > 0)
+                plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Database reads of %s: %s", category, histogram);
+        });
+        if (rejections.get() > 0)
+            plugin.debug(DebugCategory.PERSISTENCE, Level.WARNING, "Database reads rejected: %s", rejections.get());
+    }
+
+}
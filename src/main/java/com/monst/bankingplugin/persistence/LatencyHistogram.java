@@ -0,0 +1,67 @@
+package com.monst.bankingplugin.persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with power-of-two microsecond buckets, from under 1 µs to over a minute.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within a factor of 2,
+ * which is plenty to tell a healthy database from a struggling one.
+ */
+class LatencyHistogram {
+
+    private static final int BUCKETS = 28; // The last bucket holds everything from 2^26 µs (about 67 seconds) up
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder sumNanos = new LongAdder();
+
+    void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        total.incrementAndGet();
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        sumNanos.add(Math.max(0, nanos));
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    /**
+     * @param percentile a number between 0 and 100
+     * @return the upper bound of the bucket containing the given percentile, in milliseconds
+     */
+    double percentileMillis(double percentile) {
+        long count = total.get();
+        if (count == 0)
+            return 0;
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= Math.max(1, rank))
+                return (1L << bucket) / 1000.0;
+        }
+        return maxMillis();
+    }
+
+    double totalMillis() {
+        return sumNanos.sum() / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50<=%.3fms p95<=%.3fms p99<=%.3fms max=%.3fms",
+                count(), percentileMillis(50), percentileMillis(95), percentileMillis(99), maxMillis());
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.monst.bankingplugin.persistence;
 
+import com.monst.bankingplugin.persistence.dialect.Dialect;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -32,14 +34,14 @@ public class ParametrizedQuery extends Query {
     }
     
     @Override
-    public boolean execute(Connection con) throws SQLException {
+    boolean run(Connection con) throws SQLException {
         try (PreparedStatement stmt = prepare(con)) {
             return stmt.execute();
         }
     }
     
     @Override
-    public int executeUpdate(Connection con) throws SQLException {
+    int update(Connection con) throws SQLException {
         try (PreparedStatement stmt = prepare(con)) {
             return stmt.executeUpdate();
         }
@@ -47,16 +49,20 @@ public class ParametrizedQuery extends Query {
     
     @Override
     public ResultSet executeQuery(Connection con) throws SQLException {
-        try (PreparedStatement stmt = prepare(con)) {
-            return stmt.executeQuery();
-        }
+        return openResultSet(prepare(con));
     }
     
     private PreparedStatement prepare(Connection con) throws SQLException {
         PreparedStatement stmt = con.prepareStatement(sql);
-        int i = 0;
-        for (Object o : parameters) {
-            stmt.setObject(++i, o);
+        try {
+            Dialect dialect = Dialect.current();
+            int i = 0;
+            for (Object o : parameters) {
+                stmt.setObject(++i, dialect.toDatabase(con, o));
+            }
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
         }
         return stmt;
     }
@@ -1,5 +1,7 @@
 package com.monst.bankingplugin.persistence;
 
+import com.monst.bankingplugin.persistence.dialect.Dialect;
+
 import java.sql.*;
 import java.util.*;
 import java.util.function.Function;
@@ -7,6 +9,14 @@ import java.util.stream.Collectors;
 
 public class Query {
     
+    private static final int[] IN_LIST_BUCKETS = { 8, 32, 128 };
+    
+    /**
+     * The most parameters to put in a single {@code IN} list. Databases limit the number of parameters in a statement,
+     * so longer lists are split over several statements with {@link #partition(Collection)}.
+     */
+    public static final int MAX_IN_LIST_SIZE = 1024;
+    
     final String sql;
     
     Query(String sql) {
@@ -18,91 +28,128 @@ public class Query {
     }
     
     public boolean execute(Connection con) throws SQLException {
-        try (Statement stmt = con.createStatement()) {
-            return stmt.execute(sql);
-        }
+        long start = System.nanoTime();
+        boolean result = run(con);
+        QueryLog.record(sql, System.nanoTime() - start, 0);
+        return result;
     }
     
     public int executeUpdate(Connection con) throws SQLException {
+        long start = System.nanoTime();
+        int rows = update(con);
+        QueryLog.record(sql, System.nanoTime() - start, rows);
+        return rows;
+    }
+    
+    /**
+     * Runs this query and returns the open result set, which closes its statement when it is closed.
+     * Unlike the other methods, this is not recorded in the {@link QueryLog}, since the rows are read by the caller.
+     */
+    public ResultSet executeQuery(Connection con) throws SQLException {
+        return openResultSet(con.prepareStatement(sql));
+    }
+    
+    static ResultSet openResultSet(PreparedStatement stmt) throws SQLException {
+        try {
+            stmt.closeOnCompletion();
+            return stmt.executeQuery();
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+    
+    boolean run(Connection con) throws SQLException {
         try (Statement stmt = con.createStatement()) {
-            return stmt.executeUpdate(sql);
+            return stmt.execute(sql);
         }
     }
     
-    public ResultSet executeQuery(Connection con) throws SQLException {
+    int update(Connection con) throws SQLException {
         try (Statement stmt = con.createStatement()) {
-            return stmt.executeQuery(sql);
+            return stmt.executeUpdate(sql);
         }
     }
     
     public <T> T asOne(Connection con, Reconstructor<T> reconstructor) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            if (!resultSet.next())
-                return null;
-            return reconstructor.reconstruct(resultSet, con);
-        }
+        return first(reconstruct(con, new ArrayList<>(1), reconstructor, 1));
     }
     
     public <T> T asOne(Connection con, Class<T> clazz) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            if (!resultSet.next())
-                return null;
-            return resultSet.getObject(1, clazz);
-        }
+        return first(read(con, new ArrayList<>(1), rs -> Dialect.current().read(rs, 1, clazz), 1));
     }
     
     public <T> List<T> asList(Connection con, Reconstructor<T> reconstructor) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            List<T> list = new ArrayList<>();
-            while (resultSet.next())
-                list.add(reconstructor.reconstruct(resultSet, con));
-            return list;
-        }
+        return reconstruct(con, new ArrayList<>(), reconstructor, Integer.MAX_VALUE);
     }
     
     public <T> List<T> asList(Connection con, Class<T> clazz) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            List<T> list = new ArrayList<>();
-            while (resultSet.next())
-                list.add(resultSet.getObject(1, clazz));
-            return list;
-        }
+        return read(con, new ArrayList<>(), rs -> Dialect.current().read(rs, 1, clazz), Integer.MAX_VALUE);
     }
     
     public <T, R> List<R> asList(Connection con, Class<T> clazz, Function<T, R> mapper) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            List<R> list = new ArrayList<>();
-            while (resultSet.next())
-                list.add(mapper.apply(resultSet.getObject(1, clazz)));
-            return list;
-        }
+        return read(con, new ArrayList<>(),
+                rs -> mapper.apply(Dialect.current().read(rs, 1, clazz)), Integer.MAX_VALUE);
     }
     
     public <T> Set<T> asSet(Connection con, Reconstructor<T> reconstructor) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            Set<T> set = new HashSet<>();
-            while (resultSet.next())
-                set.add(reconstructor.reconstruct(resultSet, con));
-            return set;
-        }
+        return reconstruct(con, new HashSet<>(), reconstructor, Integer.MAX_VALUE);
     }
     
     public <T> Set<T> asSet(Connection con, Class<T> clazz) throws SQLException {
-        try (ResultSet resultSet = executeQuery(con)) {
-            Set<T> set = new HashSet<>();
-            while (resultSet.next())
-                set.add(resultSet.getObject(1, clazz));
-            return set;
-        }
+        return read(con, new HashSet<>(), rs -> Dialect.current().read(rs, 1, clazz), Integer.MAX_VALUE);
     }
     
     public <T, R> Set<R> asSet(Connection con, Class<T> clazz, Function<T, R> mapper) throws SQLException {
+        return read(con, new HashSet<>(),
+                rs -> mapper.apply(Dialect.current().read(rs, 1, clazz)), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Runs this query and reads up to {@code limit} rows into the collection, recording the time taken and the
+     * number of rows read in the {@link QueryLog}. Only running the query and stepping through the result set are
+     * timed; turning rows into objects, and completing them with further queries, are not part of the query.
+     */
+    private <T, C extends Collection<T>> C read(Connection con, C results, RowReader<T> rowReader, int limit)
+            throws SQLException {
+        long start = System.nanoTime();
+        long readingNanos = 0;
+        int rows = 0;
         try (ResultSet resultSet = executeQuery(con)) {
-            Set<R> set = new HashSet<>();
-            while (resultSet.next())
-                set.add(mapper.apply(resultSet.getObject(1, clazz)));
-            return set;
+            while (rows < limit && resultSet.next()) {
+                long rowStart = System.nanoTime();
+                results.add(rowReader.read(resultSet));
+                readingNanos += System.nanoTime() - rowStart;
+                rows++;
+            }
         }
+        QueryLog.record(sql, System.nanoTime() - start - readingNanos, rows);
+        return results;
+    }
+    
+    /**
+     * Reads objects with a reconstructor and then completes them all, or lets the reconstructor know that reading
+     * failed.
+     */
+    private <T, C extends Collection<T>> C reconstruct(Connection con, C results, Reconstructor<T> reconstructor,
+                                                       int limit) throws SQLException {
+        try {
+            read(con, results, rs -> reconstructor.reconstruct(rs, con), limit);
+        } catch (SQLException e) {
+            reconstructor.failAll(results, e);
+            throw e;
+        }
+        reconstructor.completeAll(results, con);
+        return results;
+    }
+    
+    private static <T> T first(List<T> list) {
+        return list.isEmpty() ? null : list.get(0);
+    }
+    
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet resultSet) throws SQLException;
     }
     
     public ParametrizedQuery with(Object param) {
@@ -117,14 +164,44 @@ public class Query {
         return new ParametrizedQuery(sql).and(params);
     }
     
+    /**
+     * Fills the {@code %s} in this query with a list of parameters, for use in an {@code IN (%s)} clause.
+     * The list is padded to a fixed size by repeating its last element, so that the driver's statement cache only
+     * ever sees the same few statements no matter how many parameters there are. Repeated elements do not change the result of
+     * an {@code IN} predicate. An empty list is padded with nulls, which match nothing.
+     */
     public ParametrizedQuery in(Collection<?> params) {
-        String formattedSQL = String.format(sql, params.stream().map(o -> "?").collect(Collectors.joining(",")));
-        return new ParametrizedQuery(formattedSQL).and(params);
+        List<Object> padded = new ArrayList<>(params);
+        int size = bucketSize(padded.size());
+        Object padding = padded.isEmpty() ? null : padded.get(padded.size() - 1);
+        while (padded.size() < size)
+            padded.add(padding);
+        String formattedSQL = String.format(sql, String.join(",", Collections.nCopies(size, "?")));
+        return new ParametrizedQuery(formattedSQL).and(padded);
     }
     
     public <T> ParametrizedQuery in(Collection<T> params, Function<T, Object> valueExtractor) {
-        String formattedSQL = String.format(sql, params.stream().map(o -> "?").collect(Collectors.joining(",")));
-        return new ParametrizedQuery(formattedSQL).and(params.stream().map(valueExtractor).collect(Collectors.toList()));
+        return in(params.stream().map(valueExtractor).collect(Collectors.toList()));
+    }
+    
+    /**
+     * Splits parameters into lists of at most {@link #MAX_IN_LIST_SIZE}, to be passed to {@link #in(Collection)}
+     * one statement at a time.
+     */
+    public static <T> List<List<T>> partition(Collection<T> params) {
+        List<T> list = new ArrayList<>(params);
+        List<List<T>> partitions = new ArrayList<>();
+        for (int start = 0; start < list.size(); start += MAX_IN_LIST_SIZE)
+            partitions.add(list.subList(start, Math.min(list.size(), start + MAX_IN_LIST_SIZE)));
+        return partitions;
+    }
+    
+    private static int bucketSize(int size) {
+        for (int bucket : IN_LIST_BUCKETS)
+            if (size <= bucket)
+                return bucket;
+        int largest = IN_LIST_BUCKETS[IN_LIST_BUCKETS.length - 1];
+        return (size + largest - 1) / largest * largest;
     }
     
     public <T> BatchBuilder<T> batch(Collection<T> elements) {
@@ -162,22 +239,25 @@ public class Query {
         }
         
         public int executeUpdate(Connection con) throws SQLException {
-            try (PreparedStatement stmt = prepare(con)) {
-                return stmt.executeBatch().length;
+            long start = System.nanoTime();
+            int statements;
+            try (PreparedStatement stmt = con.prepareStatement(sql)) {
+                addBatches(con, stmt);
+                statements = stmt.executeBatch().length;
             }
+            QueryLog.record(sql, System.nanoTime() - start, elements.size());
+            return statements;
         }
         
-        private PreparedStatement prepare(Connection con) throws SQLException {
-            PreparedStatement stmt = con.prepareStatement(sql);
+        private void addBatches(Connection con, PreparedStatement stmt) throws SQLException {
             for (T element : elements) {
                 int paramIndex = 1;
                 for (Function<T, List<Object>> deconstructor : deconstructors) {
                     for (Object param : deconstructor.apply(element))
-                        stmt.setObject(paramIndex++, param);
+                        stmt.setObject(paramIndex++, Dialect.current().toDatabase(con, param));
                 }
                 stmt.addBatch();
             }
-            return stmt;
         }
         
     }
@@ -0,0 +1,131 @@
+package com.monst.bankingplugin.persistence;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.util.DebugCategory;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Records the latency and row count of every statement run through {@link Query}, grouped by its SQL.
+ * Statements slower than the configured threshold are kept in a short rolling log of the most recent slow
+ * statements, and the first of every {@value #SLOW_QUERY_WARNING_INTERVAL} is also logged as a warning. The statistics and the rolling log are written to the debug log when the
+ * database is shut down, which replaces the statement log that HSQLDB can write by itself.
+ * Statements are identified by their SQL without parameters, so the number of distinct entries stays small.
+ */
+public final class QueryLog {
+
+    private static final int MAX_STATEMENTS = 512;
+    private static final int MAX_SLOW_ENTRIES = 50;
+    private static final int SUMMARY_SIZE = 20;
+    // Only every this many slow statements is logged to the console, so that a slow database does not flood it
+    private static final int SLOW_QUERY_WARNING_INTERVAL = 100;
+
+    private static final Map<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+    private static final Deque<String> SLOW_QUERIES = new ArrayDeque<>(MAX_SLOW_ENTRIES);
+    private static final AtomicLong SLOW_QUERY_COUNT = new AtomicLong();
+
+    private static volatile BankingPlugin plugin;
+    private static volatile long slowQueryNanos = Long.MAX_VALUE;
+
+    private QueryLog() {}
+
+    /**
+     * Starts logging statements for a newly opened database, forgetting the statistics of the previous one.
+     */
+    static void start(BankingPlugin plugin) {
+        QueryLog.plugin = plugin;
+        setSlowQueryThreshold(plugin.config().slowQueryThreshold.get().orElse(null));
+        STATISTICS.clear();
+        SLOW_QUERY_COUNT.set(0);
+        synchronized (SLOW_QUERIES) {
+            SLOW_QUERIES.clear();
+        }
+    }
+
+    /**
+     * @param millis the duration above which a statement is logged as slow, or null to never log slow statements
+     */
+    public static void setSlowQueryThreshold(Integer millis) {
+        slowQueryNanos = millis == null ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    static void record(String sql, long nanos, int rows) {
+        Statistics statistics = STATISTICS.get(sql);
+        if (statistics == null) {
+            if (STATISTICS.size() >= MAX_STATEMENTS)
+                statistics = STATISTICS.computeIfAbsent("(other)", s -> new Statistics());
+            else
+                statistics = STATISTICS.computeIfAbsent(sql, s -> new Statistics());
+        }
+        statistics.latency.record(nanos);
+        statistics.rows.add(rows);
+        if (nanos >= slowQueryNanos)
+            logSlowQuery(sql, nanos, rows);
+    }
+
+    private static void logSlowQuery(String sql, long nanos, int rows) {
+        String entry = String.format("%s %.1fms %d rows: %s", LocalTime.now(), nanos / 1_000_000.0, rows, sql);
+        synchronized (SLOW_QUERIES) {
+            if (SLOW_QUERIES.size() == MAX_SLOW_ENTRIES)
+                SLOW_QUERIES.removeFirst();
+            SLOW_QUERIES.addLast(entry);
+        }
+        long count = SLOW_QUERY_COUNT.incrementAndGet();
+        if (count % SLOW_QUERY_WARNING_INTERVAL != 1)
+            return;
+        BankingPlugin plugin = QueryLog.plugin;
+        if (plugin != null)
+            plugin.log(Level.WARNING, String.format("Slow database query (%.1fms, %d rows): %s (%d slow queries so far)",
+                    nanos / 1_000_000.0, rows, sql, count));
+    }
+
+    /**
+     * @return the most recent slow statements, oldest first
+     */
+    public static List<String> getSlowQueries() {
+        synchronized (SLOW_QUERIES) {
+            return new ArrayList<>(SLOW_QUERIES);
+        }
+    }
+
+    /**
+     * Writes the statements that took the most time in total to the debug log, followed by the rolling log of
+     * slow statements.
+     */
+    static void logStatistics() {
+        BankingPlugin plugin = QueryLog.plugin;
+        if (plugin == null)
+            return;
+        if (plugin.isDebugEnabled(DebugCategory.PERSISTENCE, Level.INFO))
+            STATISTICS.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<String, Statistics> e) -> e.getValue().totalMillis())
+                            .reversed())
+                    .limit(SUMMARY_SIZE)
+                    .forEach(e -> plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Query %s: %s", e.getValue(), e.getKey()));
+        for (String slowQuery : getSlowQueries())
+            plugin.debug(DebugCategory.PERSISTENCE, Level.WARNING, "Slow query at %s", slowQuery);
+    }
+
+    private static class Statistics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+
+        private double totalMillis() {
+            return latency.totalMillis();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s total=%.1fms rows=%d", latency, totalMillis(), rows.sum());
+        }
+
+    }
+
+}
@@ -3,9 +3,22 @@ package com.monst.bankingplugin.persistence;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 
 public interface Reconstructor<T> {
     
     T reconstruct(ResultSet resultSet, Connection con) throws SQLException;
     
+    /**
+     * Called once with everything reconstructed from a result set, after the result set has been closed.
+     * Data that is stored in other tables can be loaded here for all objects with a single query,
+     * instead of with one query per row in {@link #reconstruct(ResultSet, Connection)}.
+     */
+    default void completeAll(Collection<T> reconstructed, Connection con) throws SQLException {}
+    
+    /**
+     * Called instead of {@link #completeAll} with what was reconstructed before reading the result set failed.
+     */
+    default void failAll(Collection<T> reconstructed, SQLException e) {}
+    
 }
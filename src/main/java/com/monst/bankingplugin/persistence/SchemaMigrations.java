@@ -0,0 +1,106 @@
+package com.monst.bankingplugin.persistence;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Upgrades the database schema in place, one numbered step at a time.
+ * The tables themselves are created by the services. Every change to the schema after that is a new step at the end
+ * of {@link #STEPS}; steps must never be changed or reordered once released, since existing databases have already
+ * run them. The version of the schema is the highest step recorded in the SCHEMA_VERSION table.
+ * Most databases commit each DDL statement by itself, so a step that fails halfway cannot be rolled back. Steps are
+ * written to be safe to run again instead, and the failed step is simply retried the next time the database is opened.
+ */
+final class SchemaMigrations {
+
+    private static final List<Step> STEPS = Arrays.asList(
+            new Step(1, "Add indexes for the frequent lookups",
+                    index("ACCOUNT_OWNER_IDX", "ACCOUNT", "owner_uuid"),
+                    index("ACCOUNT_BANK_IDX", "ACCOUNT", "bank_id"),
+                    index("ACCOUNT_LOCATION_IDX", "ACCOUNT", "world, Y, X1, Z1"),
+                    index("BANK_OWNER_IDX", "BANK", "owner_uuid"),
+                    index("CO_OWNS_ACCOUNT_CO_OWNER_IDX", "CO_OWNS_ACCOUNT", "co_owner_uuid"),
+                    index("ACCOUNT_TRANSACTION_ACCOUNT_TIME_IDX", "ACCOUNT_TRANSACTION", "account_id, timestamp"),
+                    index("ACCOUNT_INTEREST_ACCOUNT_TIME_IDX", "ACCOUNT_INTEREST", "account_id, timestamp"),
+                    index("ACCOUNT_INTEREST_RECIPIENT_TIME_IDX", "ACCOUNT_INTEREST", "recipient_uuid, timestamp"),
+                    index("BANK_INCOME_BANK_TIME_IDX", "BANK_INCOME", "bank_id, timestamp"),
+                    index("BANK_INCOME_RECIPIENT_TIME_IDX", "BANK_INCOME", "recipient_uuid, timestamp")),
+            new Step(2, "Delete the accounts of a bank together with the bank",
+                    con -> Dialect.current().addCascadingForeignKey(con, "ACCOUNT", "ACCOUNT_BANK_FK", "bank_id", "BANK")),
+            new Step(3, "Enforce the references to accounts and banks",
+                    foreignKey("CO_OWNS_ACCOUNT", "account_id", "ACCOUNT"),
+                    foreignKey("CO_OWNS_BANK", "bank_id", "BANK"),
+                    foreignKey("ACCOUNT_TRANSACTION", "account_id", "ACCOUNT"),
+                    foreignKey("ACCOUNT_TRANSACTION", "bank_id", "BANK"),
+                    foreignKey("ACCOUNT_INTEREST", "account_id", "ACCOUNT"),
+                    foreignKey("ACCOUNT_INTEREST", "bank_id", "BANK"),
+                    foreignKey("BANK_INCOME", "bank_id", "BANK"))
+    );
+
+    private SchemaMigrations() {}
+
+    /**
+     * Runs every step that the database has not run yet, in order. This must be called after the tables are created.
+     * If a step fails, the steps after it are not run.
+     */
+    static void migrate(BankingPlugin plugin, Connection con) {
+        try {
+            Query.of("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION("
+                            + "version INTEGER NOT NULL PRIMARY KEY,"
+                            + "description VARCHAR(255) NOT NULL,"
+                            + "applied TIMESTAMP NOT NULL)")
+                    .executeUpdate(con);
+            Integer current = Query.of("SELECT MAX(version) FROM SCHEMA_VERSION").asOne(con, Integer.class);
+            int version = current == null ? 0 : current;
+            for (Step step : STEPS) {
+                if (step.version <= version)
+                    continue;
+                plugin.log(Level.INFO, "Upgrading database schema to version " + step.version + ": " + step.description);
+                for (Action action : step.actions)
+                    action.run(con);
+                Query.of("INSERT INTO SCHEMA_VERSION (version, description, applied) VALUES (?, ?, ?)")
+                        .with(step.version, step.description, Timestamp.from(Instant.now()))
+                        .executeUpdate(con);
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "Failed to upgrade the database schema!");
+            plugin.debug(e);
+        }
+    }
+
+    private static class Step {
+
+        private final int version;
+        private final String description;
+        private final Action[] actions;
+
+        private Step(int version, String description, Action... actions) {
+            this.version = version;
+            this.description = description;
+            this.actions = actions;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run(Connection con) throws SQLException;
+    }
+
+    private static Action index(String name, String table, String columns) {
+        return con -> Dialect.current().createIndex(con, name, table, columns);
+    }
+
+    private static Action foreignKey(String table, String column, String referencedTable) {
+        return con -> Dialect.current().addForeignKey(con, table, table + "_" + referencedTable + "_FK", column, referencedTable);
+    }
+
+}
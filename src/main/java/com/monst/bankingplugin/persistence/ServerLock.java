@@ -0,0 +1,82 @@
+package com.monst.bankingplugin.persistence;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
+import com.monst.bankingplugin.util.DebugCategory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.logging.Level;
+
+/**
+ * Keeps other servers from using the same external database at the same time. Banks and accounts are cached and
+ * indexed in memory, and changes to them are written behind, so two servers sharing the tables would overwrite each
+ * other's changes and never see each other's new banks and accounts.
+ * The lock is held by a connection of its own outside the pool, and is released when that connection is closed.
+ * An embedded database needs no such lock, since HSQLDB locks its files itself.
+ */
+final class ServerLock {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final BankingPlugin plugin;
+    private final String url;
+    private final Properties properties;
+    private Connection connection;
+
+    ServerLock(BankingPlugin plugin, String url, Properties properties) {
+        this.plugin = plugin;
+        this.url = url;
+        this.properties = properties;
+    }
+
+    /**
+     * @return whether the lock was taken, or false if another server holds it
+     */
+    synchronized boolean acquire() throws SQLException {
+        connection = DriverManager.getConnection(url, properties);
+        boolean locked = false;
+        try {
+            locked = Dialect.current().tryLock(connection);
+        } finally {
+            if (!locked)
+                release();
+        }
+        return locked;
+    }
+
+    /**
+     * Keeps the connection that holds the lock from being closed for being idle, and takes the lock again if the
+     * connection was lost.
+     */
+    synchronized void refresh() {
+        try {
+            if (connection != null && connection.isValid(VALIDATION_TIMEOUT_SECONDS))
+                return;
+            release();
+            if (acquire())
+                plugin.debug(DebugCategory.PERSISTENCE, Level.INFO,
+                        "Locked the external database again after losing the connection.");
+            else
+                plugin.log(Level.SEVERE, "Another server is now using the external database! "
+                        + "Only one server may use it at a time, or they will overwrite each other's changes.");
+        } catch (SQLException e) {
+            plugin.log(Level.WARNING, "Failed to lock the external database again after losing the connection.");
+            plugin.debug(e);
+        }
+    }
+
+    synchronized void release() {
+        if (connection == null)
+            return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            plugin.debug(e);
+        }
+        connection = null;
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.monst.bankingplugin.persistence.dialect;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The SQL that differs between the supported databases: column types, DDL that is not standard, and the way UUIDs,
+ * arrays and timestamps are stored. Queries that only use standard SQL are written directly in the repositories.
+ * The dialect in use is chosen from the JDBC URL when the database is opened, and is available through
+ * {@link #current()}. Until then, the embedded HSQLDB dialect is used.
+ */
+public abstract class Dialect {
+
+    private static volatile Dialect current = new HSQLDBDialect();
+
+    /**
+     * @return the dialect of the database that is currently open
+     */
+    public static Dialect current() {
+        return current;
+    }
+
+    /**
+     * Sets the dialect of the database that is about to be opened.
+     */
+    public static void use(Dialect dialect) {
+        current = dialect;
+    }
+
+    /**
+     * Chooses the dialect that matches a JDBC URL.
+     * @throws IllegalArgumentException if the database is not supported
+     */
+    public static Dialect forUrl(String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:hsqldb:"))
+            return new HSQLDBDialect();
+        if (jdbcUrl.startsWith("jdbc:mysql:"))
+            return new MySQLDialect(false);
+        if (jdbcUrl.startsWith("jdbc:mariadb:"))
+            return new MySQLDialect(true);
+        if (jdbcUrl.startsWith("jdbc:postgresql:"))
+            return new PostgreSQLDialect();
+        throw new IllegalArgumentException("Unsupported database URL " + jdbcUrl
+                + ". Use HSQLDB, MySQL, MariaDB or PostgreSQL.");
+    }
+
+    /**
+     * @return the JDBC driver classes to try, in order of preference
+     */
+    public abstract List<String> getDriverClassNames();
+
+    /**
+     * @return a query to check that a pooled connection is alive, or null if the driver supports
+     * {@link Connection#isValid(int)}
+     */
+    public String getConnectionTestQuery() {
+        return null;
+    }
+
+    /**
+     * @return the properties to pass to the driver, such as those that turn on its prepared statement cache.
+     * Statements are closed after every use, so any caching of prepared statements is left to the driver.
+     */
+    public Map<String, String> getDataSourceProperties() {
+        return Collections.emptyMap();
+    }
+
+    // DDL
+
+    /**
+     * @return the column type for a UUID
+     */
+    public abstract String uuidType();
+
+    /**
+     * @return the column definition of an integer primary key that is generated by the database
+     */
+    public abstract String generatedPrimaryKey();
+
+    /**
+     * @return the column type for an array of the given element type
+     */
+    public abstract String arrayType(String elementType);
+
+    /**
+     * @return an expression for the number of elements in an array column, or null if arrays cannot be inspected
+     */
+    public String cardinality(String column) {
+        return "CARDINALITY(" + column + ")";
+    }
+
+    /**
+     * @return a table constraint that makes a column reference the column of the same name in another table
+     */
+    public String foreignKey(String column, String referencedTable) {
+        // Declared on the table rather than on the column, since MySQL ignores the REFERENCES clause of a column
+        return "FOREIGN KEY (" + column + ") REFERENCES " + referencedTable + "(" + column + ")";
+    }
+
+    /**
+     * @return a {@link #foreignKey foreign key} that also deletes the row when the referenced row is deleted
+     */
+    public String cascadingForeignKey(String column, String referencedTable) {
+        return foreignKey(column, referencedTable) + " ON DELETE CASCADE";
+    }
+
+    /**
+     * Adds the constraint of {@link #foreignKey} to a table that was created without it taking effect.
+     * Only MySQL ignored the constraint when it was declared on the column, so this does nothing for other databases.
+     */
+    public void addForeignKey(Connection con, String table, String name, String column, String referencedTable)
+            throws SQLException {
+        // The constraint was created with the table
+    }
+
+    /**
+     * Adds the constraint of {@link #cascadingForeignKey} to a table that was created without it taking effect.
+     * Only MySQL ignored the constraint when it was declared on the column, so this does nothing for other databases.
+     */
+    public void addCascadingForeignKey(Connection con, String table, String name, String column, String referencedTable)
+            throws SQLException {
+        // The constraint was created with the table
+    }
+
+    /**
+     * Adds a check constraint to a table, unless a constraint with that name already exists.
+     */
+    public void addCheckConstraint(Connection con, String table, String name, String condition) throws SQLException {
+        if (exists(con, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+                + "WHERE UPPER(TABLE_NAME) = ? AND UPPER(CONSTRAINT_NAME) = ?", table, name))
+            return;
+        execute(con, "ALTER TABLE " + table + " ADD CONSTRAINT " + name + " CHECK (" + condition + ")");
+    }
+
+    /**
+     * Creates an index on a table, unless an index with that name already exists.
+     */
+    public void createIndex(Connection con, String name, String table, String columns) throws SQLException {
+        execute(con, "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + "(" + columns + ")");
+    }
+
+    /**
+     * Replaces a trigger that runs an SQL statement after rows are deleted from a table.
+     * The statement must not depend on which rows were deleted.
+     */
+    public abstract void createDeleteTrigger(Connection con, String name, String table, String statement)
+            throws SQLException;
+
+    /**
+     * Takes a lock on the database that is held until the connection is closed, unless another connection holds it.
+     * An embedded database cannot be opened by two servers at once, so this always succeeds.
+     * @return whether the lock was taken
+     */
+    public boolean tryLock(Connection con) throws SQLException {
+        return true;
+    }
+
+    /**
+     * Runs any statement needed to close the database cleanly before the connection pool is closed.
+     */
+    public void shutdown(Connection con) throws SQLException {
+        // Nothing to do for a database server
+    }
+
+    // Values
+
+    /**
+     * Converts a parameter to the form in which it is stored.
+     * Arrays are passed as typed Java arrays, such as {@code Integer[]} or {@code int[]}, so that the type of the
+     * elements is known even if the array is empty.
+     * @param con the connection the parameter is bound on
+     */
+    public Object toDatabase(Connection con, Object value) throws SQLException {
+        return value;
+    }
+
+    public UUID getUUID(ResultSet rs, String column) throws SQLException {
+        return convert(rs.getObject(column), UUID.class);
+    }
+
+    /**
+     * Reads a single column as the given type.
+     */
+    public <T> T read(ResultSet rs, int column, Class<T> clazz) throws SQLException {
+        return convert(rs.getObject(column), clazz);
+    }
+
+    /**
+     * Reads an array column.
+     * @param parser reads a single element, if the array is not stored natively
+     * @return the elements, or null if the column is null
+     */
+    public Object[] getArray(ResultSet rs, String column, Function<String, ?> parser) throws SQLException {
+        Array array = rs.getArray(column);
+        return array == null ? null : (Object[]) array.getArray();
+    }
+
+    /**
+     * Converts a value read with {@link ResultSet#getObject(int)} to the requested type, since not every driver
+     * can convert to every type by itself.
+     */
+    static <T> T convert(Object value, Class<T> clazz) {
+        if (value == null || clazz.isInstance(value))
+            return clazz.cast(value);
+        if (clazz == Integer.class && value instanceof Number)
+            return clazz.cast(((Number) value).intValue());
+        if (clazz == Long.class && value instanceof Number)
+            return clazz.cast(((Number) value).longValue());
+        if (clazz == Instant.class && value instanceof Timestamp)
+            return clazz.cast(((Timestamp) value).toInstant());
+        if (clazz == LocalTime.class && value instanceof Time)
+            return clazz.cast(((Time) value).toLocalTime());
+        if (clazz == UUID.class)
+            return clazz.cast(UUID.fromString(value.toString()));
+        throw new ClassCastException("Cannot convert " + value.getClass().getName() + " to " + clazz.getName());
+    }
+
+    static boolean exists(Connection con, String countQuery, String... upperCaseParameters) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement(countQuery)) {
+            for (int i = 0; i < upperCaseParameters.length; i++)
+                stmt.setString(i + 1, upperCaseParameters[i].toUpperCase());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    static void execute(Connection con, String... statements) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            for (String sql : statements)
+                stmt.execute(sql);
+        }
+    }
+
+    static List<String> drivers(String... classNames) {
+        return Arrays.asList(classNames);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.monst.bankingplugin.persistence.dialect;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The embedded database, stored in files inside the plugin folder.
+ */
+class HSQLDBDialect extends Dialect {
+
+    @Override
+    public List<String> getDriverClassNames() {
+        return drivers("org.hsqldb.jdbc.JDBCDriver");
+    }
+
+    @Override
+    public String getConnectionTestQuery() {
+        return "CALL NOW()";
+    }
+
+    @Override
+    public String uuidType() {
+        return "UUID";
+    }
+
+    @Override
+    public String generatedPrimaryKey() {
+        return "INTEGER GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL PRIMARY KEY";
+    }
+
+    @Override
+    public String arrayType(String elementType) {
+        return elementType + " ARRAY";
+    }
+
+    @Override
+    public void addCheckConstraint(Connection con, String table, String name, String condition) throws SQLException {
+        execute(con, "ALTER TABLE " + table + " ADD CONSTRAINT IF NOT EXISTS " + name + " CHECK (" + condition + ")");
+    }
+
+    @Override
+    public void createDeleteTrigger(Connection con, String name, String table, String statement) throws SQLException {
+        execute(con,
+                "DROP TRIGGER IF EXISTS " + name,
+                "CREATE TRIGGER " + name + " AFTER DELETE ON " + table + " FOR EACH STATEMENT "
+                        + "BEGIN ATOMIC " + statement + "; END");
+    }
+
+    @Override
+    public UUID getUUID(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, UUID.class);
+    }
+
+    @Override
+    public <T> T read(ResultSet rs, int column, Class<T> clazz) throws SQLException {
+        return rs.getObject(column, clazz);
+    }
+
+    @Override
+    public void shutdown(Connection con) throws SQLException {
+        execute(con, "SHUTDOWN");
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.monst.bankingplugin.persistence.dialect;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * MySQL and MariaDB. Neither has a UUID or an array type, so UUIDs are stored as text,
+ * and arrays as comma-separated text.
+ */
+class MySQLDialect extends Dialect {
+
+    private final boolean mariaDB;
+
+    MySQLDialect(boolean mariaDB) {
+        this.mariaDB = mariaDB;
+    }
+
+    @Override
+    public List<String> getDriverClassNames() {
+        if (mariaDB)
+            return drivers("org.mariadb.jdbc.Driver");
+        return drivers("com.mysql.cj.jdbc.Driver", "com.mysql.jdbc.Driver");
+    }
+
+    @Override
+    public Map<String, String> getDataSourceProperties() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("cachePrepStmts", "true");
+        properties.put("prepStmtCacheSize", "256");
+        properties.put("useServerPrepStmts", "true");
+        if (!mariaDB)
+            properties.put("prepStmtCacheSqlLimit", "2048"); // IN lists make for long statements
+        return properties;
+    }
+
+    @Override
+    public String uuidType() {
+        return "CHAR(36)";
+    }
+
+    @Override
+    public String generatedPrimaryKey() {
+        return "INTEGER NOT NULL AUTO_INCREMENT PRIMARY KEY";
+    }
+
+    @Override
+    public String arrayType(String elementType) {
+        return "VARCHAR(2048)";
+    }
+
+    @Override
+    public String cardinality(String column) {
+        return null;
+    }
+
+    @Override
+    public void createIndex(Connection con, String name, String table, String columns) throws SQLException {
+        if (exists(con, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND UPPER(TABLE_NAME) = ? AND UPPER(INDEX_NAME) = ?", table, name))
+            return;
+        execute(con, "CREATE INDEX " + name + " ON " + table + "(" + columns + ")");
+    }
+
+    @Override
+    public void createDeleteTrigger(Connection con, String name, String table, String statement) throws SQLException {
+        // MySQL has no statement-level triggers, so this runs once per deleted row
+        execute(con,
+                "DROP TRIGGER IF EXISTS " + name,
+                "CREATE TRIGGER " + name + " AFTER DELETE ON " + table + " FOR EACH ROW " + statement);
+    }
+
+    @Override
+    public void addForeignKey(Connection con, String table, String name, String column, String referencedTable)
+            throws SQLException {
+        addForeignKey(con, table, name, column, referencedTable, foreignKey(column, referencedTable));
+    }
+
+    @Override
+    public void addCascadingForeignKey(Connection con, String table, String name, String column, String referencedTable)
+            throws SQLException {
+        addForeignKey(con, table, name, column, referencedTable, cascadingForeignKey(column, referencedTable));
+    }
+
+    private void addForeignKey(Connection con, String table, String name, String column, String referencedTable,
+                               String constraint) throws SQLException {
+        if (exists(con, "SELECT COUNT(*) FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS "
+                + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND UPPER(TABLE_NAME) = ? AND UPPER(REFERENCED_TABLE_NAME) = ?",
+                table, referencedTable))
+            return;
+        // Rows that were left behind while the constraint was ignored would keep it from being added
+        execute(con,
+                "DELETE FROM " + table + " WHERE " + column + " NOT IN (SELECT " + column + " FROM " + referencedTable + ")",
+                "ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + constraint);
+    }
+
+    @Override
+    public boolean tryLock(Connection con) throws SQLException {
+        // Named locks are held per server rather than per database, and their names are limited to 64 characters
+        return exists(con, "SELECT GET_LOCK(CONCAT('bankingplugin.', MD5(IFNULL(DATABASE(), ''))), 0)");
+    }
+
+    @Override
+    public Object toDatabase(Connection con, Object value) {
+        if (value instanceof UUID)
+            return value.toString();
+        if (value instanceof Object[])
+            return join(Arrays.asList((Object[]) value));
+        if (value instanceof int[])
+            return join(Arrays.asList(Arrays.stream((int[]) value).boxed().toArray()));
+        return value;
+    }
+
+    @Override
+    public Object[] getArray(ResultSet rs, String column, Function<String, ?> parser) throws SQLException {
+        String joined = rs.getString(column);
+        if (joined == null)
+            return null;
+        if (joined.isEmpty())
+            return new Object[0];
+        return Arrays.stream(joined.split(",")).map(parser).toArray();
+    }
+
+    private static String join(List<Object> elements) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Object element : elements)
+            joiner.add(String.valueOf(element));
+        return joiner.toString();
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.monst.bankingplugin.persistence.dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PostgreSQL 10 or later.
+ */
+class PostgreSQLDialect extends Dialect {
+
+    @Override
+    public List<String> getDriverClassNames() {
+        return drivers("org.postgresql.Driver");
+    }
+
+    @Override
+    public Map<String, String> getDataSourceProperties() {
+        return Collections.singletonMap("preparedStatementCacheQueries", "256");
+    }
+
+    @Override
+    public String uuidType() {
+        return "UUID";
+    }
+
+    @Override
+    public String generatedPrimaryKey() {
+        return "INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY";
+    }
+
+    @Override
+    public String arrayType(String elementType) {
+        return elementType + "[]";
+    }
+
+    @Override
+    public Object toDatabase(Connection con, Object value) throws SQLException {
+        // The driver cannot infer the SQL type of a Java array
+        if (value instanceof int[])
+            return con.createArrayOf("integer", Arrays.stream((int[]) value).boxed().toArray());
+        if (value instanceof Integer[])
+            return con.createArrayOf("integer", (Object[]) value);
+        if (value instanceof LocalTime[])
+            return con.createArrayOf("time", (Object[]) value);
+        return value;
+    }
+
+    @Override
+    public boolean tryLock(Connection con) throws SQLException {
+        // Advisory locks are held per database
+        return exists(con, "SELECT CASE WHEN pg_try_advisory_lock(hashtext('bankingplugin')) THEN 1 ELSE 0 END");
+    }
+
+    @Override
+    public void createDeleteTrigger(Connection con, String name, String table, String statement) throws SQLException {
+        // Triggers in PostgreSQL call a function, which holds the statement
+        execute(con,
+                "CREATE OR REPLACE FUNCTION " + name + "_FN() RETURNS TRIGGER LANGUAGE plpgsql AS $$ "
+                        + "BEGIN " + statement + "; RETURN NULL; END $$",
+                "DROP TRIGGER IF EXISTS " + name + " ON " + table,
+                "CREATE TRIGGER " + name + " AFTER DELETE ON " + table + " FOR EACH STATEMENT "
+                        + "EXECUTE PROCEDURE " + name + "_FN()");
+    }
+
+}
@@ -1,23 +1,23 @@
 package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 public class AccountCoOwnerRepository {
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS CO_OWNS_ACCOUNT("
-                        + "co_owner_uuid UUID NOT NULL,"
-                        + "account_id INTEGER NOT NULL REFERENCES ACCOUNT(account_id),"
-                        + "PRIMARY KEY (account_id, co_owner_uuid))")
+                        + "co_owner_uuid " + dialect.uuidType() + " NOT NULL,"
+                        + "account_id INTEGER NOT NULL,"
+                        + "PRIMARY KEY (account_id, co_owner_uuid),"
+                        + dialect.foreignKey("account_id", "ACCOUNT") + ")")
                 .executeUpdate(con);
     }
     
@@ -41,15 +41,30 @@ public class AccountCoOwnerRepository {
     }
     
     public void deleteAll(Connection con, Collection<Integer> accountIDs) throws SQLException {
-        Query.of("DELETE FROM CO_OWNS_ACCOUNT WHERE account_id IN (%s)")
-                .in(accountIDs)
-                .executeUpdate(con);
+        for (List<Integer> partition : Query.partition(accountIDs))
+            Query.of("DELETE FROM CO_OWNS_ACCOUNT WHERE account_id IN (%s)")
+                    .in(partition)
+                    .executeUpdate(con);
     }
     
-    public Set<OfflinePlayer> findByAccount(Connection con, int accountID) throws SQLException {
-        return Query.of("SELECT co_owner_uuid FROM CO_OWNS_ACCOUNT WHERE account_id = ?")
-                .with(accountID)
-                .asSet(con, UUID.class, Bukkit::getOfflinePlayer);
+    /**
+     * Finds the co-owners of many accounts, with one query per {@link Query#MAX_IN_LIST_SIZE} accounts.
+     * @return the co-owners of each account, keyed by account ID; accounts without co-owners are absent
+     */
+    public Map<Integer, Set<OfflinePlayer>> findByAccounts(Connection con, Collection<Integer> accountIDs) throws SQLException {
+        if (accountIDs.isEmpty())
+            return Collections.emptyMap();
+        Map<Integer, Set<OfflinePlayer>> coOwners = new HashMap<>();
+        for (List<Integer> partition : Query.partition(accountIDs)) {
+            List<Map.Entry<Integer, OfflinePlayer>> rows = Query
+                    .of("SELECT account_id, co_owner_uuid FROM CO_OWNS_ACCOUNT WHERE account_id IN (%s)")
+                    .in(partition)
+                    .asList(con, (rs, c) -> new AbstractMap.SimpleEntry<>(
+                            rs.getInt("account_id"), Bukkit.getOfflinePlayer(Dialect.current().getUUID(rs, "co_owner_uuid"))));
+            for (Map.Entry<Integer, OfflinePlayer> row : rows)
+                coOwners.computeIfAbsent(row.getKey(), id -> new HashSet<>()).add(row.getValue());
+        }
+        return coOwners;
     }
     
 }
@@ -2,6 +2,7 @@ package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.entity.log.AccountInterest;
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.Bukkit;
 
 import java.math.BigDecimal;
@@ -17,15 +18,18 @@ import java.util.UUID;
 public class AccountInterestRepository {
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS ACCOUNT_INTEREST("
-                        + "interest_id INTEGER GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL PRIMARY KEY,"
-                        + "account_id INTEGER NOT NULL REFERENCES ACCOUNT(account_id),"
-                        + "bank_id INTEGER NOT NULL REFERENCES BANK(bank_id),"
-                        + "recipient_uuid UUID NOT NULL,"
+                        + "interest_id " + dialect.generatedPrimaryKey() + ","
+                        + "account_id INTEGER NOT NULL,"
+                        + "bank_id INTEGER NOT NULL,"
+                        + "recipient_uuid " + dialect.uuidType() + " NOT NULL,"
                         + "interest NUMERIC(16,2) NOT NULL,"
                         + "low_balance_fee NUMERIC(16,2) NOT NULL,"
                         + "final_payment NUMERIC(16,2) NOT NULL,"
-                        + "timestamp TIMESTAMP)")
+                        + "timestamp TIMESTAMP,"
+                        + dialect.foreignKey("account_id", "ACCOUNT") + ","
+                        + dialect.foreignKey("bank_id", "BANK") + ")")
                 .executeUpdate(con);
     }
     
@@ -39,8 +43,15 @@ public class AccountInterestRepository {
     }
     
     public List<AccountInterest> findByAccountID(Connection con, int accountID, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM ACCOUNT_INTEREST WHERE account_id = ? ORDER BY interest_id DESC OFFSET ? ROWS LIMIT ?")
-                .with(accountID, offset, limit)
+        return Query.of("SELECT * FROM ACCOUNT_INTEREST WHERE account_id = ? ORDER BY interest_id DESC LIMIT ? OFFSET ?")
+                .with(accountID, limit, offset)
+                .asList(con, this::reconstruct);
+    }
+    
+    // Interest is listed newest first, so the next page holds the lower IDs
+    public List<AccountInterest> findByAccountIDBefore(Connection con, int accountID, int interestID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT_INTEREST WHERE account_id = ? AND interest_id < ? ORDER BY interest_id DESC LIMIT ?")
+                .with(accountID, interestID, limit)
                 .asList(con, this::reconstruct);
     }
     
@@ -86,7 +97,7 @@ public class AccountInterestRepository {
                 rs.getTimestamp("timestamp").toInstant(),
                 rs.getInt("account_id"),
                 rs.getInt("bank_id"),
-                Bukkit.getOfflinePlayer(rs.getObject("recipient_uuid", UUID.class)),
+                Bukkit.getOfflinePlayer(Dialect.current().getUUID(rs, "recipient_uuid")),
                 rs.getBigDecimal("interest"),
                 rs.getBigDecimal("low_balance_fee")
         );
@@ -4,14 +4,12 @@ import com.monst.bankingplugin.entity.Account;
 import com.monst.bankingplugin.entity.geo.location.AccountLocation;
 import com.monst.bankingplugin.persistence.Query;
 import com.monst.bankingplugin.persistence.Reconstructor;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.block.Block;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class AccountRepository {
     
@@ -22,10 +20,11 @@ public class AccountRepository {
     }
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS ACCOUNT("
                         + "account_id INTEGER NOT NULL PRIMARY KEY,"
-                        + "bank_id INTEGER NOT NULL REFERENCES BANK(bank_id) ON DELETE CASCADE,"
-                        + "owner_uuid UUID NOT NULL,"
+                        + "bank_id INTEGER NOT NULL,"
+                        + "owner_uuid " + dialect.uuidType() + " NOT NULL,"
                         + "balance NUMERIC(16,2) NOT NULL,"
                         + "previous_balance NUMERIC(16,2) NOT NULL,"
                         + "multiplier_stage INTEGER,"
@@ -36,14 +35,13 @@ public class AccountRepository {
                         + "Y INTEGER NOT NULL,"
                         + "Z1 INTEGER NOT NULL,"
                         + "X2 INTEGER," // X2 and Z2 are null if the account is a single chest
-                        + "Z2 INTEGER)")
-                .executeUpdate(con);
-        Query.of("ALTER TABLE ACCOUNT ADD CONSTRAINT IF NOT EXISTS BOTH_XZ_NULL_OR_NEITHER CHECK "
-                        + "((X1 IS NULL AND Z1 IS NULL) OR (X1 IS NOT NULL AND Z1 IS NOT NULL))")
-                .executeUpdate(con);
-        Query.of("ALTER TABLE ACCOUNT ADD CONSTRAINT IF NOT EXISTS XZ_ADJACENT CHECK "
-                        + "(X2 IS NULL OR ((X1 = X2 AND Z1 + 1 = Z2) OR (Z1 = Z2 AND X1 + 1 = X2)))")
+                        + "Z2 INTEGER,"
+                        + dialect.cascadingForeignKey("bank_id", "BANK") + ")")
                 .executeUpdate(con);
+        dialect.addCheckConstraint(con, "ACCOUNT", "BOTH_XZ_NULL_OR_NEITHER",
+                "(X1 IS NULL AND Z1 IS NULL) OR (X1 IS NOT NULL AND Z1 IS NOT NULL)");
+        dialect.addCheckConstraint(con, "ACCOUNT", "XZ_ADJACENT",
+                "X2 IS NULL OR ((X1 = X2 AND Z1 + 1 = Z2) OR (Z1 = Z2 AND X1 + 1 = X2))");
     }
     
     // WRITE
@@ -81,9 +79,10 @@ public class AccountRepository {
     }
     
     public void deleteAll(Connection con, Collection<Integer> accountIDs) throws SQLException {
-        Query.of("DELETE FROM ACCOUNT WHERE account_id IN (%s)")
-                .in(accountIDs)
-                .executeUpdate(con);
+        for (List<Integer> partition : Query.partition(accountIDs))
+            Query.of("DELETE FROM ACCOUNT WHERE account_id IN (%s)")
+                    .in(partition)
+                    .executeUpdate(con);
     }
     
     // READ
@@ -94,131 +93,132 @@ public class AccountRepository {
     }
     
     public Set<Account> findAll(Connection con) throws SQLException {
-        return Query.of("SELECT * FROM Account")
+        return Query.of("SELECT * FROM ACCOUNT")
                 .asSet(con, reconstructor);
     }
     
     public List<Account> findAll(Connection con, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM Account ORDER BY account_id OFFSET ? ROWS LIMIT ?")
-                .with(offset, limit)
+        return Query.of("SELECT * FROM ACCOUNT ORDER BY account_id LIMIT ? OFFSET ?")
+                .with(limit, offset)
                 .asList(con, reconstructor);
     }
     
+    public Set<Account> findByWorld(Connection con, String world) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT WHERE world = ?")
+                .with(world)
+                .asSet(con, reconstructor);
+    }
+    
     public Account findByID(Connection con, int accountID) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE account_id = ?")
+        return Query.of("SELECT * FROM ACCOUNT WHERE account_id = ?")
                 .with(accountID)
                 .asOne(con, reconstructor);
     }
     
     public int countByOwner(Connection con, UUID ownerUUID) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE owner_uuid = ?")
+        return Query.of("SELECT COUNT(*) FROM ACCOUNT WHERE owner_uuid = ?")
                 .with(ownerUUID)
                 .asOne(con, Integer.class);
     }
     
     public int countByTrustedPlayer(Connection con, UUID trusted) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE owner_uuid = ? OR account_id IN "
+        return Query.of("SELECT COUNT(*) FROM ACCOUNT WHERE owner_uuid = ? OR account_id IN "
                         + "(SELECT account_id FROM CO_OWNS_ACCOUNT WHERE co_owner_uuid = ?)")
                 .with(trusted, trusted)
                 .asOne(con, Integer.class);
     }
     
     public List<Account> findByTrustedPlayer(Connection con, UUID trusted, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE owner_uuid = ? OR account_id IN "
+        return Query.of("SELECT * FROM ACCOUNT WHERE owner_uuid = ? OR account_id IN "
                         + "(SELECT account_id FROM CO_OWNS_ACCOUNT WHERE co_owner_uuid = ?)"
-                        + "ORDER BY account_id OFFSET ? ROWS LIMIT ?")
+                        + "ORDER BY account_id LIMIT ? OFFSET ?")
+                .with(trusted, trusted)
+                .and(limit, offset)
+                .asList(con, reconstructor);
+    }
+    
+    public List<Account> findByTrustedPlayerAfter(Connection con, UUID trusted, int accountID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT WHERE (owner_uuid = ? OR account_id IN "
+                        + "(SELECT account_id FROM CO_OWNS_ACCOUNT WHERE co_owner_uuid = ?)) "
+                        + "AND account_id > ? ORDER BY account_id LIMIT ?")
                 .with(trusted, trusted)
-                .and(offset, limit)
+                .and(accountID, limit)
                 .asList(con, reconstructor);
     }
     
     public int countByOwners(Connection con, Collection<OfflinePlayer> owners) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE owner_uuid IN (%s)")
+        return Query.of("SELECT COUNT(*) FROM ACCOUNT WHERE owner_uuid IN (%s)")
                 .in(owners, OfflinePlayer::getUniqueId)
                 .asOne(con, Integer.class);
     }
     
     public List<Account> findByOwners(Connection con, Set<OfflinePlayer> owners, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE owner_uuid IN (%s) ORDER BY account_id OFFSET ? ROWS LIMIT ?")
+        return Query.of("SELECT * FROM ACCOUNT WHERE owner_uuid IN (%s) ORDER BY account_id LIMIT ? OFFSET ?")
+                .in(owners, OfflinePlayer::getUniqueId)
+                .and(limit, offset)
+                .asList(con, reconstructor);
+    }
+    
+    public List<Account> findByOwnersAfter(Connection con, Set<OfflinePlayer> owners, int accountID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT WHERE owner_uuid IN (%s) AND account_id > ? ORDER BY account_id LIMIT ?")
                 .in(owners, OfflinePlayer::getUniqueId)
-                .with(offset, limit)
+                .and(accountID, limit)
                 .asList(con, reconstructor);
     }
     
     public Set<Account> findByOwners(Connection con, Collection<OfflinePlayer> owners) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE owner_uuid IN (%s)")
+        return Query.of("SELECT * FROM ACCOUNT WHERE owner_uuid IN (%s)")
                 .in(owners, OfflinePlayer::getUniqueId)
                 .asSet(con, reconstructor);
     }
     
     public int countByBank(Connection con, int bankID) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE bank_id = ?")
+        return Query.of("SELECT COUNT(*) FROM ACCOUNT WHERE bank_id = ?")
                 .with(bankID)
                 .asOne(con, Integer.class);
     }
     
+    public Set<Integer> findIDsByBank(Connection con, int bankID) throws SQLException {
+        return Query.of("SELECT account_id FROM ACCOUNT WHERE bank_id = ?")
+                .with(bankID)
+                .asSet(con, Integer.class);
+    }
+    
     public List<Account> findByBank(Connection con, int bankID, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE bank_id = ? ORDER BY account_id OFFSET ? ROWS LIMIT ?")
+        return Query.of("SELECT * FROM ACCOUNT WHERE bank_id = ? ORDER BY account_id LIMIT ? OFFSET ?")
                 .with(bankID)
-                .and(offset, limit)
+                .and(limit, offset)
+                .asList(con, reconstructor);
+    }
+    
+    public List<Account> findByBankAfter(Connection con, int bankID, int accountID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT WHERE bank_id = ? AND account_id > ? ORDER BY account_id LIMIT ?")
+                .with(bankID, accountID, limit)
                 .asList(con, reconstructor);
     }
     
     public Set<Account> findByBanks(Connection con, Collection<Integer> bankIDs) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE bank_id IN (%s)")
-                .in(bankIDs)
-                .asSet(con, reconstructor);
+        Set<Account> accounts = new HashSet<>();
+        for (List<Integer> partition : Query.partition(bankIDs))
+            accounts.addAll(Query.of("SELECT * FROM ACCOUNT WHERE bank_id IN (%s)")
+                    .in(partition)
+                    .asSet(con, reconstructor));
+        return accounts;
     }
     
     public int countByBankAndOwner(Connection con, int bankID, UUID ownerUUID) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE bank_id = ? AND owner_uuid = ?")
+        return Query.of("SELECT COUNT(*) FROM ACCOUNT WHERE bank_id = ? AND owner_uuid = ?")
                 .with(bankID, ownerUUID)
                 .asOne(con, Integer.class);
     }
     
-    public Account findAtChest(Connection con, Block chest) throws SQLException {
-        return Query.of("SELECT * FROM Account WHERE world = ? AND ? IN (x1, x2) AND ? = y AND ? IN (z1, z2)")
-                .with(chest.getWorld().getName(), chest.getX(), chest.getY(), chest.getZ())
-                .asOne(con, reconstructor);
-    }
-    
-    public boolean isAccount(Connection con, Block chest) throws SQLException {
-        return Query.of("SELECT COUNT(*) FROM Account WHERE world = ? AND ? IN (x1, x2) AND ? = y AND ? IN (z1, z2)")
-                .with(chest.getWorld().getName(), chest.getX(), chest.getY(), chest.getZ())
-                .asOne(con, Integer.class) > 0;
-    }
-    
-    public Set<Account> findAtChests(Connection con, Collection<Block> chests) throws SQLException {
-        String sql = "SELECT * FROM Account WHERE " + chests.stream()
-                .map(block -> "(world = ? AND ? IN (x1, x2) AND ? = y AND ? IN (z1, z2))")
-                .collect(Collectors.joining(" OR "));
-        List<Object> params = chests.stream()
-                .flatMap(block -> Stream.of(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()))
-                .collect(Collectors.toList());
-        return Query.of(sql)
-                .with(params)
-                .asSet(con, reconstructor);
-    }
-    
-    public int countAccountsAtChests(Connection con, Collection<Block> chests) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Account WHERE " + chests.stream()
-                .map(block -> "(world = ? AND ? IN (x1, x2) AND ? = y AND ? IN (z1, z2))")
-                .collect(Collectors.joining(" OR "));
-        List<Object> params = chests.stream()
-                .flatMap(block -> Stream.of(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()))
-                .collect(Collectors.toList());
-        return Query.of(sql)
-                .with(params)
-                .asOne(con, Integer.class);
-    }
-    
     private List<Object> deconstruct(Account account) {
         AccountLocation location = account.getLocation();
         return Arrays.asList(
                 account.getBank().getID(),
                 account.getOwner().getUniqueId(),
-                account.getBalance(),
-                account.getPreviousBalance(),
+                account.getBalance().toBigDecimal(),
+                account.getPreviousBalance().toBigDecimal(),
                 account.getInterestMultiplierStage(),
                 account.getRemainingOfflinePayouts(),
                 account.getCustomName(),
@@ -2,6 +2,7 @@ package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.entity.log.AccountTransaction;
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.Bukkit;
 
 import java.sql.Connection;
@@ -9,21 +10,25 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public class AccountTransactionRepository {
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS ACCOUNT_TRANSACTION("
-                        + "transaction_id INTEGER GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL PRIMARY KEY,"
-                        + "account_id INTEGER NOT NULL REFERENCES ACCOUNT(account_id),"
-                        + "bank_id INTEGER NOT NULL REFERENCES BANK(bank_id),"
-                        + "executor_uuid UUID NOT NULL,"
+                        + "transaction_id " + dialect.generatedPrimaryKey() + ","
+                        + "account_id INTEGER NOT NULL,"
+                        + "bank_id INTEGER NOT NULL,"
+                        + "executor_uuid " + dialect.uuidType() + " NOT NULL,"
                         + "previous_balance NUMERIC(16,2) NOT NULL,"
                         + "amount NUMERIC(16,2) NOT NULL,"
                         + "new_balance NUMERIC(16,2) NOT NULL,"
-                        + "timestamp TIMESTAMP NOT NULL)")
+                        + "timestamp TIMESTAMP NOT NULL,"
+                        + dialect.foreignKey("account_id", "ACCOUNT") + ","
+                        + dialect.foreignKey("bank_id", "BANK") + ")")
                 .executeUpdate(con);
     }
     
@@ -35,6 +40,15 @@ public class AccountTransactionRepository {
                 .executeUpdate(con);
     }
     
+    public void saveAll(Connection con, Collection<AccountTransaction> accountTransactions) throws SQLException {
+        Query.of("INSERT INTO ACCOUNT_TRANSACTION "
+                        + "(account_id, bank_id, executor_uuid, previous_balance, amount, new_balance, timestamp) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)")
+                .batch(accountTransactions)
+                .with(this::deconstruct)
+                .executeUpdate(con);
+    }
+    
     public int countByAccountID(Connection con, int accountID) throws SQLException {
         return Query.of("SELECT COUNT(*) FROM ACCOUNT_TRANSACTION WHERE account_id = ?")
                 .with(accountID)
@@ -43,8 +57,14 @@ public class AccountTransactionRepository {
     
     // findByAccountID returns promise
     public List<AccountTransaction> findByAccountID(Connection con, int accountID, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM ACCOUNT_TRANSACTION WHERE account_id = ? ORDER BY transaction_id OFFSET ? ROWS LIMIT ?")
-                .with(accountID, offset, limit)
+        return Query.of("SELECT * FROM ACCOUNT_TRANSACTION WHERE account_id = ? ORDER BY transaction_id LIMIT ? OFFSET ?")
+                .with(accountID, limit, offset)
+                .asList(con, this::reconstruct);
+    }
+    
+    public List<AccountTransaction> findByAccountIDAfter(Connection con, int accountID, int transactionID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM ACCOUNT_TRANSACTION WHERE account_id = ? AND transaction_id > ? ORDER BY transaction_id LIMIT ?")
+                .with(accountID, transactionID, limit)
                 .asList(con, this::reconstruct);
     }
     
@@ -72,7 +92,7 @@ public class AccountTransactionRepository {
                 rs.getTimestamp("timestamp").toInstant(),
                 rs.getInt("account_id"),
                 rs.getInt("bank_id"),
-                Bukkit.getOfflinePlayer(rs.getObject("executor_uuid", UUID.class)),
+                Bukkit.getOfflinePlayer(Dialect.current().getUUID(rs, "executor_uuid")),
                 rs.getBigDecimal("new_balance"),
                 rs.getBigDecimal("previous_balance"),
                 rs.getBigDecimal("amount")
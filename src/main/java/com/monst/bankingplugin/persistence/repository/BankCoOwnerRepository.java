@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 
@@ -11,10 +12,12 @@ import java.util.*;
 public class BankCoOwnerRepository {
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS CO_OWNS_BANK("
-                        + "co_owner_uuid UUID NOT NULL,"
-                        + "bank_id INTEGER NOT NULL REFERENCES BANK(bank_id),"
-                        + "PRIMARY KEY (bank_id, co_owner_uuid))")
+                        + "co_owner_uuid " + dialect.uuidType() + " NOT NULL,"
+                        + "bank_id INTEGER NOT NULL,"
+                        + "PRIMARY KEY (bank_id, co_owner_uuid),"
+                        + dialect.foreignKey("bank_id", "BANK") + ")")
                 .executeUpdate(con);
     }
     
@@ -38,15 +41,30 @@ public class BankCoOwnerRepository {
     }
     
     public void deleteAll(Connection con, Collection<Integer> bankIDs) throws SQLException {
-        Query.of("DELETE FROM CO_OWNS_BANK WHERE bank_id IN (%s)")
-                .in(bankIDs)
-                .executeUpdate(con);
+        for (List<Integer> partition : Query.partition(bankIDs))
+            Query.of("DELETE FROM CO_OWNS_BANK WHERE bank_id IN (%s)")
+                    .in(partition)
+                    .executeUpdate(con);
     }
     
-    public Set<OfflinePlayer> findByBank(Connection con, int bankID) throws SQLException {
-        return Query.of("SELECT co_owner_uuid FROM CO_OWNS_BANK WHERE bank_id = ?")
-                .with(bankID)
-                .asSet(con, UUID.class, Bukkit::getOfflinePlayer);
+    /**
+     * Finds the co-owners of many banks, with one query per {@link Query#MAX_IN_LIST_SIZE} banks.
+     * @return the co-owners of each bank, keyed by bank ID; banks without co-owners are absent
+     */
+    public Map<Integer, Set<OfflinePlayer>> findByBanks(Connection con, Collection<Integer> bankIDs) throws SQLException {
+        if (bankIDs.isEmpty())
+            return Collections.emptyMap();
+        Map<Integer, Set<OfflinePlayer>> coOwners = new HashMap<>();
+        for (List<Integer> partition : Query.partition(bankIDs)) {
+            List<Map.Entry<Integer, OfflinePlayer>> rows = Query
+                    .of("SELECT bank_id, co_owner_uuid FROM CO_OWNS_BANK WHERE bank_id IN (%s)")
+                    .in(partition)
+                    .asList(con, (rs, c) -> new AbstractMap.SimpleEntry<>(
+                            rs.getInt("bank_id"), Bukkit.getOfflinePlayer(Dialect.current().getUUID(rs, "co_owner_uuid"))));
+            for (Map.Entry<Integer, OfflinePlayer> row : rows)
+                coOwners.computeIfAbsent(row.getKey(), id -> new HashSet<>()).add(row.getValue());
+        }
+        return coOwners;
     }
     
 }
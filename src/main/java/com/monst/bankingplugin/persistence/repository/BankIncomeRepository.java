@@ -2,6 +2,7 @@ package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.entity.log.BankIncome;
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.Bukkit;
 
 import java.math.BigDecimal;
@@ -14,15 +15,17 @@ import java.util.*;
 public class BankIncomeRepository {
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS BANK_INCOME("
-                        + "income_id INTEGER GENERATED BY DEFAULT AS IDENTITY(START WITH 1) NOT NULL PRIMARY KEY,"
-                        + "bank_id INTEGER NOT NULL REFERENCES BANK(bank_id),"
-                        + "recipient_uuid UUID,"
+                        + "income_id " + dialect.generatedPrimaryKey() + ","
+                        + "bank_id INTEGER NOT NULL,"
+                        + "recipient_uuid " + dialect.uuidType() + ","
                         + "revenue NUMERIC(16,2) NOT NULL,"
                         + "interest NUMERIC(16,2) NOT NULL,"
                         + "low_balance_fees NUMERIC(16,2) NOT NULL,"
                         + "net_income NUMERIC(16,2) NOT NULL,"
-                        + "timestamp TIMESTAMP)")
+                        + "timestamp TIMESTAMP,"
+                        + dialect.foreignKey("bank_id", "BANK") + ")")
                 .executeUpdate(con);
     }
     
@@ -42,8 +45,14 @@ public class BankIncomeRepository {
     }
     
     public List<BankIncome> findByBankID(Connection con, int bankID, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM BANK_INCOME WHERE bank_id = ? ORDER BY income_id OFFSET ? ROWS LIMIT ?")
-                .with(bankID, offset, limit)
+        return Query.of("SELECT * FROM BANK_INCOME WHERE bank_id = ? ORDER BY income_id LIMIT ? OFFSET ?")
+                .with(bankID, limit, offset)
+                .asList(con, this::reconstruct);
+    }
+    
+    public List<BankIncome> findByBankIDAfter(Connection con, int bankID, int incomeID, int limit) throws SQLException {
+        return Query.of("SELECT * FROM BANK_INCOME WHERE bank_id = ? AND income_id > ? ORDER BY income_id LIMIT ?")
+                .with(bankID, incomeID, limit)
                 .asList(con, this::reconstruct);
     }
     
@@ -70,7 +79,7 @@ public class BankIncomeRepository {
                 rs.getInt("income_id"),
                 rs.getTimestamp("timestamp").toInstant(),
                 rs.getInt("bank_id"),
-                Optional.ofNullable(rs.getObject("recipient_uuid", UUID.class))
+                Optional.ofNullable(Dialect.current().getUUID(rs, "recipient_uuid"))
                         .map(Bukkit::getOfflinePlayer).orElse(null),
                 rs.getBigDecimal("revenue"),
                 rs.getBigDecimal("interest"),
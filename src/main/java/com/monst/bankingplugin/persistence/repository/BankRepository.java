@@ -6,9 +6,11 @@ import com.monst.bankingplugin.entity.geo.region.CuboidBankRegion;
 import com.monst.bankingplugin.entity.geo.region.PolygonalBankRegion;
 import com.monst.bankingplugin.persistence.Query;
 import com.monst.bankingplugin.persistence.Reconstructor;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalTime;
 import java.util.*;
 
 public class BankRepository {
@@ -20,10 +22,11 @@ public class BankRepository {
     }
     
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS BANK("
                         + "bank_id INTEGER NOT NULL PRIMARY KEY,"
                         + "name VARCHAR(255) NOT NULL UNIQUE,"
-                        + "owner_uuid UUID,"
+                        + "owner_uuid " + dialect.uuidType() + ","
                         + "interest_rate NUMERIC(8,4),"
                         + "account_creation_price NUMERIC(16,2),"
                         + "minimum_balance NUMERIC(16,2),"
@@ -34,8 +37,8 @@ public class BankRepository {
                         + "player_bank_account_limit INTEGER,"
                         + "reimburse_account_creation BOOLEAN,"
                         + "pay_on_low_balance BOOLEAN,"
-                        + "interest_multipliers INTEGER ARRAY,"
-                        + "interest_payout_times TIME ARRAY,"
+                        + "interest_multipliers " + dialect.arrayType("INTEGER") + ","
+                        + "interest_payout_times " + dialect.arrayType("TIME") + ","
                         + "world VARCHAR(32) NOT NULL,"
                         + "min_x INTEGER,"
                         + "min_y INTEGER NOT NULL,"
@@ -43,12 +46,12 @@ public class BankRepository {
                         + "max_x INTEGER,"
                         + "max_y INTEGER NOT NULL,"
                         + "max_z INTEGER,"
-                        + "points_x INTEGER ARRAY,"
-                        + "points_z INTEGER ARRAY)"
+                        + "points_x " + dialect.arrayType("INTEGER") + ","
+                        + "points_z " + dialect.arrayType("INTEGER") + ")"
                 ).executeUpdate(con);
-        Query.of("ALTER TABLE BANK ADD CONSTRAINT IF NOT EXISTS VERTEX_CHECK "
-                        + "CHECK (CARDINALITY(points_x) = CARDINALITY(points_z))")
-                .executeUpdate(con);
+        if (dialect.cardinality("points_x") != null)
+            dialect.addCheckConstraint(con, "BANK", "VERTEX_CHECK",
+                    dialect.cardinality("points_x") + " = " + dialect.cardinality("points_z"));
     }
 
     public void save(Connection con, Bank bank) throws SQLException {
@@ -70,6 +73,19 @@ public class BankRepository {
                 .executeUpdate(con);
     }
     
+    public void updateAll(Connection con, Collection<Bank> banks) throws SQLException {
+        Query.of("UPDATE BANK SET name = ?, owner_uuid = ?, interest_rate = ?, account_creation_price = ?, "
+                        + "minimum_balance = ?, low_balance_fee = ?, allowed_offline_payouts = ?, "
+                        + "offline_multiplier_decrement = ?, withdrawal_multiplier_decrement = ?, "
+                        + "player_bank_account_limit = ?, reimburse_account_creation = ?, pay_on_low_balance = ?, "
+                        + "interest_multipliers = ?, interest_payout_times = ?, world = ?, min_x = ?, min_y = ?, min_z = ?, "
+                        + "max_x = ?, max_y = ?, max_z = ?, points_x = ?, points_z = ? WHERE bank_id = ?")
+                .batch(banks)
+                .with(this::deconstruct)
+                .and(Bank::getID)
+                .executeUpdate(con);
+    }
+    
     public void delete(Connection con, int bankID) throws SQLException {
         Query.of("DELETE FROM BANK WHERE bank_id = ?")
                 .with(bankID)
@@ -77,9 +93,10 @@ public class BankRepository {
     }
     
     public void deleteAll(Connection con, Collection<Integer> bankIDs) throws SQLException {
-        Query.of("DELETE FROM BANK WHERE bank_id IN (%s)")
-                .in(bankIDs)
-                .executeUpdate(con);
+        for (List<Integer> partition : Query.partition(bankIDs))
+            Query.of("DELETE FROM BANK WHERE bank_id IN (%s)")
+                    .in(partition)
+                    .executeUpdate(con);
     }
     
     public int count(Connection con) throws SQLException {
@@ -93,17 +110,29 @@ public class BankRepository {
     }
     
     public List<Bank> findAll(Connection con, int offset, int limit) throws SQLException {
-        return Query.of("SELECT * FROM BANK OFFSET ? ROWS LIMIT ?")
-                .with(offset, limit)
+        return Query.of("SELECT * FROM BANK LIMIT ? OFFSET ?")
+                .with(limit, offset)
                 .asList(con, reconstructor);
     }
     
+    public Set<Bank> findByWorld(Connection con, String world) throws SQLException {
+        return Query.of("SELECT * FROM BANK WHERE world = ?")
+                .with(world)
+                .asSet(con, reconstructor);
+    }
+    
     public Bank findByID(Connection con, int bankID) throws SQLException {
         return Query.of("SELECT * FROM BANK WHERE bank_id = ?")
                 .with(bankID)
                 .asOne(con, reconstructor);
     }
     
+    public boolean exists(Connection con, int bankID) throws SQLException {
+        return Query.of("SELECT COUNT(*) FROM BANK WHERE bank_id = ?")
+                .with(bankID)
+                .asOne(con, Integer.class) > 0;
+    }
+    
     // TODO: Test color codes and case sensitivity
     public Bank findByName(Connection con, String name) throws SQLException {
         return Query.of("SELECT * FROM BANK WHERE name = ?")
@@ -122,12 +151,6 @@ public class BankRepository {
                 .asSet(con, reconstructor);
     }
     
-    public Set<Bank> findByWorld(Connection con, String worldName) throws SQLException {
-        return Query.of("SELECT * FROM BANK WHERE world = ?")
-                .with(worldName)
-                .asSet(con, reconstructor);
-    }
-    
     public int countByOwner(Connection con, UUID owner) throws SQLException {
         return Query.of("SELECT COUNT(*) FROM BANK WHERE owner_uuid = ?")
                 .with(owner)
@@ -189,8 +212,8 @@ public class BankRepository {
                 bank.getPlayerBankAccountLimit(),
                 bank.reimbursesAccountCreation(),
                 bank.paysOnLowBalance(),
-                bank.getInterestMultipliers() == null ? null : bank.getInterestMultipliers().toArray(),
-                bank.getInterestPayoutTimes() == null ? null : bank.getInterestPayoutTimes().toArray(),
+                bank.getInterestMultipliers() == null ? null : bank.getInterestMultipliers().toArray(new Integer[0]),
+                bank.getInterestPayoutTimes() == null ? null : bank.getInterestPayoutTimes().toArray(new LocalTime[0]),
                 region.getWorld().getName(),
                 region instanceof CuboidBankRegion ? region.getMinX() : null,
                 region.getMinY(),
@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.persistence.repository;
 
 import com.monst.bankingplugin.persistence.Query;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import org.bukkit.OfflinePlayer;
 
 import java.sql.Connection;
@@ -13,29 +14,18 @@ import java.util.UUID;
 
 public class LastSeenRepository {
     
+    private static final String DELETE_UNUSED = "DELETE FROM LAST_SEEN "
+            + "WHERE player_uuid NOT IN (SELECT DISTINCT owner_uuid FROM BANK WHERE owner_uuid IS NOT NULL) "
+            + "AND player_uuid NOT IN (SELECT DISTINCT owner_uuid FROM ACCOUNT)";
+    
     public void createTable(Connection con) throws SQLException {
+        Dialect dialect = Dialect.current();
         Query.of("CREATE TABLE IF NOT EXISTS LAST_SEEN("
-                        + "player_uuid UUID NOT NULL PRIMARY KEY,"
+                        + "player_uuid " + dialect.uuidType() + " NOT NULL PRIMARY KEY,"
                         + "timestamp TIMESTAMP NOT NULL)")
                 .executeUpdate(con);
-        
-        Query.of("DROP TRIGGER IF EXISTS LAST_SEEN_CLEAR_UNUSED_ACCOUNT")
-                .executeUpdate(con);
-        Query.of("DROP TRIGGER IF EXISTS LAST_SEEN_CLEAR_UNUSED_BANK")
-                .executeUpdate(con);
-        Query.of("DROP PROCEDURE IF EXISTS clear_unused_last_seen")
-                .executeUpdate(con);
-        
-        Query.of("CREATE PROCEDURE clear_unused_last_seen() MODIFIES SQL DATA BEGIN ATOMIC "
-                        + "DELETE FROM LAST_SEEN "
-                            + "WHERE player_uuid NOT IN (SELECT DISTINCT owner_uuid FROM BANK WHERE owner_uuid IS NOT NULL) "
-                            + "AND player_uuid NOT IN (SELECT DISTINCT owner_uuid FROM ACCOUNT); "
-                        + "END")
-                .executeUpdate(con);
-        Query.of("CREATE TRIGGER LAST_SEEN_CLEAR_UNUSED_ACCOUNT AFTER DELETE ON BANK CALL clear_unused_last_seen()")
-                .executeUpdate(con);
-        Query.of("CREATE TRIGGER LAST_SEEN_CLEAR_UNUSED_BANK AFTER DELETE ON BANK CALL clear_unused_last_seen()")
-                .executeUpdate(con);
+        dialect.createDeleteTrigger(con, "LAST_SEEN_CLEAR_UNUSED_ACCOUNT", "ACCOUNT", DELETE_UNUSED);
+        dialect.createDeleteTrigger(con, "LAST_SEEN_CLEAR_UNUSED_BANK", "BANK", DELETE_UNUSED);
     }
     
     public Instant getLastSeenTime(Connection con, UUID uuid) throws SQLException {
@@ -65,7 +55,7 @@ public class LastSeenRepository {
     }
     
     public void deleteUnused(Connection con) throws SQLException {
-        Query.of("CALL clear_unused_last_seen()").executeUpdate(con);
+        Query.of(DELETE_UNUSED).executeUpdate(con);
     }
     
 }
@@ -9,17 +9,20 @@ import com.monst.bankingplugin.util.Promise;
 import org.bukkit.OfflinePlayer;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class AccountInterestService extends Service {
     
     private final AccountInterestRepository repo;
     
-    public AccountInterestService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
+    public AccountInterestService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
         this.repo = new AccountInterestRepository();
     }
     
@@ -32,14 +35,22 @@ public class AccountInterestService extends Service {
         transact(con -> repo.saveAll(con, accountInterests));
     }
     
-    public int countByAccount(Account account) {
-        return query(con -> repo.countByAccountID(con, account.getID())).orElse(0);
+    void saveAll(Connection con, Collection<AccountInterest> accountInterests) throws SQLException {
+        repo.saveAll(con, accountInterests);
+    }
+    
+    public Promise<Integer> countByAccount(Account account) {
+        return async(con -> repo.countByAccountID(con, account.getID()));
     }
     
     public Promise<List<AccountInterest>> findByAccount(Account account, int offset, int limit) {
         return async(con -> repo.findByAccountID(con, account.getID(), offset, limit));
     }
     
+    public Promise<List<AccountInterest>> findByAccountAfter(Account account, AccountInterest last, int limit) {
+        return async(con -> repo.findByAccountIDBefore(con, account.getID(), last.getID(), limit));
+    }
+    
     public Promise<BigDecimal> findTotalInterestEarnedByPlayerSince(OfflinePlayer player, Instant lastSeen) {
         return async(con -> repo.getTotalInterestEarnedByPlayerSince(con, player.getUniqueId(), Timestamp.from(lastSeen)));
     }
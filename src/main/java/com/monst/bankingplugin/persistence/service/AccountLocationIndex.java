@@ -0,0 +1,74 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.entity.Account;
+import com.monst.bankingplugin.entity.geo.location.AccountLocation;
+import org.bukkit.block.Block;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of the chests occupied by accounts, keyed by world name and packed block coordinates.
+ * The index is authoritative: it is filled with every account when the database is opened, with the accounts of
+ * each world that is loaded later, and kept up to date on every write, so a lookup that misses here means there is
+ * no account at that block.
+ */
+class AccountLocationIndex {
+
+    private final Map<String, Map<Long, Account>> accountsByWorld = new ConcurrentHashMap<>();
+    private final Map<Integer, AccountLocation> indexedLocations = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the account to the index at its current location, replacing any location it was previously indexed at.
+     * @param account the account to index
+     */
+    void put(Account account) {
+        remove(account);
+        AccountLocation location = account.getLocation();
+        if (location.getWorld() == null) // World is not loaded; the account is indexed again when it is
+            return;
+        Map<Long, Account> blocks = accountsByWorld.computeIfAbsent(location.getWorld().getName(),
+                world -> new ConcurrentHashMap<>());
+        blocks.put(pack(location.getMinX(), location.getY(), location.getMinZ()), account);
+        blocks.put(pack(location.getMaxX(), location.getY(), location.getMaxZ()), account);
+        indexedLocations.put(account.getID(), location);
+    }
+
+    /**
+     * Removes the account from the location it was last indexed at.
+     * @param account the account to remove
+     */
+    void remove(Account account) {
+        AccountLocation location = indexedLocations.remove(account.getID());
+        if (location == null)
+            return;
+        Map<Long, Account> blocks = accountsByWorld.getOrDefault(location.getWorld().getName(), Collections.emptyMap());
+        blocks.remove(pack(location.getMinX(), location.getY(), location.getMinZ()), account);
+        blocks.remove(pack(location.getMaxX(), location.getY(), location.getMaxZ()), account);
+    }
+
+    Account get(Block block) {
+        Map<Long, Account> blocks = accountsByWorld.get(block.getWorld().getName());
+        if (blocks == null)
+            return null;
+        return blocks.get(pack(block.getX(), block.getY(), block.getZ()));
+    }
+
+    boolean contains(Block block) {
+        return get(block) != null;
+    }
+
+    void clear() {
+        accountsByWorld.clear();
+        indexedLocations.clear();
+    }
+
+    /**
+     * Packs a block position into a single long, with 26 bits for each of x and z and 12 bits for y.
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+}
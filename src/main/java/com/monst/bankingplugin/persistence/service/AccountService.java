@@ -1,25 +1,32 @@
 package com.monst.bankingplugin.persistence.service;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.entity.Account;
 import com.monst.bankingplugin.entity.Bank;
 import com.monst.bankingplugin.entity.geo.location.AccountLocation;
 import com.monst.bankingplugin.persistence.ConnectionSupplier;
+import com.monst.bankingplugin.persistence.Reconstructor;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import com.monst.bankingplugin.persistence.repository.AccountCoOwnerRepository;
 import com.monst.bankingplugin.persistence.repository.AccountRepository;
+import com.monst.bankingplugin.util.DebugCategory;
+import com.monst.bankingplugin.util.Money;
 import com.monst.bankingplugin.util.Observable;
 import com.monst.bankingplugin.util.Observer;
 import com.monst.bankingplugin.util.Promise;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.plugin.IllegalPluginAccessException;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class AccountService extends Service implements Observable {
@@ -29,14 +36,39 @@ public class AccountService extends Service implements Observable {
     private final AccountRepository accountRepo;
     private final AccountCoOwnerRepository coOwnerRepo;
     
-    private final Cache<Integer, Account> accountsById = CacheBuilder.newBuilder().softValues().build();
-    private final Cache<Block, Account> accountsByBlock = CacheBuilder.newBuilder().softValues().build();
+    /**
+     * Every account that has been loaded from the database, so that each account is only ever represented by one object.
+     * Entries are only removed explicitly, when the account is deleted or the store is invalidated.
+     */
+    private final Map<Integer, Account> accountsById = new ConcurrentHashMap<>();
+    private final WriteBehindBuffer<Account> unsavedAccounts = new WriteBehindBuffer<>();
+    /**
+     * Accounts that have been read from the database but are not published in {@link #accountsById} and the location
+     * index until their co-owners have been loaded, so that no account is ever seen without its co-owners.
+     */
+    private final LoadingEntities<Account> loading = new LoadingEntities<>();
+    private final AccountLocationIndex locationIndex = new AccountLocationIndex();
     
     private final Set<Observer> observers;
 
-    public AccountService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
-        this.accountRepo = new AccountRepository(this::reconstruct); // Caching is done in this method
+    public AccountService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
+        this.accountRepo = new AccountRepository(new Reconstructor<Account>() { // Caching is done here
+            @Override
+            public Account reconstruct(ResultSet resultSet, Connection con) throws SQLException {
+                return AccountService.this.reconstruct(resultSet);
+            }
+            
+            @Override
+            public void completeAll(Collection<Account> accounts, Connection con) throws SQLException {
+                complete(accounts, con);
+            }
+            
+            @Override
+            public void failAll(Collection<Account> accounts, SQLException e) {
+                loading.failed(accounts, e);
+            }
+        });
         this.coOwnerRepo = new AccountCoOwnerRepository();
         this.observers = new HashSet<>();
     }
@@ -57,7 +89,7 @@ public class AccountService extends Service implements Observable {
     }
     
     public void save(Account account) {
-        plugin.debug("Saving account %s to the database.", account);
+        plugin.debug(DebugCategory.PERSISTENCE, "Saving account %s to the database.", account);
         transact(con -> {
             accountRepo.save(con, account);
             if (account.hasCoOwners())
@@ -66,20 +98,64 @@ public class AccountService extends Service implements Observable {
         cache(account);
     }
 
+    /**
+     * Writes the changes to an account to the database, either immediately or with the next flush
+     * if a {@link com.monst.bankingplugin.configuration.values.DatabaseFlushInterval flush interval} is set.
+     */
     public void update(Account account) {
-        plugin.debug("Updating account in the database: " + account);
+        locationIndex.put(account); // Location may have changed
+        if (plugin.config().databaseFlushInterval.get().filter(seconds -> seconds > 0).isPresent()) {
+            unsavedAccounts.add(account);
+            return;
+        }
+        plugin.debug(DebugCategory.PERSISTENCE, "Updating account in the database: %s", account);
         transact(con -> accountRepo.update(con, account));
     }
 
+    /**
+     * Writes all accounts that have changed since the last flush to the database in a single batch.
+     * This may be called from any thread.
+     */
+    public void flush() {
+        if (unsavedAccounts.isEmpty())
+            return;
+        List<Account> accounts = unsavedAccounts.drain();
+        plugin.debug(DebugCategory.PERSISTENCE, "Flushing %d changed accounts to the database.", accounts.size());
+        if (transact(con -> accountRepo.updateAll(con, accounts)))
+            unsavedAccounts.flushed(accounts);
+        else
+            unsavedAccounts.failed(accounts); // Retried with the next flush
+    }
+
+    /**
+     * Writes any pending changes and then forgets every loaded account, so that they are read from the database again.
+     * This must be called whenever the database is (re)opened.
+     */
+    public void invalidateAll() {
+        flush();
+        accountsById.clear();
+        loading.clear();
+        locationIndex.clear();
+    }
+
     public void updateAll(Collection<Account> accounts) {
-        for (Account account : accounts)
-            plugin.debug("Updating account in the database: " + account);
+        if (plugin.isDebugEnabled(DebugCategory.PERSISTENCE, Level.FINEST))
+            for (Account account : accounts)
+                plugin.debug(DebugCategory.PERSISTENCE, Level.FINEST, "Updating account in the database: %s", account);
         transact(con -> accountRepo.updateAll(con, accounts));
     }
+    
+    void updateAll(Connection con, Collection<Account> accounts) throws SQLException {
+        accountRepo.updateAll(con, accounts);
+    }
+    
+    Set<Integer> findIDsByBank(Connection con, Bank bank) throws SQLException {
+        return accountRepo.findIDsByBank(con, bank.getID());
+    }
 
     public void remove(Account account) {
         int accountID = account.getID();
-        plugin.debug("Deleting account from the database: " + account);
+        plugin.debug(DebugCategory.PERSISTENCE, "Deleting account from the database: %s", account);
         transact(con -> {
             coOwnerRepo.delete(con, accountID); // Delete co-owners first to avoid violating referential integrity
             accountRepo.delete(con, accountID);
@@ -89,7 +165,7 @@ public class AccountService extends Service implements Observable {
     
     public void removeAll(Collection<Account> accounts) {
         Set<Integer> accountIDs = accounts.stream().map(Account::getID).collect(Collectors.toSet());
-        plugin.debug("Deleting accounts with IDs %s from the database.", accountIDs);
+        plugin.debug(DebugCategory.PERSISTENCE, "Deleting accounts with IDs %s from the database.", accountIDs);
         transact(con -> {
             coOwnerRepo.deleteAll(con, accountIDs); // Delete co-owners first to avoid violating referential integrity
             accountRepo.deleteAll(con, accountIDs);
@@ -102,68 +178,83 @@ public class AccountService extends Service implements Observable {
     }
 
     public Set<Account> findAll() {
-        plugin.debug("Fetching all accounts from the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all accounts from the database.");
         return query(accountRepo::findAll).orElse(Collections.emptySet());
     }
     
     public Promise<List<Account>> findAll(int offset, int limit) {
-        plugin.debug("Fetching all accounts from the database asynchronously.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all accounts from the database asynchronously.");
         return async(con -> accountRepo.findAll(con, offset, limit));
     }
 
     public int countByOwner(OfflinePlayer owner) {
-        plugin.debug("Counting accounts owned by %s in the database.", owner.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting accounts owned by %s in the database.", owner.getName());
         return query(con -> accountRepo.countByOwner(con, owner.getUniqueId())).orElse(0);
     }
     
     public Promise<Integer> countByTrustedPlayer(OfflinePlayer trusted) {
-        plugin.debug("Counting accounts where %s is trusted in the database asynchronously.", trusted.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting accounts where %s is trusted in the database asynchronously.", trusted.getName());
         return async(con -> accountRepo.countByTrustedPlayer(con, trusted.getUniqueId()));
     }
     
     public Promise<List<Account>> findByTrustedPlayer(OfflinePlayer trusted, int offset, int limit) {
-        plugin.debug("Fetching accounts where %s is trusted from the database.", trusted.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts where %s is trusted from the database.", trusted.getName());
         return async(con -> accountRepo.findByTrustedPlayer(con, trusted.getUniqueId(), offset, limit));
     }
     
+    public Promise<List<Account>> findByTrustedPlayerAfter(OfflinePlayer trusted, Account last, int limit) {
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts where %s is trusted after %s from the database.", trusted.getName(), last);
+        return async(con -> accountRepo.findByTrustedPlayerAfter(con, trusted.getUniqueId(), last.getID(), limit));
+    }
+    
     public Promise<Integer> countByOwners(Collection<OfflinePlayer> owners) {
-        plugin.debug("Counting accounts owned by %s in the database.", owners);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting accounts owned by %s in the database.", owners);
         return async(con -> accountRepo.countByOwners(con, owners));
     }
     
     public Promise<List<Account>> findByOwners(Set<OfflinePlayer> owners, int offset, int limit) {
-        plugin.debug("Fetching accounts owned by %s from the database asynchronously.", owners);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts owned by %s from the database asynchronously.", owners);
         return async(con -> accountRepo.findByOwners(con, owners, offset, limit));
     }
+    
+    public Promise<List<Account>> findByOwnersAfter(Set<OfflinePlayer> owners, Account last, int limit) {
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts owned by %s after %s from the database asynchronously.", owners, last);
+        return async(con -> accountRepo.findByOwnersAfter(con, owners, last.getID(), limit));
+    }
 
     public Set<Account> findByOwners(Collection<OfflinePlayer> owners) {
-        plugin.debug("Fetching accounts owned by %s from the database.", owners);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts owned by %s from the database.", owners);
         return query(con -> accountRepo.findByOwners(con, owners)).orElse(Collections.emptySet());
     }
     
     public Promise<Integer> countByBank(Bank bank) {
-        plugin.debug("Counting accounts at bank %s in the database asynchronously.", bank);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting accounts at bank %s in the database asynchronously.", bank);
         return async(con -> accountRepo.countByBank(con, bank.getID()));
     }
     
     public Promise<List<Account>> findByBank(Bank bank, int offset, int limit) {
-        plugin.debug("Fetching accounts at bank %s from the database asynchronously.", bank);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts at bank %s from the database asynchronously.", bank);
         return async(con -> accountRepo.findByBank(con, bank.getID(), offset, limit));
     }
+    
+    public Promise<List<Account>> findByBankAfter(Bank bank, Account last, int limit) {
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts at bank %s after %s from the database asynchronously.", bank, last);
+        return async(con -> accountRepo.findByBankAfter(con, bank.getID(), last.getID(), limit));
+    }
 
     public Set<Account> findByBanks(Collection<Bank> banks) {
-        plugin.debug("Fetching accounts at banks %s from the database.", banks);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching accounts at banks %s from the database.", banks);
         return query(con -> accountRepo.findByBanks(con, banks.stream().map(Bank::getID).collect(Collectors.toList())))
                 .orElse(Collections.emptySet());
     }
     
     public int countByBankAndOwner(Bank bank, OfflinePlayer owner) {
-        plugin.debug("Counting accounts at bank %s owned by %s in the database.", bank, owner.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting accounts at bank %s owned by %s in the database.", bank, owner.getName());
         return query(con -> accountRepo.countByBankAndOwner(con, bank.getID(), owner.getUniqueId())).orElse(0);
     }
 
     public Promise<List<Account>> findAllMissing(int offset, int limit) {
-        plugin.debug("Fetching all missing accounts from the database asynchronously.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all missing accounts from the database asynchronously.");
         return async(con -> accountRepo.findAll(con).stream()
                 .filter(account -> !account.getLocation().findChest().isPresent())
                 .skip(offset)
@@ -171,9 +262,35 @@ public class AccountService extends Service implements Observable {
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Loads every account from the database into the location index.
+     * This must be called whenever the database is (re)opened, before any chest lookups are made.
+     */
+    public void loadLocationIndex() {
+        locationIndex.clear();
+        Set<Account> accounts = findAll();
+        accounts.forEach(locationIndex::put);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Indexed the locations of %d accounts.", accounts.size());
+    }
+
+    /**
+     * Reads the accounts in a world that has just been loaded, so that accounts which were read from the database
+     * before the world was loaded get their location and are added to the location index.
+     * @param world the world that was loaded
+     */
+    public void loadWorld(World world) {
+        Set<Account> accounts = query(con -> accountRepo.findByWorld(con, world.getName())).orElse(Collections.emptySet());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Indexed the locations of %d accounts in world %s.",
+                accounts.size(), world.getName());
+    }
+
+    /**
+     * Finds the account at the given chest from the location index. This does not query the database.
+     * @param chest the chest block
+     * @return the account at the chest, or null if there is none
+     */
     public Account findAtChest(Block chest) {
-        plugin.debug("Fetching account at chest %s from the database.", chest);
-        return query(con -> accountRepo.findAtChest(con, chest)).orElse(null);
+        return locationIndex.get(chest);
     }
     
     /**
@@ -182,12 +299,17 @@ public class AccountService extends Service implements Observable {
      * @return whether the given block is an account
      */
     public boolean isAccount(Block block) {
-        return query(con -> accountRepo.isAccount(con, block)).orElse(false);
+        return locationIndex.contains(block);
     }
 
     public Set<Account> findAtBlocks(Collection<Block> chests) {
-        plugin.debug("Fetching accounts at chests %s from the database.", chests);
-        return query(con -> accountRepo.findAtChests(con, chests)).orElse(Collections.emptySet());
+        Set<Account> accounts = new HashSet<>();
+        for (Block chest : chests) {
+            Account account = locationIndex.get(chest);
+            if (account != null)
+                accounts.add(account);
+        }
+        return accounts;
     }
 
     /**
@@ -196,32 +318,90 @@ public class AccountService extends Service implements Observable {
      * @return whether any of the given blocks are accounts
      */
     public boolean isAnyAccount(Collection<Block> blocks) {
-        // If cache contains any of the blocks, then it's an account
-        return query(con -> accountRepo.countAccountsAtChests(con, blocks)).orElse(0) > 0;
+        for (Block block : blocks)
+            if (locationIndex.contains(block))
+                return true;
+        return false;
     }
 
-    private Account reconstruct(ResultSet rs, Connection con) throws SQLException {
+    private Account reconstruct(ResultSet rs) throws SQLException {
         int accountID = rs.getInt("account_id");
-        Account cached = accountsById.getIfPresent(accountID);
+        // Loading is checked first, since an account is published before it is removed from there
+        Account cached = loading.get(accountID); // Completed by the thread that is loading it
         if (cached != null)
             return cached;
+        cached = accountsById.get(accountID);
+        if (cached != null) {
+            if (cached.getLocation().getWorld() == null && Bukkit.getWorld(rs.getString("world")) != null) {
+                // The world was not loaded yet when the account was first read
+                cached.setLocation(reconstructLocation(rs));
+                locationIndex.put(cached);
+            }
+            return cached;
+        }
         Bank bank = bankService.findByID(rs.getInt("bank_id"));
         Account account = new Account(
                 accountID,
                 bank,
-                Bukkit.getOfflinePlayer(rs.getObject("owner_uuid", UUID.class)),
-                coOwnerRepo.findByAccount(con, accountID),
+                Bukkit.getOfflinePlayer(Dialect.current().getUUID(rs, "owner_uuid")),
+                new HashSet<>(), // Co-owners are loaded for all new accounts in the result set at once
                 reconstructLocation(rs),
-                rs.getBigDecimal("balance"),
-                rs.getBigDecimal("previous_balance"),
+                Money.of(rs.getBigDecimal("balance")),
+                Money.of(rs.getBigDecimal("previous_balance")),
                 rs.getInt("multiplier_stage"),
                 rs.getInt("remaining_offline_payouts"),
                 rs.getString("custom_name")
         );
-        bank.addAccount(account);
-        cache(account);
+        cached = loading.register(account);
+        if (cached != account) // Reconstructed concurrently on another thread
+            return cached;
+        cached = accountsById.get(accountID);
+        if (cached != null) { // Published by another thread in the meantime
+            loading.discard(account);
+            return cached;
+        }
         return account;
     }
+    
+    /**
+     * Loads the co-owners of the accounts that this thread read first, and publishes them. Then waits for the accounts
+     * that other threads read first to be published, so that none of them is returned before its co-owners are loaded.
+     */
+    private void complete(Collection<Account> accounts, Connection con) throws SQLException {
+        Map<Integer, Account> incomplete = loading.ownedBy(accounts);
+        if (!incomplete.isEmpty()) {
+            try {
+                coOwnerRepo.findByAccounts(con, incomplete.keySet()).forEach((accountID, coOwners) ->
+                        coOwners.forEach(incomplete.get(accountID)::trustPlayer));
+            } catch (SQLException e) {
+                loading.failed(incomplete.values(), e); // Read again by the next query
+                throw e;
+            }
+            for (Account account : incomplete.values()) {
+                accountsById.put(account.getID(), account);
+                locationIndex.put(account);
+                loading.published(account);
+            }
+            addToBanks(incomplete.values());
+        }
+        loading.awaitAll(accounts);
+    }
+
+    /**
+     * Adds newly loaded accounts to their banks on the main thread, since the main thread reads the accounts and
+     * statistics of a bank without synchronization.
+     */
+    private void addToBanks(Collection<Account> accounts) {
+        if (Bukkit.isPrimaryThread()) {
+            accounts.forEach(account -> account.getBank().addAccount(account));
+            return;
+        }
+        try {
+            Bukkit.getScheduler().runTask(plugin, () -> accounts.forEach(account -> account.getBank().addAccount(account)));
+        } catch (IllegalPluginAccessException ignored) {
+            // The plugin is being disabled
+        }
+    }
 
     private AccountLocation reconstructLocation(ResultSet rs) throws SQLException {
         return AccountLocation.fromDatabase(
@@ -236,14 +416,13 @@ public class AccountService extends Service implements Observable {
     
     private void cache(Account account) {
         accountsById.put(account.getID(), account);
-        for (Block block : account.getLocation())
-            accountsByBlock.put(block, account);
+        locationIndex.put(account);
     }
     
-    private void uncache(Account account) {
-        accountsById.invalidate(account.getID());
-        for (Block block : account.getLocation())
-            accountsByBlock.invalidate(block);
+    void uncache(Account account) {
+        accountsById.remove(account.getID());
+        locationIndex.remove(account);
+        unsavedAccounts.remove(account);
     }
 
 }
@@ -10,14 +10,18 @@ import com.monst.bankingplugin.util.Promise;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class AccountTransactionService extends Service {
     
     private final AccountTransactionRepository repo;
+    private final TransactionJournal journal;
     
-    public AccountTransactionService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
+    public AccountTransactionService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
         this.repo = new AccountTransactionRepository();
+        this.journal = new TransactionJournal(plugin, plugin.getDataFolder().toPath().resolve("transaction-journal.log"),
+                transactions -> transactOrThrow(con -> repo.saveAll(con, transactions)));
     }
     
     @Override
@@ -25,18 +29,45 @@ public class AccountTransactionService extends Service {
         execute(repo::createTable);
     }
     
+    /**
+     * Saves the transaction to the database, either immediately or with the next flush
+     * if a {@link com.monst.bankingplugin.configuration.values.DatabaseFlushInterval flush interval} is set.
+     * Transactions waiting for a flush are kept in a journal file and are not lost if the server stops.
+     */
     public void save(AccountTransaction accountTransaction) {
-        execute(con -> repo.save(con, accountTransaction));
+        if (plugin.config().databaseFlushInterval.get().filter(seconds -> seconds > 0).isPresent())
+            journal.append(accountTransaction);
+        else
+            execute(con -> repo.save(con, accountTransaction));
     }
     
-    public int countByAccount(Account account) {
-        return query(con -> repo.countByAccountID(con, account.getID())).orElse(0);
+    /**
+     * Inserts all transactions waiting in the journal into the database in batches.
+     * This may be called from any thread.
+     */
+    public void flush() {
+        journal.flush();
+    }
+    
+    /**
+     * Inserts any transactions left in the journal file by a previous run that stopped before they were saved.
+     */
+    public void recoverJournal() {
+        journal.recover();
+    }
+    
+    public Promise<Integer> countByAccount(Account account) {
+        return async(con -> repo.countByAccountID(con, account.getID()));
     }
     
     public Promise<List<AccountTransaction>> findByAccount(Account account, int offset, int limit) {
         return async(con -> repo.findByAccountID(con, account.getID(), offset, limit));
     }
     
+    public Promise<List<AccountTransaction>> findByAccountAfter(Account account, AccountTransaction last, int limit) {
+        return async(con -> repo.findByAccountIDAfter(con, account.getID(), last.getID(), limit));
+    }
+    
     public void deleteBefore(Instant oldest) {
         transact(con -> repo.deleteBefore(con, Timestamp.from(oldest)));
     }
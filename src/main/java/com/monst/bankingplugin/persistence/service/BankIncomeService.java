@@ -9,17 +9,20 @@ import com.monst.bankingplugin.util.Promise;
 import org.bukkit.OfflinePlayer;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class BankIncomeService extends Service {
     
     private final BankIncomeRepository repo;
     
-    public BankIncomeService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
+    public BankIncomeService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
         this.repo = new BankIncomeRepository();
     }
     
@@ -32,14 +35,22 @@ public class BankIncomeService extends Service {
         execute(con -> repo.saveAll(con, bankIncomes));
     }
     
-    public int countByBank(Bank bank) {
-        return query(con -> repo.countByBankID(con, bank.getID())).orElse(0);
+    void saveAll(Connection con, Collection<BankIncome> bankIncomes) throws SQLException {
+        repo.saveAll(con, bankIncomes);
+    }
+    
+    public Promise<Integer> countByBank(Bank bank) {
+        return async(con -> repo.countByBankID(con, bank.getID()));
     }
     
     public Promise<List<BankIncome>> findByBank(Bank bank, int offset, int limit) {
         return async(con -> repo.findByBankID(con, bank.getID(), offset, limit));
     }
     
+    public Promise<List<BankIncome>> findByBankAfter(Bank bank, BankIncome last, int limit) {
+        return async(con -> repo.findByBankIDAfter(con, bank.getID(), last.getID(), limit));
+    }
+    
     public Promise<BigDecimal> findTotalProfitOrLossByPlayerSince(OfflinePlayer player, Instant lastSeen) {
         return async(con -> repo.getTotalProfitOrLossByPlayerSince(con, player.getUniqueId(), Timestamp.from(lastSeen)));
     }
@@ -0,0 +1,121 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.entity.Bank;
+import com.monst.bankingplugin.entity.geo.region.BankRegion;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of bank regions, bucketed by world name and chunk coordinates.
+ * Each bank is placed in every chunk its bounding box touches, so a lookup only has to run the exact
+ * containment or overlap test against the handful of banks sharing a chunk with the query.
+ * Regions spanning more than {@link #MAX_CHUNKS_PER_BANK} chunks are kept in a separate per-world list
+ * which is always checked, so that a single huge admin bank cannot flood the buckets.
+ */
+class BankRegionIndex {
+
+    private static final int MAX_CHUNKS_PER_BANK = 1024;
+
+    private final Map<String, Map<Long, Set<Bank>>> banksByChunk = new ConcurrentHashMap<>();
+    private final Map<String, Set<Bank>> largeBanks = new ConcurrentHashMap<>();
+    private final Map<Integer, BankRegion> indexedRegions = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the bank to the index at its current region, replacing any region it was previously indexed at.
+     * @param bank the bank to index
+     */
+    void put(Bank bank) {
+        remove(bank);
+        BankRegion region = bank.getRegion();
+        if (region.getWorld() == null) // World is not loaded; the bank is indexed again when it is
+            return;
+        String world = region.getWorld().getName();
+        if (chunkCount(region) > MAX_CHUNKS_PER_BANK)
+            largeBanks.computeIfAbsent(world, w -> ConcurrentHashMap.newKeySet()).add(bank);
+        else {
+            Map<Long, Set<Bank>> chunks = banksByChunk.computeIfAbsent(world, w -> new ConcurrentHashMap<>());
+            for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++)
+                for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++)
+                    chunks.computeIfAbsent(pack(chunkX, chunkZ), chunk -> ConcurrentHashMap.newKeySet()).add(bank);
+        }
+        indexedRegions.put(bank.getID(), region);
+    }
+
+    /**
+     * Removes the bank from the region it was last indexed at.
+     * @param bank the bank to remove
+     */
+    void remove(Bank bank) {
+        BankRegion region = indexedRegions.remove(bank.getID());
+        if (region == null)
+            return;
+        String world = region.getWorld().getName();
+        if (chunkCount(region) > MAX_CHUNKS_PER_BANK) {
+            largeBanks.getOrDefault(world, Collections.emptySet()).remove(bank);
+            return;
+        }
+        Map<Long, Set<Bank>> chunks = banksByChunk.getOrDefault(world, Collections.emptyMap());
+        for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++)
+            for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++)
+                chunks.computeIfPresent(pack(chunkX, chunkZ), (chunk, banks) -> {
+                    banks.remove(bank);
+                    return banks.isEmpty() ? null : banks;
+                });
+    }
+
+    /**
+     * Finds the bank whose region contains the given block coordinates.
+     * @return the containing bank, or null if there is none
+     */
+    Bank getContaining(String world, int x, int y, int z) {
+        Set<Bank> bucket = banksByChunk.getOrDefault(world, Collections.emptyMap()).get(pack(x >> 4, z >> 4));
+        if (bucket != null)
+            for (Bank bank : bucket)
+                if (bank.getRegion().contains(x, y, z))
+                    return bank;
+        for (Bank bank : largeBanks.getOrDefault(world, Collections.emptySet()))
+            if (bank.getRegion().contains(x, y, z))
+                return bank;
+        return null;
+    }
+
+    /**
+     * Gets every bank in the world whose bounding box might intersect the bounding box of the given region.
+     * The caller is responsible for the exact overlap test.
+     */
+    Set<Bank> getCandidates(BankRegion region) {
+        String world = region.getWorld().getName();
+        Set<Bank> candidates = new HashSet<>(largeBanks.getOrDefault(world, Collections.emptySet()));
+        Map<Long, Set<Bank>> chunks = banksByChunk.getOrDefault(world, Collections.emptyMap());
+        if (chunkCount(region) > chunks.size()) {
+            // Cheaper to visit every occupied chunk than every chunk covered by the region
+            chunks.values().forEach(candidates::addAll);
+            return candidates;
+        }
+        for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++)
+            for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                Set<Bank> bucket = chunks.get(pack(chunkX, chunkZ));
+                if (bucket != null)
+                    candidates.addAll(bucket);
+            }
+        return candidates;
+    }
+
+    void clear() {
+        banksByChunk.clear();
+        largeBanks.clear();
+        indexedRegions.clear();
+    }
+
+    private static long chunkCount(BankRegion region) {
+        long chunksX = (region.getMaxX() >> 4) - (region.getMinX() >> 4) + 1;
+        long chunksZ = (region.getMaxZ() >> 4) - (region.getMinZ() >> 4) + 1;
+        return chunksX * chunksZ;
+    }
+
+    private static long pack(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+}
@@ -1,48 +1,63 @@
 package com.monst.bankingplugin.persistence.service;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.entity.Bank;
 import com.monst.bankingplugin.entity.geo.location.AccountLocation;
 import com.monst.bankingplugin.entity.geo.region.BankRegion;
 import com.monst.bankingplugin.persistence.ConnectionSupplier;
+import com.monst.bankingplugin.persistence.Reconstructor;
+import com.monst.bankingplugin.persistence.dialect.Dialect;
 import com.monst.bankingplugin.persistence.repository.BankCoOwnerRepository;
 import com.monst.bankingplugin.persistence.repository.BankRepository;
+import com.monst.bankingplugin.util.DebugCategory;
 import com.monst.bankingplugin.util.Promise;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 
 import java.sql.*;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class BankService extends Service {
     
+    /**
+     * Every bank that has been loaded from the database, so that each bank is only ever represented by one object.
+     * Entries are only removed explicitly, when the bank is deleted or the cache is invalidated.
+     */
     private static class BankCache {
         
-        private final Cache<Integer, Bank> banksById = CacheBuilder.newBuilder().softValues().build();
-        private final Cache<String, Bank> banksByName = CacheBuilder.newBuilder().softValues().build();
+        private final Map<Integer, Bank> banksById = new ConcurrentHashMap<>();
+        private final Map<String, Bank> banksByName = new ConcurrentHashMap<>();
         
         private void put(Bank bank) {
             banksById.put(bank.getID(), bank);
+            banksByName.values().remove(bank); // The bank may have been renamed
             banksByName.put(bank.getName(), bank);
         }
         
         private void remove(Bank bank) {
-            banksById.invalidate(bank.getID());
-            banksByName.invalidate(bank.getName());
+            banksById.remove(bank.getID());
+            banksByName.values().remove(bank);
+        }
+        
+        private void clear() {
+            banksById.clear();
+            banksByName.clear();
         }
         
         private Optional<Bank> getByID(int id) {
-            return Optional.ofNullable(banksById.getIfPresent(id));
+            return Optional.ofNullable(banksById.get(id));
         }
         
         private Optional<Bank> getByName(String name) {
-            return Optional.ofNullable(banksByName.getIfPresent(name));
+            return Optional.ofNullable(banksByName.get(name));
         }
         
         private Set<Bank> searchByNames(Collection<String> names) {
@@ -56,16 +71,38 @@ public class BankService extends Service {
     }
     
     private final BankCache cache;
+    private final BankRegionIndex regionIndex = new BankRegionIndex();
+    private final WriteBehindBuffer<Bank> unsavedBanks = new WriteBehindBuffer<>();
+    /**
+     * Banks that have been read from the database but are not published in the cache until their co-owners have been
+     * loaded, so that no bank is ever seen without its co-owners.
+     */
+    private final LoadingEntities<Bank> loading = new LoadingEntities<>();
     
     private final BankRepository bankRepo;
     private final BankCoOwnerRepository bankCoOwnerRepo;
     
     private AccountService accountService;
     
-    public BankService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
+    public BankService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
         this.cache = new BankCache();
-        this.bankRepo = new BankRepository(this::reconstruct);
+        this.bankRepo = new BankRepository(new Reconstructor<Bank>() { // Caching is done here
+            @Override
+            public Bank reconstruct(ResultSet resultSet, Connection con) throws SQLException {
+                return BankService.this.reconstruct(resultSet);
+            }
+            
+            @Override
+            public void completeAll(Collection<Bank> banks, Connection con) throws SQLException {
+                complete(banks, con);
+            }
+            
+            @Override
+            public void failAll(Collection<Bank> banks, SQLException e) {
+                loading.failed(banks, e);
+            }
+        });
         this.bankCoOwnerRepo = new BankCoOwnerRepository();
     }
     
@@ -80,68 +117,135 @@ public class BankService extends Service {
     }
     
     public void save(Bank bank) {
-        plugin.debug("Saving bank to the database: " + bank);
+        plugin.debug(DebugCategory.PERSISTENCE, "Saving bank to the database: %s", bank);
         transact(con -> {
             bankRepo.save(con, bank);
             if (bank.hasCoOwners())
                 bankCoOwnerRepo.saveAll(con, bank.getCoOwners(), bank.getID());
         });
         cache.put(bank);
+        regionIndex.put(bank);
     }
     
+    /**
+     * Writes the changes to a bank to the database, either immediately or with the next flush
+     * if a {@link com.monst.bankingplugin.configuration.values.DatabaseFlushInterval flush interval} is set.
+     */
     public void update(Bank bank) {
-        plugin.debug("Updating bank in the database: " + bank);
+        cache.put(bank); // Name may have changed
+        regionIndex.put(bank); // Region may have changed
+        if (plugin.config().databaseFlushInterval.get().filter(seconds -> seconds > 0).isPresent()) {
+            unsavedBanks.add(bank);
+            return;
+        }
+        plugin.debug(DebugCategory.PERSISTENCE, "Updating bank in the database: %s", bank);
         transact(con -> bankRepo.update(con, bank));
     }
     
+    /**
+     * Writes all banks that have changed since the last flush to the database in a single batch.
+     * This may be called from any thread.
+     */
+    public void flush() {
+        if (unsavedBanks.isEmpty())
+            return;
+        List<Bank> banks = unsavedBanks.drain();
+        plugin.debug(DebugCategory.PERSISTENCE, "Flushing %d changed banks to the database.", banks.size());
+        if (transact(con -> bankRepo.updateAll(con, banks)))
+            unsavedBanks.flushed(banks);
+        else
+            unsavedBanks.failed(banks); // Retried with the next flush
+    }
+    
+    /**
+     * Writes any pending changes and then forgets every loaded bank, so that they are read from the database again.
+     * This must be called whenever the database is (re)opened.
+     */
+    public void invalidateAll() {
+        flush();
+        cache.clear();
+        loading.clear();
+        regionIndex.clear();
+    }
+    
     public void remove(Bank bank) {
-        plugin.debug("Deleting bank from the database: " + bank);
+        plugin.debug(DebugCategory.PERSISTENCE, "Deleting bank from the database: %s", bank);
         transact(con -> {
             bankCoOwnerRepo.delete(con, bank.getID()); // Delete co-owners first to avoid violating referential integrity
             bankRepo.delete(con, bank.getID());
         });
         cache.remove(bank);
+        regionIndex.remove(bank);
+        unsavedBanks.remove(bank);
+        bank.getAccounts().forEach(accountService::uncache); // Accounts are deleted by cascade
     }
     
     public void removeAll(Collection<Bank> banks) {
         Set<Integer> bankIDs = banks.stream().map(Bank::getID).collect(Collectors.toSet());
-        plugin.debug("Deleting banks with IDs %s from the database.", bankIDs);
+        plugin.debug(DebugCategory.PERSISTENCE, "Deleting banks with IDs %s from the database.", bankIDs);
         transact(con -> {
             bankCoOwnerRepo.deleteAll(con, bankIDs); // Delete co-owners first to avoid violating referential integrity
             bankRepo.deleteAll(con, bankIDs);
         });
-        banks.forEach(cache::remove);
+        for (Bank bank : banks) {
+            cache.remove(bank);
+            regionIndex.remove(bank);
+            unsavedBanks.remove(bank);
+            bank.getAccounts().forEach(accountService::uncache); // Accounts are deleted by cascade
+        }
     }
     
     public int count() {
-        plugin.debug("Counting all banks in the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting all banks in the database.");
         return query(bankRepo::count).orElse(0);
     }
     
     public Set<Bank> findAll() {
-        plugin.debug("Fetching all banks from the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all banks from the database.");
         return query(bankRepo::findAll).orElse(Collections.emptySet());
     }
     
+    public void loadRegionIndex() {
+        regionIndex.clear();
+        Set<Bank> banks = findAll();
+        banks.forEach(regionIndex::put);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Indexed the regions of %d banks.", banks.size());
+    }
+    
+    /**
+     * Reads the banks in a world that has just been loaded, so that banks which were read from the database before
+     * the world was loaded get their region and are added to the region index.
+     * @param world the world that was loaded
+     */
+    public void loadWorld(World world) {
+        Set<Bank> banks = query(con -> bankRepo.findByWorld(con, world.getName())).orElse(Collections.emptySet());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.INFO, "Indexed the regions of %d banks in world %s.",
+                banks.size(), world.getName());
+    }
+    
     public Promise<List<Bank>> findAll(int offset, int limit) {
-        plugin.debug("Fetching banks (%d to %d) from the database.", offset, offset + limit);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching banks (%d to %d) from the database.", offset, offset + limit);
         return async(con -> bankRepo.findAll(con, offset, limit));
     }
     
     public Bank findByID(int id) {
         Optional<Bank> cached = cache.getByID(id);
-        plugin.debug("Fetching bank with ID %d from the %s.", id, cached.isPresent() ? "cache" : "database");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching bank with ID %d from the %s.", id, cached.isPresent() ? "cache" : "database");
         return cached.orElseGet(() -> query(con -> bankRepo.findByID(con, id)).orElse(null));
     }
     
+    boolean exists(Connection con, int bankID) throws SQLException {
+        return bankRepo.exists(con, bankID);
+    }
+    
     public Bank findByName(String name) {
         Optional<Bank> bank = cache.getByName(name);
-        plugin.debug("Fetching bank with name %s from the %s.", name, bank.isPresent() ? "cache" : "database");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching bank with name %s from the %s.", name, bank.isPresent() ? "cache" : "database");
         return bank.orElseGet(() -> query(con -> bankRepo.findByName(con, name)).orElse(null));
     }
     
     public Set<String> findAllNames() {
-        plugin.debug("Fetching all bank names from the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all bank names from the database.");
         return query(bankRepo::findAllNames).orElse(Collections.emptySet());
     }
     
@@ -150,10 +254,10 @@ public class BankService extends Service {
         Set<String> cachedNames = cached.stream().map(Bank::getName).collect(Collectors.toSet());
         names.removeAll(cachedNames);
         if (!cachedNames.isEmpty())
-            plugin.debug("Fetching banks with names %s from the cache.", cachedNames);
+            plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching banks with names %s from the cache.", cachedNames);
         if (names.isEmpty())
             return cached;
-        plugin.debug("Fetching banks with names %s from the database.", names);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching banks with names %s from the database.", names);
         Set<Bank> fromDatabase = query(con -> bankRepo.findByNames(con, names)).orElse(Collections.emptySet());
         fromDatabase.forEach(cache::put);
         cached.addAll(fromDatabase);
@@ -161,42 +265,42 @@ public class BankService extends Service {
     }
     
     public int countByOwner(OfflinePlayer owner) {
-        plugin.debug("Counting banks owned by %s in the database.", owner.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting banks owned by %s in the database.", owner.getName());
         return query(con -> bankRepo.countByOwner(con, owner.getUniqueId())).orElse(0);
     }
     
     public int countByTrustedPlayer(OfflinePlayer trusted) {
-        plugin.debug("Counting banks where %s is trusted in the database.", trusted.getName());
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting banks where %s is trusted in the database.", trusted.getName());
         return query(con -> bankRepo.countByTrustedPlayer(con, trusted.getUniqueId())).orElse(0);
     }
     
     public Set<String> findNamesByOwner(OfflinePlayer owner) {
-        plugin.debug("Fetching names of banks owned by %s from the database.", owner);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching names of banks owned by %s from the database.", owner);
         return query(con -> bankRepo.findNamesByOwner(con, owner.getUniqueId())).orElse(Collections.emptySet());
     }
     
     public Set<String> findNamesByTrustedPlayer(OfflinePlayer trusted) {
-        plugin.debug("Fetching bank names where %s is trusted from the database.", trusted);
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching bank names where %s is trusted from the database.", trusted);
         return query(con -> bankRepo.findNamesByTrustedPlayer(con, trusted.getUniqueId())).orElse(Collections.emptySet());
     }
     
     public int countPlayerBanks() {
-        plugin.debug("Counting all player banks in the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting all player banks in the database.");
         return query(bankRepo::countPlayerBanks).orElse(0);
     }
     
     public int countAdminBanks() {
-        plugin.debug("Counting all admin banks in the database.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Counting all admin banks in the database.");
         return query(bankRepo::countAdminBanks).orElse(0);
     }
     
     public Set<String> findPlayerBankNames() {
-        plugin.debug("Fetching all player bank names.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all player bank names.");
         return query(bankRepo::findPlayerBankNames).orElse(Collections.emptySet());
     }
     
     public Set<String> findAdminBankNames() {
-        plugin.debug("Fetching all admin bank names.");
+        plugin.debug(DebugCategory.PERSISTENCE, Level.FINER, "Fetching all admin bank names.");
         return query(bankRepo::findAdminBankNames).orElse(Collections.emptySet());
     }
     
@@ -205,26 +309,21 @@ public class BankService extends Service {
     }
     
     public Bank findContaining(Block block) {
-        return query(con -> bankRepo.findByWorld(con, block.getWorld().getName())).orElse(Collections.emptySet())
-                .stream()
-                .filter(bank -> bank.getRegion().contains(block.getX(), block.getY(), block.getZ()))
-                .findFirst()
-                .orElse(null);
+        return regionIndex.getContaining(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
     }
     
     public Bank findContaining(AccountLocation location) {
-        return query(con -> bankRepo.findByWorld(con, location.getWorld().getName())).orElse(Collections.emptySet())
-                .stream()
-                .filter(bank -> bank.getRegion().contains(location))
-                .findFirst()
-                .orElse(null);
+        Bank bank = regionIndex.getContaining(location.getWorld().getName(),
+                location.getMinX(), location.getY(), location.getMinZ());
+        if (bank != null && bank.getRegion().contains(location)) // Both halves of a double chest must be contained
+            return bank;
+        return null;
     }
     
     public Set<Bank> findOverlapping(BankRegion region) {
-        return query(con -> bankRepo.findByWorld(con, region.getWorld().getName())).orElse(Collections.emptySet())
-                .stream()
-                .filter(bank -> bank.getRegion().overlaps(region))
-                .collect(Collectors.toSet());
+        Set<Bank> overlapping = regionIndex.getCandidates(region);
+        overlapping.removeIf(bank -> !bank.getRegion().overlaps(region));
+        return overlapping;
     }
     
     public Set<String> findNamesByPlayerAllowedToModify(Player player, boolean hasPlayerPerm, boolean hasAdminPerm, boolean mustBeOwner) {
@@ -242,18 +341,28 @@ public class BankService extends Service {
             return ownBanks;
     }
     
-    private Bank reconstruct(ResultSet rs, Connection con) throws SQLException {
+    private Bank reconstruct(ResultSet rs) throws SQLException {
         int bankID = rs.getInt("bank_id");
         Optional<Bank> cached = cache.getByID(bankID);
-        if (cached.isPresent())
-            return cached.get();
-        UUID ownerUUID = rs.getObject("owner_uuid", UUID.class);
+        if (cached.isPresent()) {
+            Bank bank = cached.get();
+            if (bank.getRegion().getWorld() == null && Bukkit.getWorld(rs.getString("world")) != null) {
+                // The world was not loaded yet when the bank was first read
+                bank.setRegion(reconstructRegion(rs));
+                regionIndex.put(bank);
+            }
+            return bank;
+        }
+        Bank loadingBank = loading.get(bankID); // Completed by the thread that is loading it
+        if (loadingBank != null)
+            return loadingBank;
+        UUID ownerUUID = Dialect.current().getUUID(rs, "owner_uuid");
         Bank bank = new Bank(
                 bankID,
                 rs.getString("name"),
                 ownerUUID == null ? null : Bukkit.getOfflinePlayer(ownerUUID),
                 reconstructRegion(rs),
-                bankCoOwnerRepo.findByBank(con, bankID),
+                new HashSet<>(), // Co-owners are loaded for all new banks in the result set at once
                 rs.getBigDecimal("interest_rate"),
                 rs.getBigDecimal("account_creation_price"),
                 rs.getBigDecimal("minimum_balance"),
@@ -264,13 +373,42 @@ public class BankService extends Service {
                 rs.getObject("player_bank_account_limit", Integer.class),
                 rs.getObject("reimburse_account_creation", Boolean.class),
                 rs.getObject("pay_on_low_balance", Boolean.class),
-                toIntList(rs.getArray("interest_multipliers")),
-                toTimeList(rs.getArray("interest_payout_times"))
+                toIntList(Dialect.current().getArray(rs, "interest_multipliers", Integer::valueOf)),
+                toTimeList(Dialect.current().getArray(rs, "interest_payout_times", LocalTime::parse))
         );
-        cache.put(bank);
+        Bank registered = loading.register(bank);
+        if (registered != bank) // Reconstructed concurrently on another thread
+            return registered;
+        cached = cache.getByID(bankID);
+        if (cached.isPresent()) { // Published by another thread in the meantime
+            loading.discard(bank);
+            return cached.get();
+        }
         return bank;
     }
     
+    /**
+     * Loads the co-owners of the banks that this thread read first, and publishes them. Then waits for the banks that
+     * other threads read first to be published, so that none of them is returned before its co-owners are loaded.
+     */
+    private void complete(Collection<Bank> banks, Connection con) throws SQLException {
+        Map<Integer, Bank> incomplete = loading.ownedBy(banks);
+        if (!incomplete.isEmpty()) {
+            try {
+                bankCoOwnerRepo.findByBanks(con, incomplete.keySet()).forEach((bankID, coOwners) ->
+                        coOwners.forEach(incomplete.get(bankID)::trustPlayer));
+            } catch (SQLException e) {
+                loading.failed(incomplete.values(), e); // Read again by the next query
+                throw e;
+            }
+            for (Bank bank : incomplete.values()) {
+                cache.put(bank);
+                loading.published(bank);
+            }
+        }
+        loading.awaitAll(banks);
+    }
+    
     private BankRegion reconstructRegion(ResultSet rs) throws SQLException {
         return BankRegion.fromDatabase(
                 Bukkit.getWorld(rs.getString("world")),
@@ -280,25 +418,27 @@ public class BankService extends Service {
                 rs.getObject("max_x", Integer.class),
                 rs.getInt("max_y"),
                 rs.getObject("max_z", Integer.class),
-                toIntArray(rs.getArray("points_x")),
-                toIntArray(rs.getArray("points_z"))
+                toIntArray(Dialect.current().getArray(rs, "points_x", Integer::valueOf)),
+                toIntArray(Dialect.current().getArray(rs, "points_z", Integer::valueOf))
         );
     }
     
-    private static int[] toIntArray(Array array) throws SQLException {
-        return array == null ? null : (int[]) array.getArray();
+    private static int[] toIntArray(Object[] array) {
+        return array == null ? null : Arrays.stream(array).mapToInt(o -> ((Number) o).intValue()).toArray();
     }
     
-    private static List<Integer> toIntList(Array array) throws SQLException {
+    private static List<Integer> toIntList(Object[] array) {
         if (array == null)
             return null;
-        return Arrays.asList((Integer[]) array.getArray());
+        return Arrays.stream(array).map(o -> ((Number) o).intValue()).collect(Collectors.toList());
     }
     
-    private static Set<LocalTime> toTimeList(Array array) throws SQLException {
+    private static Set<LocalTime> toTimeList(Object[] array) {
         if (array == null)
             return null;
-        return Arrays.stream((Object[]) array.getArray()).map(o -> ((Time) o).toLocalTime()).collect(Collectors.toSet());
+        return Arrays.stream(array)
+                .map(o -> o instanceof Time ? ((Time) o).toLocalTime() : (LocalTime) o)
+                .collect(Collectors.toSet());
     }
     
 }
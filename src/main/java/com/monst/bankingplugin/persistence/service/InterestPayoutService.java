@@ -0,0 +1,86 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.entity.Account;
+import com.monst.bankingplugin.entity.Bank;
+import com.monst.bankingplugin.entity.log.AccountInterest;
+import com.monst.bankingplugin.entity.log.BankIncome;
+import com.monst.bankingplugin.persistence.ConnectionSupplier;
+import com.monst.bankingplugin.util.DebugCategory;
+import com.monst.bankingplugin.util.Promise;
+import org.bukkit.OfflinePlayer;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the results of an interest payout to the database, in one transaction per bank.
+ * The tables themselves are owned by the services this one delegates to.
+ */
+public class InterestPayoutService extends Service {
+
+    private final BankService bankService;
+    private final AccountService accountService;
+    private final AccountInterestService accountInterestService;
+    private final BankIncomeService bankIncomeService;
+    private final LastSeenService lastSeenService;
+
+    public InterestPayoutService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor,
+                                 BankService bankService, AccountService accountService,
+                                 AccountInterestService accountInterestService, BankIncomeService bankIncomeService,
+                                 LastSeenService lastSeenService) {
+        super(plugin, connectionSupplier, executor);
+        this.bankService = bankService;
+        this.accountService = accountService;
+        this.accountInterestService = accountInterestService;
+        this.bankIncomeService = bankIncomeService;
+        this.lastSeenService = lastSeenService;
+    }
+
+    @Override
+    public void createTables() {
+        // No tables of its own
+    }
+
+    /**
+     * Saves the accounts and interest logs of a payout at a bank together with the income of the bank, and marks the
+     * paid players as last seen now. Accounts that have been deleted since the payout began are left out, along with
+     * their interest logs, so that they cannot make the payout at the rest of the bank fail.
+     * The transaction runs on the database executor.
+     * @return a promise of the IDs of the accounts that were saved, or of null if the bank no longer exists
+     */
+    public Promise<Set<Integer>> savePayout(Bank bank, Collection<Account> accounts,
+                                            Collection<AccountInterest> interests, BigDecimal revenue,
+                                            Set<OfflinePlayer> paidPlayers) {
+        plugin.debug(DebugCategory.PERSISTENCE, "Saving interest payout of %d accounts at bank %s to the database.",
+                accounts.size(), bank);
+        return transactAsync(con -> {
+            if (!bankService.exists(con, bank.getID()))
+                return null;
+            Set<Integer> existing = accountService.findIDsByBank(con, bank);
+            List<Account> savedAccounts = accounts.stream()
+                    .filter(account -> existing.contains(account.getID()))
+                    .collect(Collectors.toList());
+            List<AccountInterest> savedInterests = interests.stream()
+                    .filter(interest -> existing.contains(interest.getAccountID()))
+                    .collect(Collectors.toList());
+            BigDecimal interest = BigDecimal.ZERO;
+            BigDecimal lowBalanceFees = BigDecimal.ZERO;
+            for (AccountInterest accountInterest : savedInterests) {
+                interest = interest.add(accountInterest.getInterest());
+                lowBalanceFees = lowBalanceFees.add(accountInterest.getLowBalanceFee());
+            }
+            accountService.updateAll(con, savedAccounts);
+            accountInterestService.saveAll(con, savedInterests);
+            bankIncomeService.saveAll(con, Collections.singletonList(new BankIncome(bank, revenue, interest, lowBalanceFees)));
+            lastSeenService.updateLastSeenTime(con, paidPlayers);
+            return savedAccounts.stream().map(Account::getID).collect(Collectors.toSet());
+        });
+    }
+
+}
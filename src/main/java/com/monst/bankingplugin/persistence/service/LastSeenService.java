@@ -5,15 +5,18 @@ import com.monst.bankingplugin.persistence.ConnectionSupplier;
 import com.monst.bankingplugin.persistence.repository.LastSeenRepository;
 import org.bukkit.OfflinePlayer;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 public class LastSeenService extends Service {
     
     private final LastSeenRepository repo;
     
-    public LastSeenService(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
-        super(plugin, connectionSupplier);
+    public LastSeenService(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
+        super(plugin, connectionSupplier, executor);
         this.repo = new LastSeenRepository();
     }
     
@@ -35,6 +38,11 @@ public class LastSeenService extends Service {
             execute(con -> repo.updateLastSeenTime(con, players));
     }
     
+    void updateLastSeenTime(Connection con, Set<OfflinePlayer> players) throws SQLException {
+        if (!players.isEmpty())
+            repo.updateLastSeenTime(con, players);
+    }
+    
     public void deleteUnused() {
         transact(repo::deleteUnused);
     }
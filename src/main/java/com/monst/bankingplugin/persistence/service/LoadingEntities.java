@@ -0,0 +1,131 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.entity.Entity;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Entities that have been read from the database but are not published yet, because the thread that read them is
+ * still loading their data from other tables. Another thread that reads the same entity gets the same object, but
+ * waits for the reading thread to publish it before returning it, so that no entity is ever seen half-built.
+ * A thread only waits after publishing the entities it read itself, so two threads never wait for each other.
+ */
+class LoadingEntities<T extends Entity> {
+
+    private static class Loading<T> {
+
+        private final T entity;
+        private final Thread loader = Thread.currentThread();
+        private final CompletableFuture<T> published = new CompletableFuture<>();
+
+        private Loading(T entity) {
+            this.entity = entity;
+        }
+
+    }
+
+    private final Map<Integer, Loading<T>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @return the entity with the given ID that is being loaded, or null if there is none
+     */
+    T get(int id) {
+        Loading<T> entry = loading.get(id);
+        return entry == null || entry.published.isCompletedExceptionally() ? null : entry.entity;
+    }
+
+    /**
+     * Registers a newly read entity as being loaded by this thread, unless another object with the same ID is
+     * already being loaded. An entity that failed to load is replaced. The caller must check its cache again
+     * afterwards, in case the entity was published in the meantime, and {@link #discard} its own object if it was.
+     * @return the object that is being loaded with this ID
+     */
+    T register(T entity) {
+        Loading<T> entry = new Loading<>(entity);
+        while (true) {
+            Loading<T> existing = loading.putIfAbsent(entity.getID(), entry);
+            if (existing == null)
+                return entity;
+            if (!existing.published.isCompletedExceptionally())
+                return existing.entity;
+            if (loading.replace(entity.getID(), existing, entry))
+                return entity;
+        }
+    }
+
+    /**
+     * Removes an entity registered by this thread that turned out to be published already.
+     */
+    void discard(T entity) {
+        Loading<T> entry = loading.get(entity.getID());
+        if (entry != null && entry.entity == entity)
+            loading.remove(entity.getID(), entry);
+    }
+
+    /**
+     * @return those of the entities that this thread registered and must complete and publish
+     */
+    Map<Integer, T> ownedBy(Collection<T> entities) {
+        Map<Integer, T> owned = new HashMap<>();
+        for (T entity : entities) {
+            Loading<T> entry = loading.get(entity.getID());
+            if (entry != null && entry.entity == entity && entry.loader == Thread.currentThread()
+                    && !entry.published.isDone())
+                owned.put(entity.getID(), entity);
+        }
+        return owned;
+    }
+
+    /**
+     * Marks an entity as published, after it has been put in the cache, and wakes any threads waiting for it.
+     */
+    void published(T entity) {
+        Loading<T> entry = loading.remove(entity.getID());
+        if (entry != null)
+            entry.published.complete(entity);
+    }
+
+    /**
+     * Gives up on entities this thread registered but could not complete, so that they are read anew by the next
+     * query. Threads waiting for them, or that find them later, fail with the given exception.
+     */
+    void failed(Collection<T> entities, SQLException e) {
+        for (T entity : ownedBy(entities).values())
+            loading.get(entity.getID()).published.completeExceptionally(e);
+    }
+
+    /**
+     * Waits until the entities that other threads are still loading have been published.
+     * Entities that are not being loaded are already published.
+     * @throws SQLException if another thread failed to load one of them
+     */
+    void awaitAll(Collection<T> entities) throws SQLException {
+        for (T entity : entities) {
+            Loading<T> entry = loading.get(entity.getID());
+            if (entry == null || entry.entity != entity || entry.loader == Thread.currentThread())
+                continue;
+            try {
+                entry.published.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for " + entity + " to be loaded", e);
+            } catch (ExecutionException e) {
+                throw new SQLException("Failed to load " + entity + " on another thread", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Forgets every entity being loaded. Threads waiting for them are released with a failure.
+     */
+    void clear() {
+        SQLException e = new SQLException("The database was reopened");
+        loading.values().forEach(entry -> entry.published.completeExceptionally(e));
+        loading.clear();
+    }
+
+}
@@ -9,16 +9,19 @@ import com.monst.bankingplugin.util.Promise;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 public abstract class Service {
     
     final BankingPlugin plugin;
     private final ConnectionSupplier connectionSupplier;
+    private final Executor executor;
     
-    public Service(BankingPlugin plugin, ConnectionSupplier connectionSupplier) {
+    public Service(BankingPlugin plugin, ConnectionSupplier connectionSupplier, Executor executor) {
         this.plugin = plugin;
         this.connectionSupplier = connectionSupplier;
+        this.executor = executor;
     }
     
     public abstract void createTables();
@@ -33,13 +36,34 @@ public abstract class Service {
         }
     }
     
-    // Transactional writes
-    void transact(ConnectionConsumer writeAction) {
+    // Transactional writes, returning whether the transaction was committed
+    boolean transact(ConnectionConsumer writeAction) {
+        try {
+            transactOrThrow(writeAction);
+            return true;
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "Failed to execute transaction on database!");
+            plugin.debug(e);
+            return false;
+        }
+    }
+    
+    // Transactional writes, leaving the failure to the caller
+    void transactOrThrow(ConnectionConsumer writeAction) throws SQLException {
+        transactForResult(con -> {
+            writeAction.accept(con);
+            return null;
+        });
+    }
+    
+    // Transactional writes that produce a result, leaving the failure to the caller
+    <T> T transactForResult(ConnectionFunction<T> writeAction) throws SQLException {
         try (Connection con = connectionSupplier.get()) {
             try {
                 con.setAutoCommit(false);
-                writeAction.accept(con);
+                T result = writeAction.apply(con);
                 con.commit();
+                return result;
             } catch (SQLException e) {
                 try {
                     con.rollback();
@@ -48,9 +72,6 @@ public abstract class Service {
                 }
                 throw e;
             }
-        } catch (SQLException e) {
-            plugin.log(Level.SEVERE, "Failed to execute transaction on database!");
-            plugin.debug(e);
         }
     }
     
@@ -65,14 +86,22 @@ public abstract class Service {
         }
     }
     
-    // Asynchronous reads
+    // Asynchronous transactional writes, on the database executor. The promise fails if the transaction is rolled back
+    <T> Promise<T> transactAsync(ConnectionFunction<T> writeAction) {
+        return Promise.async(executor, () -> transactForResult(writeAction)).catchError(e -> {
+            plugin.log(Level.SEVERE, "Failed to execute transaction on database!");
+            plugin.debug(e);
+        });
+    }
+    
+    // Asynchronous reads, on the database executor
     
     <T> Promise<T> async(ConnectionFunction<T> query) {
-        return Promise.async(plugin, () -> {
+        return Promise.async(executor, () -> {
             try (Connection con = connectionSupplier.get()) {
                 return query.apply(con);
             }
-        });
+        }).catchError(plugin::debug);
     }
     
 }
@@ -0,0 +1,373 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.google.common.io.ByteStreams;
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.entity.log.AccountTransaction;
+import com.monst.bankingplugin.util.DebugCategory;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Buffers new account transactions in a bounded queue so that they can be inserted into the database in batches,
+ * off the main thread.
+ * Every transaction is appended to a journal file before it is queued, and a commit record is appended once its batch
+ * has been inserted. Transactions in the journal without a commit record are inserted again the next time the journal
+ * is opened, so none are lost if the server stops before they are written. A transaction may be inserted twice if the
+ * server stopped between the insert and the commit record, but it is never lost.
+ * When the queue is full, or a batch could not be inserted after {@value MAX_ATTEMPTS} attempts, transactions are
+ * kept only in the journal file. They are read back from it after a flush that inserted queued transactions, or the
+ * next time the journal is opened.
+ * The journal file is deleted whenever every transaction in it has been committed.
+ * Appending only ever waits for a single line to be written, never for the journal file to be read back.
+ */
+class TransactionJournal {
+
+    private static final int CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String TRANSACTION = "T";
+    private static final String COMMIT = "C";
+
+    interface BatchInsert {
+        /**
+         * Inserts the transactions into the database in a single transaction, which is rolled back if it fails.
+         */
+        void insert(List<AccountTransaction> transactions) throws SQLException;
+    }
+
+    private final BankingPlugin plugin;
+    private final Path file;
+    private final BatchInsert batchInsert;
+    private final Function<UUID, OfflinePlayer> players;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+    private final Object fileLock = new Object();
+    private BufferedWriter writer; // Opened lazily, guarded by fileLock
+    private long lastSequence; // Guarded by fileLock
+    private int uncommitted; // Guarded by fileLock
+    private boolean journalOnly; // Whether some uncommitted transactions are not queued, guarded by fileLock
+
+    private final Object flushLock = new Object();
+    private final List<Entry> failed = new ArrayList<>(); // Guarded by flushLock
+
+    TransactionJournal(BankingPlugin plugin, Path file, BatchInsert batchInsert) {
+        this(plugin, file, batchInsert, Bukkit::getOfflinePlayer);
+    }
+
+    /**
+     * @param players looks up the executors of the transactions read back from the journal file
+     */
+    TransactionJournal(BankingPlugin plugin, Path file, BatchInsert batchInsert, Function<UUID, OfflinePlayer> players) {
+        this.plugin = plugin;
+        this.file = file;
+        this.batchInsert = batchInsert;
+        this.players = players;
+    }
+
+    /**
+     * Inserts every transaction in the journal file that has not been committed.
+     * This must be called once the database tables exist, before any transactions are appended.
+     */
+    void recover() {
+        synchronized (flushLock) {
+            List<Entry> entries = readUncommitted();
+            if (entries.isEmpty())
+                return;
+            plugin.log(Level.INFO, "Recovering " + entries.size() + " account transactions from the journal.");
+            insertAll(entries);
+        }
+    }
+
+    /**
+     * Writes the transaction to the journal and queues it to be inserted with the next flush.
+     * If the queue is full, the transaction is only kept in the journal until the queue has been drained.
+     * This never blocks on the database.
+     */
+    void append(AccountTransaction transaction) {
+        synchronized (fileLock) {
+            Entry entry = new Entry(++lastSequence, transaction);
+            uncommitted++;
+            writeLine(TRANSACTION + "\t" + entry.sequence + "\t" + format(transaction));
+            // Queued under the file lock, so that the queue never holds a transaction that is read back from the file
+            if (!queue.offer(entry) && !journalOnly) {
+                journalOnly = true;
+                plugin.debug(DebugCategory.PERSISTENCE, Level.WARNING,
+                        "Transaction queue is full, keeping new account transactions in the journal only");
+            }
+        }
+    }
+
+    /**
+     * Inserts all queued transactions into the database in batches. This may be called from any thread.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            boolean inserted = false;
+            if (!failed.isEmpty()) {
+                List<Entry> retry = new ArrayList<>(failed);
+                failed.clear();
+                if (!insertAll(retry))
+                    return;
+                inserted = true;
+            }
+            List<Entry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+                if (!insertAll(batch))
+                    return;
+                inserted = true;
+                batch.clear();
+            }
+            // Only go back to the journal file once the database has accepted inserts again
+            boolean readJournal;
+            synchronized (fileLock) {
+                readJournal = journalOnly && inserted;
+            }
+            if (readJournal)
+                insertAll(readUncommitted());
+        }
+    }
+
+    /**
+     * Reads every uncommitted transaction from the journal file. The file holds every transaction that is queued or
+     * waiting to be retried as well, so those are replaced by what is read.
+     * The file is read without the file lock, up to where it had been written when the read began, so that appending
+     * is not held up. Transactions appended in the meantime are left as they are. Nothing is committed in the meantime,
+     * since this is only called while holding the flush lock.
+     */
+    private List<Entry> readUncommitted() {
+        long length;
+        long readUpTo; // The sequence of the last transaction in the part of the file that is read
+        boolean wasJournalOnly;
+        synchronized (fileLock) {
+            if (!Files.exists(file))
+                return Collections.emptyList();
+            try {
+                length = Files.size(file); // Every line is flushed as soon as it is written
+            } catch (IOException e) {
+                plugin.log(Level.SEVERE, "Failed to read the transaction journal!");
+                plugin.debug(e);
+                return Collections.emptyList();
+            }
+            readUpTo = lastSequence;
+            wasJournalOnly = journalOnly;
+            journalOnly = false; // Set again if a transaction appended from now on does not fit in the queue
+        }
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        long maxSequence = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ByteStreams.limit(Files.newInputStream(file), length), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                try {
+                    if (fields[0].equals(TRANSACTION)) {
+                        long sequence = Long.parseLong(fields[1]);
+                        entries.put(sequence, new Entry(sequence, parse(fields)));
+                        maxSequence = Math.max(maxSequence, sequence);
+                    } else if (fields[0].equals(COMMIT)) {
+                        for (String sequence : fields[1].split(","))
+                            entries.remove(Long.parseLong(sequence));
+                    }
+                } catch (RuntimeException e) { // A record cut short by a crash
+                    plugin.debug(DebugCategory.PERSISTENCE, Level.WARNING, "Skipping unreadable transaction journal record: %s", line);
+                }
+            }
+        } catch (IOException e) {
+            synchronized (fileLock) {
+                journalOnly |= wasJournalOnly;
+            }
+            plugin.log(Level.SEVERE, "Failed to read the transaction journal!");
+            plugin.debug(e);
+            return Collections.emptyList();
+        }
+        failed.clear();
+        synchronized (fileLock) {
+            queue.removeIf(entry -> entry.sequence <= readUpTo);
+            uncommitted = entries.size() + (int) (lastSequence - readUpTo);
+            lastSequence = Math.max(lastSequence, maxSequence);
+            if (uncommitted == 0)
+                truncate();
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Inserts the entries in batches. Entries that could not be inserted because of a database failure are retried
+     * with the next flush, up to {@value MAX_ATTEMPTS} times, and are then left in the journal file.
+     * @return whether every entry was inserted or dropped
+     */
+    private boolean insertAll(List<Entry> entries) {
+        for (int start = 0; start < entries.size(); start += MAX_BATCH_SIZE) {
+            int end = Math.min(entries.size(), start + MAX_BATCH_SIZE);
+            List<Entry> pending = insert(entries.subList(start, end));
+            if (pending.isEmpty())
+                continue;
+            int abandoned = end < entries.size() ? entries.size() - end : 0;
+            for (Entry entry : pending) {
+                if (++entry.attempts < MAX_ATTEMPTS)
+                    failed.add(entry);
+                else
+                    abandoned++;
+            }
+            if (abandoned > 0) {
+                synchronized (fileLock) {
+                    journalOnly = true;
+                }
+                plugin.debug(DebugCategory.PERSISTENCE, Level.WARNING,
+                        "Keeping %d account transactions in the journal only until the database recovers", abandoned);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Inserts a batch of entries. If the batch fails, its entries are inserted one at a time, so that a transaction
+     * the database rejects, such as one of an account that has been deleted since, is dropped instead of holding up
+     * the others.
+     * @return the entries that were not inserted because of a database failure
+     */
+    private List<Entry> insert(List<Entry> batch) {
+        List<AccountTransaction> transactions = new ArrayList<>(batch.size());
+        for (Entry entry : batch)
+            transactions.add(entry.transaction);
+        try {
+            batchInsert.insert(transactions);
+            commit(batch);
+            return Collections.emptyList();
+        } catch (SQLException e) {
+            plugin.debug(e);
+        }
+        List<Entry> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            try {
+                batchInsert.insert(Collections.singletonList(entry.transaction));
+            } catch (SQLException e) {
+                if (!isRejected(e)) {
+                    plugin.log(Level.SEVERE, "Failed to insert account transactions into the database!");
+                    plugin.debug(e);
+                    commit(done);
+                    return new ArrayList<>(batch.subList(i, batch.size()));
+                }
+                plugin.log(Level.WARNING, "Dropping account transaction rejected by the database: "
+                        + format(entry.transaction));
+                plugin.debug(e);
+            }
+            done.add(entry);
+        }
+        commit(done);
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns true if the database rejected the data itself (SQLSTATE class 22 or 23), so that it can never be inserted.
+     */
+    private static boolean isRejected(SQLException e) {
+        if (e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException)
+            return true;
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private void commit(List<Entry> batch) {
+        if (batch.isEmpty())
+            return;
+        StringJoiner sequences = new StringJoiner(",");
+        for (Entry entry : batch)
+            sequences.add(String.valueOf(entry.sequence));
+        synchronized (fileLock) {
+            uncommitted -= batch.size();
+            if (uncommitted > 0)
+                writeLine(COMMIT + "\t" + sequences);
+            else
+                truncate();
+        }
+    }
+
+    private void writeLine(String line) {
+        synchronized (fileLock) {
+            try {
+                if (writer == null)
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                writer.write(line);
+                writer.newLine();
+                writer.flush(); // Survive a crash of the server process
+            } catch (IOException e) {
+                plugin.log(Level.SEVERE, "Failed to write to the transaction journal!");
+                plugin.debug(e);
+            }
+        }
+    }
+
+    private void truncate() {
+        synchronized (fileLock) {
+            try {
+                if (writer != null)
+                    writer.close();
+                writer = null;
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                plugin.log(Level.SEVERE, "Failed to clear the transaction journal!");
+                plugin.debug(e);
+            }
+        }
+    }
+
+    private static String format(AccountTransaction transaction) {
+        return transaction.getAccountID() + "\t"
+                + transaction.getBankID() + "\t"
+                + transaction.getExecutor().getUniqueId() + "\t"
+                + transaction.getPreviousBalance().toPlainString() + "\t"
+                + transaction.getAmount().toPlainString() + "\t"
+                + transaction.getNewBalance().toPlainString() + "\t"
+                + transaction.getInstant();
+    }
+
+    private AccountTransaction parse(String[] fields) {
+        return new AccountTransaction(
+                0, // Assigned by the database
+                Instant.parse(fields[8]),
+                Integer.parseInt(fields[2]),
+                Integer.parseInt(fields[3]),
+                players.apply(UUID.fromString(fields[4])),
+                new BigDecimal(fields[5]),
+                new BigDecimal(fields[6]),
+                new BigDecimal(fields[7])
+        );
+    }
+
+    private static class Entry {
+
+        private final long sequence;
+        private final AccountTransaction transaction;
+        private int attempts; // Guarded by flushLock
+
+        private Entry(long sequence, AccountTransaction transaction) {
+            this.sequence = sequence;
+            this.transaction = transaction;
+        }
+
+    }
+
+}
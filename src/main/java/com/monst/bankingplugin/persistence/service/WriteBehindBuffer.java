@@ -0,0 +1,55 @@
+package com.monst.bankingplugin.persistence.service;
+
+import java.util.*;
+
+/**
+ * Collects entities that have changed in memory but have not yet been written to the database.
+ * Entities may be added on the main thread and drained by a flush on any other thread.
+ * Drained entities are buffered again if the flush fails, so that no change is lost to a failed write.
+ */
+class WriteBehindBuffer<T> {
+    
+    private final Set<T> dirty = new LinkedHashSet<>();
+    private final Set<T> flushing = new HashSet<>();
+    
+    synchronized void add(T entity) {
+        dirty.add(entity);
+    }
+    
+    synchronized void remove(T entity) {
+        dirty.remove(entity);
+        flushing.remove(entity);
+    }
+    
+    synchronized boolean isEmpty() {
+        return dirty.isEmpty();
+    }
+    
+    /**
+     * Removes and returns all buffered entities. An entity that changes again after this call is buffered anew.
+     * The drained entities must then be passed to either {@link #flushed} or {@link #failed}.
+     */
+    synchronized List<T> drain() {
+        List<T> drained = new ArrayList<>(dirty);
+        dirty.clear();
+        flushing.addAll(drained);
+        return drained;
+    }
+    
+    /**
+     * Marks drained entities as written to the database.
+     */
+    synchronized void flushed(Collection<T> drained) {
+        flushing.removeAll(drained);
+    }
+    
+    /**
+     * Buffers drained entities again after they could not be written, unless they have been removed since.
+     */
+    synchronized void failed(Collection<T> drained) {
+        for (T entity : drained)
+            if (flushing.remove(entity))
+                dirty.add(entity);
+    }
+    
+}
@@ -1,6 +1,7 @@
 package com.monst.bankingplugin.update;
 
 import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.util.DebugCategory;
 import org.bukkit.Bukkit;
 
 import java.io.IOException;
@@ -149,7 +150,7 @@ public class Download {
     
         String serverChecksum = update.getChecksum();
         if (serverChecksum == null) {
-            plugin.debug("No checksum provided by server. Skipping checksum validation.");
+            plugin.debug(DebugCategory.GENERAL, Level.WARNING, "No checksum provided by server. Skipping checksum validation.");
             checksumValidated = false;
             return;
         }
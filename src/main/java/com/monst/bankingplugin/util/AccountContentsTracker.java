@@ -0,0 +1,191 @@
+package com.monst.bankingplugin.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.monst.bankingplugin.entity.Account;
+import org.bukkit.Material;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a running count of the materials in recently used account chests, so that an account can be appraised
+ * after a player closes it by re-counting only the slots that the player touched.
+ * Slots are marked dirty by the inventory listeners. Whenever a change cannot be attributed to specific slots,
+ * the whole account is marked dirty instead. The chest is counted in full when the account is not yet tracked,
+ * when the size of the chest has changed, and once the last full count is older than {@link #AUDIT_INTERVAL_MILLIS},
+ * which catches any changes made to the inventory by other plugins.
+ * This class is not thread-safe and must only be used on the main thread.
+ */
+public class AccountContentsTracker {
+
+    private static final long AUDIT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Set<Material> SHULKER_BOXES = EnumSet.noneOf(Material.class);
+    static {
+        for (Material material : Material.values())
+            if (material.name().endsWith("SHULKER_BOX"))
+                SHULKER_BOXES.add(material);
+    }
+
+    /**
+     * The contents of shulker box items, keyed by their item meta.
+     * Reading the contents of a shulker box item copies its entire inventory, while hashing and comparing the meta only
+     * touches the stored item data. Storage accounts often hold many identical shulker boxes, which are counted once.
+     */
+    private static final Cache<ItemMeta, Map<Material, Integer>> SHULKER_CONTENTS = CacheBuilder.newBuilder()
+            .maximumSize(512)
+            .recordStats()
+            .build();
+
+    private final Cache<Integer, TrackedContents> trackedContents = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Marks a single slot of the account chest as changed.
+     * @param account the account
+     * @param slot the index of the slot in the chest inventory
+     */
+    public void markDirty(Account account, int slot) {
+        TrackedContents contents = trackedContents.getIfPresent(account.getID());
+        if (contents != null)
+            contents.markDirty(slot);
+    }
+
+    /**
+     * Marks every slot of the account chest as changed, so that the next call to {@link #getContents(Account)}
+     * counts the chest in full.
+     */
+    public void markAllDirty(Account account) {
+        trackedContents.invalidate(account.getID());
+    }
+
+    /**
+     * Gets the contents of the account chest, re-counting only the slots that have changed since the last call.
+     * The result is the same as {@link Account#getContents()}.
+     * @param account the account
+     * @return an unmodifiable view of the amount of each material in the chest
+     */
+    public Map<Material, Integer> getContents(Account account) {
+        Inventory inventory = account.getLocation().findChest().map(InventoryHolder::getInventory).orElse(null);
+        if (inventory == null) {
+            trackedContents.invalidate(account.getID());
+            return Collections.emptyMap();
+        }
+        TrackedContents contents = trackedContents.getIfPresent(account.getID());
+        if (contents == null || contents.size() != inventory.getSize() || contents.isAuditDue()) {
+            contents = new TrackedContents(inventory);
+            trackedContents.put(account.getID(), contents);
+        } else
+            contents.update(inventory);
+        return Collections.unmodifiableMap(contents.total);
+    }
+
+    /**
+     * Adds the materials of an item stack to a running count, including the contents of shulker boxes.
+     * @param item the item stack, which may be null
+     * @param contents the count to add to
+     */
+    public static void count(ItemStack item, Map<Material, Integer> contents) {
+        if (item == null) // Individual items may be null
+            return;
+        contents.merge(item.getType(), item.getAmount(), Integer::sum);
+        if (!SHULKER_BOXES.contains(item.getType()) || !item.hasItemMeta())
+            return;
+        ItemMeta meta = item.getItemMeta();
+        Map<Material, Integer> shulkerContents = SHULKER_CONTENTS.getIfPresent(meta);
+        if (shulkerContents == null) {
+            shulkerContents = countShulkerBox(meta);
+            SHULKER_CONTENTS.put(meta, shulkerContents);
+        }
+        for (Map.Entry<Material, Integer> entry : shulkerContents.entrySet())
+            contents.merge(entry.getKey(), entry.getValue(), Integer::sum);
+    }
+
+    /**
+     * @return the hit and miss counts of the shulker box contents cache
+     */
+    public static CacheStats getShulkerCacheStats() {
+        return SHULKER_CONTENTS.stats();
+    }
+
+    private static Map<Material, Integer> countShulkerBox(ItemMeta meta) {
+        if (!(meta instanceof BlockStateMeta) || !(((BlockStateMeta) meta).getBlockState() instanceof ShulkerBox))
+            return Collections.emptyMap();
+        Map<Material, Integer> shulkerContents = new EnumMap<>(Material.class);
+        ShulkerBox shulkerBox = (ShulkerBox) ((BlockStateMeta) meta).getBlockState();
+        for (ItemStack innerItem : shulkerBox.getInventory().getContents())
+            if (innerItem != null)
+                shulkerContents.merge(innerItem.getType(), innerItem.getAmount(), Integer::sum);
+        return Collections.unmodifiableMap(shulkerContents);
+    }
+
+    private static class TrackedContents {
+
+        /** The contents of each slot, or null if the slot is empty */
+        private final Map<Material, Integer>[] slots;
+        private final Map<Material, Integer> total = new HashMap<>();
+        private final BitSet dirty = new BitSet();
+        private final long countedAt = System.currentTimeMillis();
+
+        @SuppressWarnings("unchecked")
+        TrackedContents(Inventory inventory) {
+            this.slots = new Map[inventory.getSize()];
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = countSlot(inventory.getItem(slot));
+                addToTotal(slots[slot], 1);
+            }
+        }
+
+        int size() {
+            return slots.length;
+        }
+
+        boolean isAuditDue() {
+            return System.currentTimeMillis() - countedAt > AUDIT_INTERVAL_MILLIS;
+        }
+
+        void markDirty(int slot) {
+            if (slot >= 0 && slot < slots.length)
+                dirty.set(slot);
+        }
+
+        void update(Inventory inventory) {
+            for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+                addToTotal(slots[slot], -1);
+                slots[slot] = countSlot(inventory.getItem(slot));
+                addToTotal(slots[slot], 1);
+            }
+            dirty.clear();
+        }
+
+        private void addToTotal(Map<Material, Integer> slotContents, int sign) {
+            if (slotContents == null)
+                return;
+            for (Map.Entry<Material, Integer> entry : slotContents.entrySet())
+                total.merge(entry.getKey(), sign * entry.getValue(), (current, change) -> {
+                    int sum = current + change;
+                    return sum == 0 ? null : sum;
+                });
+        }
+
+        private static Map<Material, Integer> countSlot(ItemStack item) {
+            if (item == null || item.getType() == Material.AIR)
+                return null;
+            Map<Material, Integer> slotContents = new HashMap<>(4);
+            count(item, slotContents);
+            return slotContents;
+        }
+
+    }
+
+}
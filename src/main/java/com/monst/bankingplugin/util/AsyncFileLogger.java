@@ -0,0 +1,208 @@
+package com.monst.bankingplugin.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * A logger that writes to a file on a thread of its own, so that logging never waits for the disk.
+ * Messages are queued and written through a buffer, which is flushed whenever the queue runs empty. If the queue is
+ * full, messages are dropped rather than blocking the caller, and the number dropped is noted in the file.
+ * When the file grows beyond its maximum size, it is renamed to {@code debug.1.txt}, the previous {@code debug.1.txt}
+ * to {@code debug.2.txt}, and so on, and the oldest file is deleted. The log of the previous run is kept the same way.
+ */
+public class AsyncFileLogger implements Logger {
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    private static final Entry END = new Entry(DebugCategory.GENERAL, Level.OFF, null, null);
+
+    private final Path file;
+    private final LongSupplier maxBytes;
+    private final IntSupplier maxFiles;
+    private final Function<DebugCategory, Level> levels;
+    private final java.util.logging.Logger errorLog;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    // Only used by the writer thread
+    private Writer out;
+    private long bytesWritten;
+
+    /**
+     * Opens the log file, moving any previous log out of the way, and starts the writer thread.
+     * @param file the file to write to
+     * @param maxBytes the size at which the file is rotated
+     * @param maxFiles the number of rotated files to keep
+     * @param levels the lowest level that is written for each category
+     * All three are read whenever they are needed, so that changes to them apply without reopening the log.
+     * @param errorLog where to report a failure to write the file
+     */
+    public AsyncFileLogger(Path file, LongSupplier maxBytes, IntSupplier maxFiles, Function<DebugCategory, Level> levels,
+                           java.util.logging.Logger errorLog) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.levels = levels;
+        this.errorLog = errorLog;
+        rotate();
+        open();
+        this.writerThread = new Thread(this::run, "BankingPlugin Debug Logger");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public boolean isLoggable(DebugCategory category, Level level) {
+        return !closed && level.intValue() >= levels.apply(category).intValue();
+    }
+
+    @Override
+    public void log(DebugCategory category, Level level, String message) {
+        if (isLoggable(category, level))
+            enqueue(new Entry(category, level, message, null));
+    }
+
+    @Override
+    public void log(Throwable throwable) {
+        if (!closed)
+            enqueue(new Entry(DebugCategory.GENERAL, Level.SEVERE, null, throwable));
+    }
+
+    private void enqueue(Entry entry) {
+        if (!queue.offer(entry))
+            dropped.incrementAndGet();
+    }
+
+    /**
+     * Writes the messages that are already queued, and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            if (queue.offer(END, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                writerThread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+            else
+                writerThread.interrupt();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            for (Entry entry = queue.take(); entry != END; entry = queue.take()) {
+                write(entry);
+                if (queue.isEmpty())
+                    out.flush();
+            }
+        } catch (InterruptedException ignored) {
+            // Closing
+        } catch (IOException e) {
+            closed = true;
+            errorLog.severe("Failed to write to the debug log: " + e.getMessage());
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        int lost = dropped.getAndSet(0);
+        if (lost > 0)
+            writeLine(entry.time, "(" + lost + " messages were dropped because the debug log could not keep up)");
+        if (entry.throwable != null) {
+            StringWriter stackTrace = new StringWriter();
+            entry.throwable.printStackTrace(new PrintWriter(stackTrace));
+            writeLine(entry.time, stackTrace.toString().trim());
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        if (entry.category != DebugCategory.GENERAL)
+            line.append('[').append(entry.category).append("] ");
+        if (entry.level.intValue() > Level.INFO.intValue())
+            line.append(entry.level).append(": ");
+        writeLine(entry.time, line.append(entry.message).toString());
+    }
+
+    private void writeLine(long time, String line) throws IOException {
+        if (bytesWritten >= maxBytes.getAsLong()) {
+            out.close();
+            rotate();
+            open();
+        }
+        String formatted = "[" + TIME_FORMAT.format(Instant.ofEpochMilli(time)) + "] " + line + System.lineSeparator();
+        out.write(formatted);
+        bytesWritten += formatted.length(); // Close enough to the size in bytes for a rotation threshold
+    }
+
+    private void open() throws IOException {
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        bytesWritten = 0;
+    }
+
+    private void rotate() throws IOException {
+        if (!Files.exists(file))
+            return;
+        int maxFiles = this.maxFiles.getAsInt();
+        if (maxFiles == 0) {
+            Files.delete(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--)
+            if (Files.exists(rotated(i)))
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int index) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String rotatedName = dot < 0 ? name + "." + index : name.substring(0, dot) + "." + index + name.substring(dot);
+        return file.resolveSibling(rotatedName);
+    }
+
+    private static class Entry {
+
+        private final long time = System.currentTimeMillis();
+        private final DebugCategory category;
+        private final Level level;
+        private final String message;
+        private final Throwable throwable;
+
+        private Entry(DebugCategory category, Level level, String message, Throwable throwable) {
+            this.category = category;
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.monst.bankingplugin.util;
+
+/**
+ * The parts of the plugin that write to the debug log, each of which can be given its own level in the config.
+ */
+public enum DebugCategory {
+    
+    GENERAL,
+    PERSISTENCE,
+    GUI,
+    INTEREST,
+    LISTENER
+    
+}
@@ -1,12 +1,16 @@
 package com.monst.bankingplugin.util;
 
-import java.io.PrintWriter;
-import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
+import java.util.logging.Level;
 
 public interface Logger {
     
-    void log(String message);
+    /**
+     * @return whether a message of this category and level would be written, so that it only needs to be
+     * built if it will be
+     */
+    boolean isLoggable(DebugCategory category, Level level);
+    
+    void log(DebugCategory category, Level level, String message);
     
     void log(Throwable throwable);
     
@@ -14,30 +18,15 @@ public interface Logger {
     
     Logger NO_OP = new Logger() {
         @Override
-        public void log(String message) {}
+        public boolean isLoggable(DebugCategory category, Level level) {
+            return false;
+        }
+        
+        @Override
+        public void log(DebugCategory category, Level level, String message) {}
         
         @Override
         public void log(Throwable throwable) {}
     };
     
-    static Logger printingTo(PrintWriter out) {
-        return new Logger() {
-            @Override
-            public void log(String message) {
-                out.printf("[%s] %s%n", LocalTime.now().truncatedTo(ChronoUnit.SECONDS).toString(), message);
-            }
-            
-            @Override
-            public void log(Throwable throwable) {
-                throwable.printStackTrace(out);
-                out.flush();
-            }
-    
-            @Override
-            public void close() {
-                out.close();
-            }
-        };
-    }
-    
 }
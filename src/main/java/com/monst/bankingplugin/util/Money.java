@@ -0,0 +1,179 @@
+package com.monst.bankingplugin.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An immutable amount of money, stored as a whole number of cents.
+ * This matches the NUMERIC(16,2) columns in the database exactly, and allows balances and payouts to be summed and
+ * multiplied without allocating a {@link BigDecimal} at every step.
+ * All rounding is {@link RoundingMode#HALF_EVEN}, and arithmetic that would overflow throws an {@link ArithmeticException}.
+ * Convert to and from {@link BigDecimal} only where the value enters or leaves the plugin (database, economy).
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long[] POWERS_OF_TEN = new long[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converts a {@link BigDecimal} to money, rounding to the nearest cent.
+     * @param amount the amount, or null
+     * @return the amount in money, or {@link #ZERO} if the amount was null
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null)
+            return ZERO;
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Converts the decimal amount {@code unscaledAmount * 10^-scale} to money, rounding to the nearest cent.
+     * The result is identical to {@code Money.of(BigDecimal.valueOf(unscaledAmount, scale))}.
+     * @param unscaledAmount the unscaled value of the amount
+     * @param scale the scale of the amount
+     * @return the rounded amount
+     */
+    public static Money of(long unscaledAmount, int scale) {
+        // Read the unscaled amount as cents and shift it by the remaining decimal places
+        return ofCents(unscaledAmount).multiply(1, scale - SCALE);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money add(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money subtract(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public Money abs() {
+        return cents < 0 ? negate() : this;
+    }
+
+    public Money multiply(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    /**
+     * Multiplies this amount by an arbitrary decimal factor such as an interest rate, rounding the product to the nearest cent.
+     * The result is identical to multiplying the {@link BigDecimal} values and calling {@code setScale(2, HALF_EVEN)}.
+     * @param factor the factor to multiply by
+     * @return the rounded product
+     */
+    public Money multiply(BigDecimal factor) {
+        if (factor.unscaledValue().bitLength() < Long.SIZE)
+            return multiply(factor.unscaledValue().longValue(), factor.scale());
+        return of(toBigDecimal().multiply(factor));
+    }
+
+    /**
+     * Multiplies this amount by the decimal factor {@code unscaledFactor * 10^-scale}, rounding the product to the nearest cent.
+     * Callers that apply the same factor many times can split it once with {@link BigDecimal#unscaledValue()} and
+     * {@link BigDecimal#scale()} and avoid any allocation here.
+     * @param unscaledFactor the unscaled value of the factor
+     * @param scale the scale of the factor
+     * @return the rounded product
+     */
+    public Money multiply(long unscaledFactor, int scale) {
+        if (scale > -POWERS_OF_TEN.length && scale < POWERS_OF_TEN.length) {
+            try {
+                long product = Math.multiplyExact(cents, unscaledFactor);
+                if (scale >= 0)
+                    return ofCents(divideHalfEven(product, POWERS_OF_TEN[scale]));
+                return ofCents(Math.multiplyExact(product, POWERS_OF_TEN[-scale]));
+            } catch (ArithmeticException overflow) {
+                // Fall through to the exact but slower path
+            }
+        }
+        return of(toBigDecimal().multiply(BigDecimal.valueOf(unscaledFactor, scale)));
+    }
+
+    /**
+     * Divides this amount into the given number of parts, rounding to the nearest cent.
+     */
+    public Money divide(long divisor) {
+        if (divisor == 0)
+            throw new ArithmeticException("Division by zero");
+        if (divisor < 0)
+            return negate().divide(Math.negateExact(divisor));
+        return ofCents(divideHalfEven(cents, divisor));
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public double doubleValue() {
+        return cents / 100.0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        return cents == ((Money) o).cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * Divides with {@link RoundingMode#HALF_EVEN}. The divisor must be positive.
+     */
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        int comparison = Long.compare(remainder, divisor - remainder);
+        if (comparison > 0 || (comparison == 0 && (quotient & 1) != 0))
+            quotient += Long.signum(dividend);
+        return quotient;
+    }
+
+}
@@ -4,6 +4,8 @@ import com.monst.bankingplugin.BankingPlugin;
 import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.OfflinePlayer;
 
+import java.util.logging.Level;
+
 public class PaymentService {
 
     private final BankingPlugin plugin;
@@ -38,7 +40,7 @@ public class PaymentService {
             case FAILURE:
                 return false;
             case NOT_IMPLEMENTED:
-                plugin.debug(response.errorMessage);
+                plugin.debug(DebugCategory.GENERAL, Level.WARNING, response.errorMessage);
             default:
                 throw new IllegalStateException("Economy action failed! Error message: '" + response.errorMessage + "'");
         }
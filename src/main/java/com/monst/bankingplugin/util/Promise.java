@@ -2,144 +2,195 @@ package com.monst.bankingplugin.util;
 
 import com.monst.bankingplugin.BankingPlugin;
 import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.concurrent.Callable;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-public interface Promise<T> {
-    
-    Promise<T> then(Consumer<T> onResult);
-    
-    Promise<T> catchError(Consumer<Exception> onError);
-    
-    Promise<T> finallyDo(Runnable runnable);
-    
-    // TODO: Add Plugin parameter to sync() method?
-    static <T> Promise<T> sync(Callable<T> task) {
-        return new Promise<T>() {
-            
-            private T result;
-            private Exception exception;
-            
-            {
-                try {
-                    this.result = task.call();
-                } catch (Exception e) {
-                    this.exception = e;
-                }
-            }
-            
-            @Override
-            public Promise<T> then(Consumer<T> onFulfilled) {
-                onFulfilled.accept(result);
-                return this;
-            }
-    
-            @Override
-            public Promise<T> catchError(Consumer<Exception> onRejected) {
-                onRejected.accept(exception);
-                return this;
-            }
-            
-            @Override
-            public Promise<T> finallyDo(Runnable runnable) {
-                runnable.run();
-                return this;
-            }
-        };
+/**
+ * The eventual result of a task, backed by a {@link CompletableFuture}.
+ * <p>
+ * Callbacks registered with {@link #then(Consumer)}, {@link #catchError(Consumer)} and {@link #finallyDo(Runnable)}
+ * always run on the main server thread; if the promise is already complete and they are registered from the main
+ * thread, they run immediately. Functions passed to {@link #map(Function)}, {@link #flatMap(Function)} and
+ * {@link #zip(Promise, BiFunction)} run on whichever thread completes the promise, and must not touch the Bukkit API.
+ * <p>
+ * A promise that has been {@link #cancel() cancelled} never calls any of its callbacks.
+ */
+public final class Promise<T> {
+
+    private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BankingPlugin Promise Timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CompletableFuture<T> future;
+    private volatile boolean cancelled;
+
+    private Promise(CompletableFuture<T> future) {
+        this.future = future;
     }
-    
-    static <T> Promise<T> async(BankingPlugin plugin, Callable<T> task) {
-        return new Promise<T>() {
-            
-            private T result;
-            private Exception exception;
-            
-            private Consumer<T> onFulfilled;
-            private Consumer<Exception> onRejected;
-            private Runnable finallyDo;
-            
-            private final Object lock = new Object();
-            
-            {
-                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                    try {
-                        T localResult = task.call();
-                        synchronized (lock) {
-                            this.result = localResult;
-                            if (onFulfilled != null)
-                                Bukkit.getScheduler().runTask(plugin, () -> onFulfilled.accept(result));
-                        }
-                    } catch (Exception e) {
-                        synchronized (lock) {
-                            this.exception = e;
-                            if (onRejected != null)
-                                Bukkit.getScheduler().runTask(plugin, () -> onRejected.accept(exception));
-                        }
-                        plugin.debug(exception);
-                    } finally {
-                        synchronized (lock) {
-                            if (finallyDo != null)
-                                Bukkit.getScheduler().runTask(plugin, finallyDo);
-                        }
-                    }
-                });
-            }
-            
-            @Override
-            public Promise<T> then(Consumer<T> onFulfilled) {
-                synchronized (lock) {
-                    if (result != null)
-                        onFulfilled.accept(result);
-                    else
-                        this.onFulfilled = onFulfilled;
-                }
-                return this;
-            }
-    
-            @Override
-            public Promise<T> catchError(Consumer<Exception> onRejected) {
-                synchronized (lock) {
-                    if (exception != null)
-                        onRejected.accept(exception);
-                    else
-                        this.onRejected = onRejected;
-                }
-                return this;
-            }
-            
-            @Override
-            public Promise<T> finallyDo(Runnable finallyDo) {
-                synchronized (lock) {
-                    if (result != null || exception != null)
-                        finallyDo.run();
-                    else
-                        this.finallyDo = finallyDo;
-                }
-                return this;
-            }
-        };
+
+    /**
+     * Runs the task on the calling thread.
+     */
+    public static <T> Promise<T> sync(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        complete(future, task);
+        return new Promise<>(future);
+    }
+
+    /**
+     * Runs the task on a Bukkit async thread. Any exception is written to the debug log.
+     */
+    public static <T> Promise<T> async(BankingPlugin plugin, Callable<T> task) {
+        Promise<T> promise = async(runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable), task);
+        promise.future.whenComplete((result, error) -> {
+            if (error != null && !isCancellation(error))
+                plugin.debug(unwrap(error));
+        });
+        return promise;
+    }
+
+    /**
+     * Runs the task with the given executor. If the executor rejects the task, the promise fails.
+     * A task that has not started yet when the promise is cancelled is skipped.
+     */
+    public static <T> Promise<T> async(Executor executor, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (!future.isDone())
+                    complete(future, task);
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return new Promise<>(future);
+    }
+
+    /**
+     * Creates a promise that is already fulfilled with the given result, which may be null.
+     */
+    public static <T> Promise<T> fulfill(T result) {
+        return new Promise<>(CompletableFuture.completedFuture(result));
+    }
+
+    /**
+     * Combines promises into one that is fulfilled with all of their results, in order,
+     * or fails as soon as one of them fails.
+     */
+    public static <T> Promise<List<T>> all(List<Promise<T>> promises) {
+        CompletableFuture<?>[] futures = promises.stream().map(promise -> promise.future).toArray(CompletableFuture[]::new);
+        return new Promise<>(CompletableFuture.allOf(futures).thenApply(ignored -> promises.stream()
+                .map(promise -> promise.future.join())
+                .collect(Collectors.toList())));
+    }
+
+    public <R> Promise<R> map(Function<? super T, ? extends R> mapper) {
+        return new Promise<>(future.thenApply(mapper));
+    }
+
+    public <R> Promise<R> flatMap(Function<? super T, Promise<R>> mapper) {
+        return new Promise<>(future.thenCompose(result -> mapper.apply(result).future));
+    }
+
+    /**
+     * Combines the results of this and another promise, which run at the same time.
+     */
+    public <U, R> Promise<R> zip(Promise<U> other, BiFunction<? super T, ? super U, ? extends R> combiner) {
+        return new Promise<>(future.thenCombine(other.future, combiner));
     }
-    
-    static <T> Promise<T> fulfill(T t) {
-        return new Promise<T>() {
-            @Override
-            public Promise<T> then(Consumer<T> onFulfilled) {
-                onFulfilled.accept(t);
-                return this;
-            }
-    
-            @Override
-            public Promise<T> catchError(Consumer<Exception> onError) {
-                return this;
-            }
-    
-            @Override
-            public Promise<T> finallyDo(Runnable finallyDo) {
-                finallyDo.run();
-                return this;
-            }
+
+    /**
+     * Fails this promise with a {@link TimeoutException} if it has not completed within the given time.
+     */
+    public Promise<T> timeout(long timeout, TimeUnit unit) {
+        if (future.isDone())
+            return this;
+        ScheduledFuture<?> timer = TIMEOUTS.schedule(
+                () -> future.completeExceptionally(new TimeoutException("Promise timed out after " + timeout + " " + unit)),
+                timeout, unit);
+        future.whenComplete((result, error) -> timer.cancel(false));
+        return this;
+    }
+
+    /**
+     * Cancels this promise, so that none of its callbacks are called. A task that has not started yet is skipped.
+     */
+    public void cancel() {
+        cancelled = true;
+        future.cancel(false);
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    public Promise<T> then(Consumer<? super T> onResult) {
+        future.thenAccept(result -> onMainThread(() -> onResult.accept(result)));
+        return this;
+    }
+
+    public Promise<T> catchError(Consumer<Exception> onError) {
+        future.whenComplete((result, error) -> {
+            if (error == null || isCancellation(error))
+                return;
+            Throwable cause = unwrap(error);
+            onMainThread(() -> onError.accept(cause instanceof Exception ? (Exception) cause : new ExecutionException(cause)));
+        });
+        return this;
+    }
+
+    /**
+     * Runs the callback once this promise is either fulfilled or failed.
+     */
+    public Promise<T> finallyDo(Runnable runnable) {
+        future.whenComplete((result, error) -> {
+            if (error == null || !isCancellation(error))
+                onMainThread(runnable);
+        });
+        return this;
+    }
+
+    private void onMainThread(Runnable callback) {
+        Runnable unlessCancelled = () -> {
+            if (!cancelled)
+                callback.run();
         };
+        if (Bukkit.isPrimaryThread()) {
+            unlessCancelled.run();
+            return;
+        }
+        try {
+            Bukkit.getScheduler().runTask(JavaPlugin.getPlugin(BankingPlugin.class), unlessCancelled);
+        } catch (IllegalPluginAccessException ignored) {
+            // The plugin is being disabled
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Callable<T> task) {
+        try {
+            future.complete(task.call());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
     }
-    
+
+    private static boolean isCancellation(Throwable error) {
+        return unwrap(error) instanceof CancellationException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null)
+            return error.getCause();
+        return error;
+    }
+
 }
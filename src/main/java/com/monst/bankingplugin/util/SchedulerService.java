@@ -8,6 +8,7 @@ import org.bukkit.Bukkit;
 
 import java.time.*;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class SchedulerService {
@@ -29,7 +30,7 @@ public class SchedulerService {
     }
 
     public void scheduleAll() {
-        plugin.debug("Scheduling all interest payments...");
+        plugin.debug(DebugCategory.INTEREST, "Scheduling all interest payments...");
         Set<LocalTime> currentDistinctTimes = queryAllDistinctTimes();
         for (Iterator<LocalTime> iterator = payoutTimeTaskIDs.keySet().iterator(); iterator.hasNext();) {
             LocalTime time = iterator.next();
@@ -50,37 +51,37 @@ public class SchedulerService {
         Duration until = Duration.between(Instant.now(), nextOccurrence);
         long ticks = until.getSeconds() * 20; // Get number of ticks between now and next instance
 
-        plugin.debug("Scheduling interest payment at %s, %d minutes from now", time, until.toMinutes());
+        plugin.debug(DebugCategory.INTEREST, Level.FINER, "Scheduling interest payment at %s, %d minutes from now", time, until.toMinutes());
         // Schedule task starting at next instance, repeating daily, where an InterestEvent is fired with the scheduled banks
         // 24 hours/day * 60 minutes/hour * 60 seconds/minute * 20 ticks/second = 1728000 ticks/day
         return Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, () -> throwEvent(time), ticks, 1728000L);
     }
 
     private void unschedule(LocalTime time) {
-        plugin.debug("Unscheduling interest payment at %s...", time);
+        plugin.debug(DebugCategory.INTEREST, Level.FINER, "Unscheduling interest payment at %s...", time);
         Integer taskID = payoutTimeTaskIDs.remove(time);
         if (taskID != null)
             Bukkit.getScheduler().cancelTask(taskID);
     }
 
     public void unscheduleAll() {
-        plugin.debug("Unscheduling all interest payments...");
+        plugin.debug(DebugCategory.INTEREST, "Unscheduling all interest payments...");
         payoutTimeTaskIDs.values().forEach(Bukkit.getScheduler()::cancelTask);
         payoutTimeTaskIDs.clear();
     }
 
     private void throwEvent(LocalTime time) {
-        plugin.debug("Triggering scheduled InterestEvent at %s...", time);
+        plugin.debug(DebugCategory.INTEREST, "Triggering scheduled InterestEvent at %s...", time);
         try {
             new InterestEvent(Bukkit.getConsoleSender(), findBanksAtTime(time)).fire();
         } catch (EventCancelledException e) {
-            plugin.debug("InterestEvent cancelled.");
+            plugin.debug(DebugCategory.INTEREST, "InterestEvent cancelled.");
         }
     }
 
     private Set<Bank> findBanksAtTime(LocalTime time) {
         return plugin.getBankService().findAll().stream()
-                .filter(bank -> plugin.config().interestPayoutTimes.at(bank).contains(time))
+                .filter(bank -> plugin.config().policiesAt(bank).getInterestPayoutTimes().contains(time))
                 .collect(Collectors.toSet());
     }
 
@@ -3,48 +3,149 @@ package com.monst.bankingplugin.util;
 import com.earth2me.essentials.Essentials;
 import com.monst.bankingplugin.BankingPlugin;
 import com.monst.bankingplugin.entity.Account;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
 
 public class Worths {
     
     private final BankingPlugin plugin;
     private final Essentials essentials;
     
+    /**
+     * The price of each material, indexed by {@link Material#ordinal()}, with blacklisted materials already set to zero.
+     * The same prices are also kept as unscaled values at a common scale, so that contents can be appraised by
+     * summing longs, unless some price has too many digits to fit in a long at that scale.
+     */
+    private static final class PriceTable {
+        
+        private final BigDecimal[] prices;
+        private final long[] unscaledPrices;
+        private final int scale;
+        
+        private PriceTable(BigDecimal[] prices) {
+            this.prices = prices;
+            int scale = 0;
+            for (BigDecimal price : prices)
+                scale = Math.max(scale, price.scale());
+            long[] unscaledPrices = new long[prices.length];
+            try {
+                for (int i = 0; i < prices.length; i++)
+                    unscaledPrices[i] = prices[i].setScale(scale).unscaledValue().longValueExact();
+            } catch (ArithmeticException overflow) {
+                unscaledPrices = null;
+            }
+            this.unscaledPrices = unscaledPrices;
+            this.scale = scale;
+        }
+        
+    }
+    
+    private volatile PriceTable priceTable;
+    private int refreshTaskID = -1;
+    
     public Worths(BankingPlugin plugin, Essentials essentials) {
         this.plugin = plugin;
         this.essentials = essentials;
+        reload();
+        scheduleRefresh();
+    }
+    
+    /**
+     * Rebuilds the price table from the Essentials worth file and the current blacklist.
+     */
+    public void reload() {
+        Material[] materials = Material.values();
+        BigDecimal[] prices = new BigDecimal[materials.length];
+        int priced = 0;
+        for (Material material : materials) {
+            prices[material.ordinal()] = lookUpWorth(material);
+            if (prices[material.ordinal()].signum() != 0)
+                priced++;
+        }
+        PriceTable priceTable = new PriceTable(prices);
+        this.priceTable = priceTable;
+        plugin.debug(DebugCategory.GENERAL, Level.INFO, "Loaded prices of %d materials.", priced);
+        if (priceTable.unscaledPrices == null)
+            plugin.debug(DebugCategory.GENERAL, Level.FINE,
+                    "Prices have too many decimal places to be summed as whole numbers; appraising with BigDecimal.");
+    }
+    
+    /**
+     * Schedules the price table to be rebuilt at the interval set in the config, replacing any previous schedule.
+     */
+    public void scheduleRefresh() {
+        if (refreshTaskID != -1)
+            Bukkit.getScheduler().cancelTask(refreshTaskID);
+        refreshTaskID = -1;
+        Optional<Integer> minutes = plugin.config().worthRefreshInterval.get();
+        if (!minutes.isPresent() || minutes.get() <= 0)
+            return;
+        long ticks = minutes.get() * 60L * 20L;
+        refreshTaskID = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::reload, ticks, ticks);
     }
     
     /**
      * Appraises the contents of the given account, assuming its chest can be found.
-     * The account balance is then updated.
      * @param account the account to appraise
      * @see Account#getContents()
      */
-    public BigDecimal appraise(Account account) {
-        return account.getContents().entrySet().stream()
-                .map(this::getWorth)
-                .reduce(BigDecimal::add)
-                .orElse(BigDecimal.ZERO);
+    public Money appraise(Account account) {
+        return appraise(account.getContents());
     }
     
-    private BigDecimal getWorth(Map.Entry<Material, Integer> materialAmount) {
-        return getWorth(materialAmount.getKey(), materialAmount.getValue());
+    /**
+     * Appraises the given amounts of materials.
+     * Prices are summed exactly and the total is rounded to the nearest cent once.
+     * @param contents the amount of each material
+     * @see AccountContentsTracker#getContents(Account)
+     */
+    public Money appraise(Map<Material, Integer> contents) {
+        PriceTable priceTable = this.priceTable;
+        if (priceTable.unscaledPrices != null) {
+            try {
+                long total = 0;
+                for (Map.Entry<Material, Integer> materialAmount : contents.entrySet()) {
+                    long price = priceTable.unscaledPrices[materialAmount.getKey().ordinal()];
+                    if (price != 0)
+                        total = Math.addExact(total, Math.multiplyExact(price, materialAmount.getValue()));
+                }
+                return Money.of(total, priceTable.scale);
+            } catch (ArithmeticException overflow) {
+                // Fall through to the exact but slower path
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Material, Integer> materialAmount : contents.entrySet())
+            total = total.add(getWorth(materialAmount.getKey(), materialAmount.getValue()));
+        return Money.of(total);
     }
     
     public BigDecimal getWorth(Material material, int amount) {
-        return getWorth(material).multiply(BigDecimal.valueOf(amount));
+        BigDecimal worth = getWorth(material);
+        if (worth.signum() == 0)
+            return BigDecimal.ZERO;
+        return worth.multiply(BigDecimal.valueOf(amount));
     }
     
     public BigDecimal getWorth(Material material) {
-        if (plugin.config().blacklist.contains(material))
+        return priceTable.prices[material.ordinal()];
+    }
+    
+    private BigDecimal lookUpWorth(Material material) {
+        if (material.isLegacy() || plugin.config().blacklist.contains(material))
+            return BigDecimal.ZERO;
+        try {
+            BigDecimal worth = essentials.getWorth().getPrice(essentials, new ItemStack(material));
+            return worth != null ? worth : BigDecimal.ZERO;
+        } catch (RuntimeException e) { // Some materials cannot be held as items
             return BigDecimal.ZERO;
-        BigDecimal worth = essentials.getWorth().getPrice(essentials, new ItemStack(material));
-        return worth != null ? worth : BigDecimal.ZERO;
+        }
     }
     
 }
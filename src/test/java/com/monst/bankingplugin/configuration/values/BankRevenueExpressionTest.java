@@ -0,0 +1,76 @@
+package com.monst.bankingplugin.configuration.values;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.function.Function;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankRevenueExpressionTest {
+
+    private static final String[] EXPRESSIONS = {
+            "(0.10 * x) * (1 - g) * log(c)",
+            "x * e^(-g)",
+            "pi * a^2 / n - π",
+            "φ * sqrt(c) + cbrt(x) - abs(-a)",
+            "2x + 3a - -n",
+            "-x % 7 + ln(n) * log10(c)",
+            "pow(a, 0.5) + log2(c) + exp(-g)",
+            "sin(x) * cos(a) + tan(g) + sinh(g) + cosh(g) + tanh(g)",
+            "floor(a) + ceil(g) + signum(x - a) + 1.5e2",
+            "e",
+    };
+
+    private static Expression reference(String expression) {
+        return new ExpressionBuilder(expression)
+                .variables("x", "a", "n", "c", "g")
+                .function(new Function("ln", 1) {
+                    @Override
+                    public double apply(double... args) {
+                        return Math.log(args[0]);
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    void testCompiledMatchesExp4j() {
+        Random random = new Random(24);
+        for (String expression : EXPRESSIONS) {
+            BankRevenueExpression.ExpressionWrapper compiled = BankRevenueExpression.expressionOf(expression);
+            Expression reference = reference(expression);
+            for (int i = 0; i < 100; i++) {
+                double x = random.nextDouble() * 1_000_000;
+                double a = random.nextDouble() * 10_000;
+                int n = 1 + random.nextInt(100);
+                int c = 1 + random.nextInt(50);
+                double g = random.nextDouble();
+                double expected = reference
+                        .setVariable("x", x).setVariable("a", a).setVariable("n", n)
+                        .setVariable("c", c).setVariable("g", g)
+                        .evaluate();
+                double actual = compiled.evaluate(x, a, n, c, g).doubleValue();
+                assertEquals(expected, actual, Math.abs(expected) * 1e-12, expression);
+            }
+        }
+    }
+
+    @Test
+    void testConstantsAreValid() {
+        assertTrue(BankRevenueExpression.expressionOf("x * e^(-g)").isValidSyntax());
+        assertEquals(Math.E, BankRevenueExpression.expressionOf("e").evaluate(0, 0, 0, 0, 0).doubleValue());
+        assertEquals(Math.PI, BankRevenueExpression.expressionOf("pi").evaluate(0, 0, 0, 0, 0).doubleValue());
+    }
+
+    @Test
+    void testDivisionByZeroIsNoRevenue() {
+        assertEquals(BigDecimal.ZERO, BankRevenueExpression.expressionOf("x / (n - n)").evaluate(1, 1, 1, 1, 0));
+        assertEquals(BigDecimal.ZERO, BankRevenueExpression.expressionOf("x % 0").evaluate(1, 1, 1, 1, 0));
+        assertEquals(BigDecimal.ZERO, BankRevenueExpression.expressionOf("sqrt(-x)").evaluate(1, 1, 1, 1, 0)); // NaN
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.monst.bankingplugin.entity;
+
+import com.monst.bankingplugin.util.Money;
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BankStatisticsTest {
+
+    private final Random random = new Random(42);
+    private final List<OfflinePlayer> players = new ArrayList<>();
+
+    {
+        for (int i = 0; i < 20; i++)
+            players.add(createMock(OfflinePlayer.class));
+    }
+
+    @Test
+    void testMatchesRecalculationAfterEveryChange() {
+        Bank bank = new Bank("Bank", null, null);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int action = random.nextInt(10);
+            if (action < 4 || accounts.isEmpty()) {
+                Account account = new Account(i, bank, randomPlayer(), Collections.emptySet(), null,
+                        randomBalance(), Money.ZERO, 0, 0, null);
+                accounts.add(account);
+                bank.addAccount(account);
+            } else if (action < 6) {
+                bank.removeAccount(accounts.remove(random.nextInt(accounts.size())));
+            } else if (action < 9) {
+                accounts.get(random.nextInt(accounts.size())).setBalance(randomBalance());
+            } else {
+                accounts.get(random.nextInt(accounts.size())).setOwner(randomPlayer());
+            }
+            assertEquals(totalValue(accounts), bank.getTotalValue());
+            assertEquals(holders(accounts), bank.getAccountHolders());
+            assertEquals(giniCoefficient(accounts), bank.getGiniCoefficient());
+        }
+    }
+
+    @Test
+    void testSingleHolderAndEmptyBankHaveNoInequality() {
+        Bank bank = new Bank("Bank", null, null);
+        assertEquals(BigDecimal.ZERO, bank.getGiniCoefficient());
+        OfflinePlayer player = randomPlayer();
+        bank.addAccount(new Account(1, bank, player, Collections.emptySet(), null, Money.ofCents(100), Money.ZERO, 0, 0, null));
+        bank.addAccount(new Account(2, bank, player, Collections.emptySet(), null, Money.ofCents(900), Money.ZERO, 0, 0, null));
+        assertEquals(BigDecimal.ZERO, bank.getGiniCoefficient());
+        assertEquals(Money.ofCents(500), bank.getAverageValue());
+    }
+
+    private OfflinePlayer randomPlayer() {
+        return players.get(random.nextInt(players.size()));
+    }
+
+    private Money randomBalance() {
+        return Money.ofCents(random.nextInt(5) == 0 ? 0 : random.nextInt(1_000_000));
+    }
+
+    private static Money totalValue(List<Account> accounts) {
+        long cents = 0;
+        for (Account account : accounts)
+            cents += account.getBalance().getCents();
+        return Money.ofCents(cents);
+    }
+
+    private static Set<OfflinePlayer> holders(List<Account> accounts) {
+        Set<OfflinePlayer> holders = new HashSet<>();
+        for (Account account : accounts)
+            holders.add(account.getOwner());
+        return holders;
+    }
+
+    // The calculation the bank used before its statistics were kept up to date incrementally
+    private static BigDecimal giniCoefficient(List<Account> accounts) {
+        if (holders(accounts).size() <= 1)
+            return BigDecimal.ZERO;
+        Money totalValue = totalValue(accounts);
+        if (totalValue.signum() == 0)
+            return BigDecimal.ZERO;
+        Map<OfflinePlayer, Long> balancesByHolder = new HashMap<>();
+        for (Account account : accounts)
+            balancesByHolder.merge(account.getOwner(), account.getBalance().getCents(), Long::sum);
+        long[] balances = balancesByHolder.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        long sum = 0;
+        for (int i = 1; i <= balances.length; i++)
+            sum += balances[i - 1] * ((i * 2L) - balances.length - 1);
+        BigDecimal bottomSum = totalValue.toBigDecimal().multiply(BigDecimal.valueOf(balances.length));
+        return BigDecimal.valueOf(sum, 2).divide(bottomSum, RoundingMode.HALF_EVEN);
+    }
+
+}
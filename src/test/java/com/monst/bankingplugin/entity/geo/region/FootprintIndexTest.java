@@ -0,0 +1,72 @@
+package com.monst.bankingplugin.entity.geo.region;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FootprintIndexTest {
+
+    private static void assertSameAsEdges(PolygonalBankRegion region) {
+        FootprintIndex slabs = FootprintIndex.build(region, null);
+        FootprintIndex bitmap = FootprintIndex.build(region, Integer.MAX_VALUE);
+        for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+            for (int z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+                boolean expected = region.containsByEdges(x, z);
+                assertEquals(expected, slabs.contains(x, z), "(" + x + ", " + z + ") in " + region);
+                assertEquals(expected, bitmap.contains(x, z), "(" + x + ", " + z + ") in " + region);
+            }
+        }
+    }
+
+    @Test
+    void testStarPolygons() {
+        Random random = new Random(23);
+        for (int i = 0; i < 200; i++)
+            assertSameAsEdges(RegionOverlapTest.randomPolygon(random, 3 + random.nextInt(100)));
+    }
+
+    @Test
+    void testRectilinearPolygons() {
+        // A skyline of columns with random heights, which has many vertical edges and vertices in the same column
+        Random random = new Random(23);
+        for (int i = 0; i < 200; i++) {
+            int columns = 1 + random.nextInt(20);
+            int[] pointsX = new int[2 * columns + 2];
+            int[] pointsZ = new int[2 * columns + 2];
+            int x = 0;
+            pointsX[0] = 0;
+            pointsZ[0] = 0;
+            for (int c = 0; c < columns; c++) {
+                int height = 1 + random.nextInt(10);
+                pointsX[2 * c + 1] = x;
+                pointsZ[2 * c + 1] = height;
+                x += 1 + random.nextInt(5);
+                pointsX[2 * c + 2] = x;
+                pointsZ[2 * c + 2] = height;
+            }
+            pointsX[2 * columns + 1] = x;
+            pointsZ[2 * columns + 1] = 0;
+            PolygonalBankRegion region = new PolygonalBankRegion(null, pointsX, pointsZ, 0, 10);
+            if (region.isSimple()) // Neighboring columns of equal height repeat a vertex
+                assertSameAsEdges(region);
+        }
+    }
+
+    @Test
+    void testSelfIntersectingPolygon() {
+        PolygonalBankRegion bowtie = new PolygonalBankRegion(null,
+                new int[] { 0, 100, 100, 0, 0, 50, 50, 20 }, new int[] { 0, 100, 0, 100, 70, 80, 10, 30 }, 0, 10);
+        assertFalse(bowtie.isSimple());
+        assertSameAsEdges(bowtie);
+    }
+
+    @Test
+    void testContainsOutsideBoundingBox() {
+        PolygonalBankRegion region = RegionOverlapTest.randomPolygon(new Random(23), 50);
+        assertFalse(region.contains(region.getMinX() - 1, region.getMinZ()));
+        assertFalse(region.contains(region.getMaxX(), region.getMaxZ() + 1));
+    }
+
+}
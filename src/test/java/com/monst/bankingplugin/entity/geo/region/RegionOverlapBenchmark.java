@@ -0,0 +1,56 @@
+package com.monst.bankingplugin.entity.geo.region;
+
+import java.util.Random;
+
+/**
+ * Compares {@link BankRegion#overlaps(BankRegion)} with intersecting {@link java.awt.geom.Area}s on large polygons.
+ * This is not run with the tests; run the main method to print the average time per overlap test.
+ */
+public class RegionOverlapBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        for (int vertices : new int[] { 100, 1_000, 10_000 }) {
+            PolygonalBankRegion polygon = star(random, 0, 0, 10_000, vertices);
+            benchmark("nested " + vertices, polygon, star(random, 0, 0, 1_000, vertices));
+            benchmark("crossing " + vertices, polygon, star(random, 10_000, 0, 10_000, vertices));
+            benchmark("disjoint " + vertices, polygon, star(random, 30_000, 0, 10_000, vertices));
+            benchmark("cuboid " + vertices, polygon, new CuboidBankRegion(null, 9_000, 0, 9_000, 12_000, 10, 12_000));
+        }
+    }
+
+    private static void benchmark(String name, BankRegion a, BankRegion b) {
+        boolean expected = RegionOverlapTest.intersectionOfAreas(a, b);
+        if (a.overlaps(b) != expected)
+            System.out.println(name + ": overlap engine disagrees with Area");
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            a.overlaps(b);
+            RegionOverlapTest.intersectionOfAreas(a, b);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+            a.overlaps(b);
+        long engine = (System.nanoTime() - start) / MEASURED_ROUNDS;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+            RegionOverlapTest.intersectionOfAreas(a, b);
+        long area = (System.nanoTime() - start) / MEASURED_ROUNDS;
+        System.out.printf("%-16s overlaps=%-5b engine=%,10dns area=%,14dns%n", name, expected, engine, area);
+    }
+
+    private static PolygonalBankRegion star(Random random, int centerX, int centerZ, int radius, int n) {
+        int[] pointsX = new int[n];
+        int[] pointsZ = new int[n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double r = radius * (0.9 + random.nextDouble() * 0.1);
+            pointsX[i] = centerX + (int) Math.round(r * Math.cos(angle));
+            pointsZ[i] = centerZ + (int) Math.round(r * Math.sin(angle));
+        }
+        return new PolygonalBankRegion(null, pointsX, pointsZ, 0, 10);
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.monst.bankingplugin.entity.geo.region;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Area;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionOverlapTest {
+
+    private static BankRegion cuboid(int x1, int z1, int x2, int z2) {
+        return new CuboidBankRegion(null, x1, 0, z1, x2, 10, z2);
+    }
+
+    private static BankRegion polygon(int... points) {
+        int[] pointsX = new int[points.length / 2];
+        int[] pointsZ = new int[points.length / 2];
+        for (int i = 0; i < pointsX.length; i++) {
+            pointsX[i] = points[2 * i];
+            pointsZ[i] = points[2 * i + 1];
+        }
+        return new PolygonalBankRegion(null, pointsX, pointsZ, 0, 10);
+    }
+
+    private static void assertOverlap(boolean expected, BankRegion a, BankRegion b) {
+        assertEquals(expected, a.overlaps(b));
+        assertEquals(expected, b.overlaps(a));
+    }
+
+    @Test
+    void testCuboids() {
+        assertOverlap(true, cuboid(0, 0, 10, 10), cuboid(5, 5, 15, 15));
+        assertOverlap(true, cuboid(0, 0, 10, 10), cuboid(10, 10, 20, 20)); // Sharing a corner block
+        assertOverlap(false, cuboid(0, 0, 10, 10), cuboid(11, 0, 20, 10));
+        assertOverlap(false, cuboid(0, 0, 10, 10), new CuboidBankRegion(null, 0, 11, 0, 10, 20, 10));
+    }
+
+    @Test
+    void testCuboidAndPolygon() {
+        BankRegion triangle = polygon(0, 0, 100, 0, 0, 100);
+        assertOverlap(true, triangle, cuboid(10, 10, 20, 20));
+        assertOverlap(true, triangle, cuboid(-10, -10, 200, 200)); // Triangle inside the cuboid
+        assertOverlap(true, triangle, cuboid(50, 50, 60, 60)); // Touching the hypotenuse
+        assertOverlap(false, triangle, cuboid(51, 51, 60, 60));
+        // A thin cuboid across a thin polygon, without a vertex of either inside the other
+        assertOverlap(true, polygon(45, -100, 55, -100, 55, 100, 45, 100), cuboid(-100, -5, 100, 5));
+    }
+
+    @Test
+    void testPolygons() {
+        BankRegion square = polygon(0, 0, 100, 0, 100, 100, 0, 100);
+        assertOverlap(true, square, polygon(50, 50, 150, 50, 150, 150));
+        assertOverlap(true, square, polygon(100, 0, 200, 0, 200, 100, 100, 100)); // Sharing an edge
+        assertOverlap(false, square, polygon(101, 0, 200, 0, 200, 100, 101, 100));
+        assertOverlap(true, square, polygon(10, 10, 20, 10, 20, 20)); // Nested
+        assertOverlap(true, polygon(-10, 40, 110, 40, 110, 60, -10, 60), polygon(40, -10, 60, -10, 60, 110, 40, 110));
+        // A square inside the notch of a U
+        BankRegion u = polygon(0, 0, 30, 0, 30, 30, 20, 30, 20, 10, 10, 10, 10, 30, 0, 30);
+        assertOverlap(false, u, polygon(12, 12, 18, 12, 18, 28, 12, 28));
+    }
+
+    @Test
+    void testSelfIntersectingPolygon() {
+        BankRegion bowtie = polygon(0, 0, 100, 100, 100, 0, 0, 100);
+        assertFalse(((PolygonalBankRegion) bowtie).isSimple());
+        assertTrue(((PolygonalBankRegion) polygon(0, 0, 100, 0, 100, 100, 0, 100)).isSimple());
+        assertOverlap(true, bowtie, polygon(90, 40, 95, 40, 95, 60, 90, 60));
+        assertOverlap(false, bowtie, polygon(40, 5, 60, 5, 60, 10, 40, 10));
+    }
+
+    @Test
+    void testRandomPolygonsAgainstArea() {
+        Random random = new Random(22);
+        for (int trial = 0; trial < 2000; trial++) {
+            PolygonalBankRegion a = randomPolygon(random, 3 + random.nextInt(30));
+            PolygonalBankRegion b = randomPolygon(random, 3 + random.nextInt(30));
+            boolean overlaps = a.overlaps(b);
+            assertEquals(overlaps, b.overlaps(a));
+            if (intersectionOfAreas(a, b))
+                assertTrue(overlaps);
+            else
+                assertEquals(bordersTouch(a, b), overlaps);
+            for (int i = 0; i < 20 && !overlaps; i++) {
+                int x = random.nextInt(400) - 200;
+                int z = random.nextInt(400) - 200;
+                assertFalse(a.contains(x, z) && b.contains(x, z));
+            }
+        }
+    }
+
+    /**
+     * A star-shaped polygon around a random center, with vertices at increasing angles.
+     */
+    static PolygonalBankRegion randomPolygon(Random random, int n) {
+        int centerX = random.nextInt(200) - 100;
+        int centerZ = random.nextInt(200) - 100;
+        int radius = 10 + random.nextInt(100);
+        int[] pointsX = new int[n];
+        int[] pointsZ = new int[n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * (i + random.nextDouble() * 0.5) / n;
+            double r = radius * (0.5 + random.nextDouble() * 0.5);
+            pointsX[i] = centerX + (int) Math.round(r * Math.cos(angle));
+            pointsZ[i] = centerZ + (int) Math.round(r * Math.sin(angle));
+        }
+        return new PolygonalBankRegion(null, pointsX, pointsZ, 0, 10);
+    }
+
+    static boolean intersectionOfAreas(BankRegion a, BankRegion b) {
+        Area area = new Area(a.getShape());
+        area.intersect(new Area(b.getShape()));
+        return !area.isEmpty();
+    }
+
+    private static boolean bordersTouch(PolygonalBankRegion a, PolygonalBankRegion b) {
+        int[] aX = a.getPointsX(), aZ = a.getPointsZ(), bX = b.getPointsX(), bZ = b.getPointsZ();
+        for (int i = 0; i < aX.length; i++) {
+            int i2 = (i + 1) % aX.length;
+            for (int j = 0; j < bX.length; j++) {
+                int j2 = (j + 1) % bX.length;
+                if (RegionOverlap.segmentsIntersect(aX[i], aZ[i], aX[i2], aZ[i2], bX[j], bZ[j], bX[j2], bZ[j2]))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+}
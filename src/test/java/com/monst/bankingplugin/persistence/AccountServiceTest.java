@@ -37,7 +37,7 @@ public class AccountServiceTest {
     private AccountLocation loc;
     
     @TestSubject
-    AccountService accountService = new AccountService(plugin, dataSource::getConnection);
+    AccountService accountService = new AccountService(plugin, dataSource::getConnection, Runnable::run);
     
     @Test
     public void testCount() {
@@ -0,0 +1,85 @@
+package com.monst.bankingplugin.persistence;
+
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryTest {
+
+    private static final String SQL = "DELETE FROM ACCOUNT WHERE account_id IN (%s)";
+
+    private static int countParameters(Query query) {
+        return (int) query.sql.chars().filter(c -> c == '?').count();
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.rangeClosed(1, size).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void testBucketSizes() {
+        assertEquals(8, countParameters(Query.of(SQL).in(Collections.emptyList())));
+        assertEquals(8, countParameters(Query.of(SQL).in(range(1))));
+        assertEquals(8, countParameters(Query.of(SQL).in(range(8))));
+        assertEquals(32, countParameters(Query.of(SQL).in(range(9))));
+        assertEquals(32, countParameters(Query.of(SQL).in(range(32))));
+        assertEquals(128, countParameters(Query.of(SQL).in(range(33))));
+        assertEquals(128, countParameters(Query.of(SQL).in(range(128))));
+        assertEquals(256, countParameters(Query.of(SQL).in(range(129))));
+        assertEquals(1024, countParameters(Query.of(SQL).in(range(Query.MAX_IN_LIST_SIZE))));
+    }
+
+    @Test
+    void testPaddingRepeatsLastElement() throws SQLException {
+        ParametrizedQuery query = Query.of(SQL).in(Arrays.asList(4, 5, 6));
+        PreparedStatement stmt = EasyMock.mock(PreparedStatement.class);
+        Connection con = EasyMock.mock(Connection.class);
+        EasyMock.expect(con.prepareStatement(query.sql)).andReturn(stmt);
+        stmt.setObject(1, 4);
+        stmt.setObject(2, 5);
+        for (int i = 3; i <= 8; i++)
+            stmt.setObject(i, 6);
+        EasyMock.expect(stmt.executeUpdate()).andReturn(3);
+        stmt.close();
+        EasyMock.replay(con, stmt);
+        assertEquals(3, query.executeUpdate(con));
+        EasyMock.verify(con, stmt);
+    }
+
+    @Test
+    void testEmptyListIsPaddedWithNulls() throws SQLException {
+        ParametrizedQuery query = Query.of(SQL).in(Collections.emptyList());
+        PreparedStatement stmt = EasyMock.mock(PreparedStatement.class);
+        Connection con = EasyMock.mock(Connection.class);
+        EasyMock.expect(con.prepareStatement(query.sql)).andReturn(stmt);
+        for (int i = 1; i <= 8; i++)
+            stmt.setObject(i, null);
+        EasyMock.expect(stmt.executeUpdate()).andReturn(0);
+        stmt.close();
+        EasyMock.replay(con, stmt);
+        assertEquals(0, query.executeUpdate(con));
+        EasyMock.verify(con, stmt);
+    }
+
+    @Test
+    void testPartition() {
+        List<List<Integer>> partitions = Query.partition(range(2500));
+        assertEquals(3, partitions.size());
+        assertEquals(Query.MAX_IN_LIST_SIZE, partitions.get(0).size());
+        assertEquals(Query.MAX_IN_LIST_SIZE, partitions.get(1).size());
+        assertEquals(2500 - 2 * Query.MAX_IN_LIST_SIZE, partitions.get(2).size());
+        assertEquals(Integer.valueOf(1025), partitions.get(1).get(0));
+        assertTrue(Query.partition(Collections.emptyList()).isEmpty());
+    }
+
+}
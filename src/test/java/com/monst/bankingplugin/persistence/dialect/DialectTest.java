@@ -0,0 +1,87 @@
+package com.monst.bankingplugin.persistence.dialect;
+
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DialectTest {
+
+    @Test
+    void testForUrl() {
+        assertTrue(Dialect.forUrl("jdbc:hsqldb:file:plugins/BankingPlugin/database/banking") instanceof HSQLDBDialect);
+        assertTrue(Dialect.forUrl("jdbc:mysql://localhost:3306/banking") instanceof MySQLDialect);
+        assertTrue(Dialect.forUrl("jdbc:mariadb://localhost:3306/banking") instanceof MySQLDialect);
+        assertTrue(Dialect.forUrl("jdbc:postgresql://localhost/banking") instanceof PostgreSQLDialect);
+        assertThrows(IllegalArgumentException.class, () -> Dialect.forUrl("jdbc:sqlite:banking.db"));
+    }
+
+    @Test
+    void testMySQLDriver() {
+        assertEquals("org.mariadb.jdbc.Driver", Dialect.forUrl("jdbc:mariadb://localhost/banking").getDriverClassNames().get(0));
+        assertEquals("com.mysql.cj.jdbc.Driver", Dialect.forUrl("jdbc:mysql://localhost/banking").getDriverClassNames().get(0));
+    }
+
+    @Test
+    void testMySQLUUID() throws SQLException {
+        Dialect dialect = new MySQLDialect(false);
+        UUID uuid = UUID.randomUUID();
+        Object stored = dialect.toDatabase(null, uuid);
+        assertEquals(uuid.toString(), stored);
+
+        ResultSet rs = EasyMock.mock(ResultSet.class);
+        EasyMock.expect(rs.getObject("owner_uuid")).andReturn(stored);
+        EasyMock.replay(rs);
+        assertEquals(uuid, dialect.getUUID(rs, "owner_uuid"));
+    }
+
+    @Test
+    void testMySQLArrays() throws SQLException {
+        Dialect dialect = new MySQLDialect(false);
+        Object multipliers = dialect.toDatabase(null, new Integer[] { 1, 2, 3 });
+        Object times = dialect.toDatabase(null, new LocalTime[] { LocalTime.of(9, 30), LocalTime.of(21, 0) });
+        Object points = dialect.toDatabase(null, new int[] { -5, 0, 5 });
+        Object empty = dialect.toDatabase(null, new Integer[0]);
+        assertEquals("1,2,3", multipliers);
+        assertEquals("-5,0,5", points);
+
+        ResultSet rs = EasyMock.mock(ResultSet.class);
+        EasyMock.expect(rs.getString("interest_multipliers")).andReturn((String) multipliers);
+        EasyMock.expect(rs.getString("interest_payout_times")).andReturn((String) times);
+        EasyMock.expect(rs.getString("points_x")).andReturn((String) points);
+        EasyMock.expect(rs.getString("points_z")).andReturn((String) empty);
+        EasyMock.expect(rs.getString("interest_rate")).andReturn(null);
+        EasyMock.replay(rs);
+        assertArrayEquals(new Object[] { 1, 2, 3 }, dialect.getArray(rs, "interest_multipliers", Integer::valueOf));
+        assertArrayEquals(new Object[] { LocalTime.of(9, 30), LocalTime.of(21, 0) },
+                dialect.getArray(rs, "interest_payout_times", LocalTime::parse));
+        assertArrayEquals(new Object[] { -5, 0, 5 }, dialect.getArray(rs, "points_x", Integer::valueOf));
+        assertArrayEquals(new Object[0], dialect.getArray(rs, "points_z", Integer::valueOf));
+        assertNull(dialect.getArray(rs, "interest_rate", Integer::valueOf));
+        EasyMock.verify(rs);
+    }
+
+    @Test
+    void testPostgreSQLArraysAreTyped() throws SQLException {
+        Dialect dialect = new PostgreSQLDialect();
+        Connection con = EasyMock.mock(Connection.class);
+        Array integers = EasyMock.mock(Array.class);
+        Array times = EasyMock.mock(Array.class);
+        EasyMock.expect(con.createArrayOf(EasyMock.eq("integer"), EasyMock.aryEq(new Object[] { 1, 2 }))).andReturn(integers).times(2);
+        EasyMock.expect(con.createArrayOf(EasyMock.eq("time"), EasyMock.aryEq(new Object[0]))).andReturn(times);
+        EasyMock.replay(con);
+        assertSame(integers, dialect.toDatabase(con, new Integer[] { 1, 2 }));
+        assertSame(integers, dialect.toDatabase(con, new int[] { 1, 2 }));
+        assertSame(times, dialect.toDatabase(con, new LocalTime[0]));
+        assertEquals("name", dialect.toDatabase(con, "name"));
+        EasyMock.verify(con);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.entity.Account;
+import com.monst.bankingplugin.entity.geo.location.AccountLocation;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountLocationIndexTest {
+
+    // The world border, the build limits, and the coordinates on either side of zero
+    private static final int[] HORIZONTAL = { -30_000_000, -29_999_999, -1, 0, 1, 29_999_999, 30_000_000 };
+    private static final int[] VERTICAL = { -64, -63, -1, 0, 1, 318, 319 };
+
+    private final AccountLocationIndex index = new AccountLocationIndex();
+
+    private static World world(String name) {
+        World world = EasyMock.niceMock(World.class);
+        EasyMock.expect(world.getName()).andStubReturn(name);
+        EasyMock.replay(world);
+        return world;
+    }
+
+    private static Block block(World world, int x, int y, int z) {
+        Block block = EasyMock.niceMock(Block.class);
+        EasyMock.expect(block.getWorld()).andStubReturn(world);
+        EasyMock.expect(block.getX()).andStubReturn(x);
+        EasyMock.expect(block.getY()).andStubReturn(y);
+        EasyMock.expect(block.getZ()).andStubReturn(z);
+        EasyMock.replay(block);
+        return block;
+    }
+
+    private Account put(AccountLocation location) {
+        Account account = new Account(null, null, location);
+        index.put(account);
+        return account;
+    }
+
+    @Test
+    void testPackIsDistinctAtBoundaries() {
+        Set<Long> packed = new HashSet<>();
+        for (int x : HORIZONTAL)
+            for (int y : VERTICAL)
+                for (int z : HORIZONTAL)
+                    assertTrue(packed.add(AccountLocationIndex.pack(x, y, z)), "(" + x + ", " + y + ", " + z + ")");
+    }
+
+    @Test
+    void testPackDoesNotMixAxes() {
+        // A negative coordinate must not spill its sign bits into the neighboring field
+        assertNotEquals(AccountLocationIndex.pack(-1, 0, 0), AccountLocationIndex.pack(0, 0, -1));
+        assertNotEquals(AccountLocationIndex.pack(0, -1, 0), AccountLocationIndex.pack(0, 0, -1));
+        assertNotEquals(AccountLocationIndex.pack(0, 0, -1), AccountLocationIndex.pack(-1, 0, -1));
+        assertEquals(AccountLocationIndex.pack(0, -1, 0), AccountLocationIndex.pack(0, 4095, 0)); // y only has 12 bits
+    }
+
+    @Test
+    void testDoubleChestAtNegativeCoordinates() {
+        World world = world("world");
+        Account account = put(AccountLocation.fromDatabase(world, -1, -64, -30_000_000, 0, -30_000_000));
+        assertSame(account, index.get(block(world, -1, -64, -30_000_000)));
+        assertSame(account, index.get(block(world, 0, -64, -30_000_000)));
+        assertNull(index.get(block(world, 1, -64, -30_000_000)));
+        assertNull(index.get(block(world, -1, -63, -30_000_000)));
+        assertNull(index.get(block(world, -1, -64, 30_000_000)));
+        assertNull(index.get(block(world("world_nether"), -1, -64, -30_000_000)));
+        index.remove(account);
+        assertFalse(index.contains(block(world, -1, -64, -30_000_000)));
+        assertFalse(index.contains(block(world, 0, -64, -30_000_000)));
+    }
+
+    @Test
+    void testRemoveLeavesReplacementInPlace() {
+        World world = world("world");
+        Account removed = put(AccountLocation.fromDatabase(world, 29_999_999, 319, -1, null, null));
+        Account replacement = put(AccountLocation.fromDatabase(world, 29_999_999, 319, -1, null, null));
+        index.remove(removed);
+        assertSame(replacement, index.get(block(world, 29_999_999, 319, -1)));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.entity.Bank;
+import com.monst.bankingplugin.entity.geo.region.BankRegion;
+import org.bukkit.World;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankRegionIndexTest {
+
+    private World world;
+    private World otherWorld;
+    private BankRegionIndex index;
+
+    private static World world(String name) {
+        World world = EasyMock.niceMock(World.class);
+        EasyMock.expect(world.getName()).andStubReturn(name);
+        EasyMock.replay(world);
+        return world;
+    }
+
+    private static Bank bank(World world, int x1, int z1, int x2, int z2) {
+        return new Bank("bank", null, BankRegion.fromDatabase(world, x1, 0, z1, x2, 255, z2, null, null));
+    }
+
+    @BeforeEach
+    void setUp() {
+        world = world("world");
+        otherWorld = world("world_nether");
+        index = new BankRegionIndex();
+    }
+
+    @Test
+    void testBanksAreFoundInEveryChunkTheyCover() {
+        // Covers chunks -1 and 0 along both axes
+        Bank bank = bank(world, -10, -10, 10, 10);
+        index.put(bank);
+        assertSame(bank, index.getContaining("world", -10, 64, -10));
+        assertSame(bank, index.getContaining("world", -1, 64, 0));
+        assertSame(bank, index.getContaining("world", 0, 64, -1));
+        assertSame(bank, index.getContaining("world", 10, 64, 10));
+        assertNull(index.getContaining("world", 11, 64, 10)); // Same chunk, outside the region
+        assertNull(index.getContaining("world", -10, 300, -10)); // Above the region
+        assertNull(index.getContaining("world", 100, 64, 100)); // Empty chunk
+        assertNull(index.getContaining("world_nether", 0, 64, 0));
+    }
+
+    @Test
+    void testCandidatesShareAChunk() {
+        Bank bank = bank(world, 0, 0, 10, 10);
+        Bank neighbor = bank(world, 20, 0, 30, 10);
+        Bank distant = bank(world, 200, 200, 210, 210);
+        Bank elsewhere = bank(otherWorld, 0, 0, 10, 10);
+        index.put(bank);
+        index.put(neighbor);
+        index.put(distant);
+        index.put(elsewhere);
+        // Chunk 0 and 1 along x, chunk 0 along z
+        assertEquals(Collections.singleton(bank), index.getCandidates(bank(world, 12, 0, 14, 4).getRegion()));
+        assertEquals(Collections.singleton(neighbor), index.getCandidates(bank(world, 17, 0, 18, 4).getRegion()));
+        assertEquals(2, index.getCandidates(bank(world, 5, 5, 25, 5).getRegion()).size());
+        assertTrue(index.getCandidates(bank(world, 100, 100, 110, 110).getRegion()).isEmpty());
+    }
+
+    @Test
+    void testRemoveEmptiesTheBuckets() {
+        Bank bank = bank(world, -20, -20, 20, 20);
+        index.put(bank);
+        index.remove(bank);
+        assertNull(index.getContaining("world", 0, 64, 0));
+        assertTrue(index.getCandidates(bank.getRegion()).isEmpty());
+        index.remove(bank); // Removing a bank that is not indexed does nothing
+    }
+
+    @Test
+    void testLargeBanksAreAlwaysChecked() {
+        // 41 by 41 chunks is more than a bank may be bucketed in
+        Bank large = bank(world, 0, 0, 16 * 40, 16 * 40);
+        Bank small = bank(world, 1000, 1000, 1010, 1010);
+        index.put(large);
+        index.put(small);
+        assertSame(large, index.getContaining("world", 0, 64, 0));
+        assertSame(large, index.getContaining("world", 16 * 40, 64, 16 * 40));
+        assertNull(index.getContaining("world", -1, 64, 0));
+        assertNull(index.getContaining("world_nether", 0, 64, 0));
+        assertEquals(Collections.singleton(large), index.getCandidates(bank(world, 300, 300, 301, 301).getRegion()));
+        // A query covering more chunks than are occupied visits the occupied chunks instead
+        assertEquals(2, index.getCandidates(bank(world, -5000, -5000, 5000, 5000).getRegion()).size());
+        index.remove(large);
+        assertNull(index.getContaining("world", 0, 64, 0));
+        assertEquals(Collections.singleton(small), index.getCandidates(bank(world, -5000, -5000, 5000, 5000).getRegion()));
+    }
+
+    @Test
+    void testBothHalvesOfADoubleChestAcrossAChunkBorder() {
+        // A double chest at x = 15 and 16 has one half in chunk 0 and the other in chunk 1
+        Bank bank = bank(world, 10, 0, 20, 10);
+        index.put(bank);
+        assertSame(bank, index.getContaining("world", 15, 64, 5));
+        assertSame(bank, index.getContaining("world", 16, 64, 5));
+        // A bank covering only the half in chunk 1 is not found from the other half
+        index.clear();
+        Bank half = bank(world, 16, 0, 30, 10);
+        index.put(half);
+        assertNull(index.getContaining("world", 15, 64, 5));
+        assertSame(half, index.getContaining("world", 16, 64, 5));
+        // The same across the border between chunks -1 and 0
+        index.clear();
+        Bank negative = bank(world, -5, -5, 5, 5);
+        index.put(negative);
+        assertSame(negative, index.getContaining("world", 0, 64, -1));
+        assertSame(negative, index.getContaining("world", 0, 64, 0));
+    }
+
+    @Test
+    void testBankWithUnloadedWorldIsNotIndexed() {
+        Bank bank = bank(null, 0, 0, 10, 10);
+        index.put(bank);
+        index.remove(bank);
+        assertNull(index.getContaining("world", 5, 64, 5));
+    }
+
+}
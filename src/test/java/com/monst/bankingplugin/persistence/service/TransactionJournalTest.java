@@ -0,0 +1,159 @@
+package com.monst.bankingplugin.persistence.service;
+
+import com.monst.bankingplugin.BankingPlugin;
+import com.monst.bankingplugin.entity.log.AccountTransaction;
+import org.bukkit.OfflinePlayer;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path folder;
+
+    private BankingPlugin plugin;
+    private OfflinePlayer executor;
+    private final List<AccountTransaction> inserted = new ArrayList<>();
+    private int inserts;
+    private boolean databaseDown;
+    private int deletedAccountID = -1;
+    private int unavailableAccountID = -1;
+
+    @BeforeEach
+    void setUp() {
+        plugin = EasyMock.niceMock(BankingPlugin.class);
+        executor = EasyMock.niceMock(OfflinePlayer.class);
+        EasyMock.expect(executor.getUniqueId()).andStubReturn(UUID.randomUUID());
+        EasyMock.replay(plugin, executor);
+    }
+
+    private TransactionJournal journal() {
+        return new TransactionJournal(plugin, folder.resolve("journal.log"), transactions -> {
+            inserts++;
+            if (databaseDown)
+                throw new SQLTransientConnectionException("Connection is not available", "08001");
+            for (AccountTransaction transaction : transactions)
+                if (transaction.getAccountID() == deletedAccountID)
+                    throw new SQLIntegrityConstraintViolationException("Foreign key violation", "23503");
+            for (AccountTransaction transaction : transactions)
+                if (transaction.getAccountID() == unavailableAccountID)
+                    throw new SQLTransientConnectionException("Connection is not available", "08001");
+            inserted.addAll(transactions);
+        }, uuid -> executor);
+    }
+
+    private AccountTransaction transaction(int accountID) {
+        return new AccountTransaction(0, Instant.now(), accountID, 1, executor,
+                BigDecimal.ZERO, BigDecimal.ONE, BigDecimal.ONE);
+    }
+
+    @Test
+    void testFlush() {
+        TransactionJournal journal = journal();
+        for (int i = 0; i < 1000; i++)
+            journal.append(transaction(i));
+        assertTrue(Files.exists(folder.resolve("journal.log")));
+        journal.flush();
+        assertEquals(1000, inserted.size());
+        assertEquals(2, inserts); // Two batches
+        assertFalse(Files.exists(folder.resolve("journal.log")));
+    }
+
+    @Test
+    void testRejectedTransactionIsDropped() {
+        TransactionJournal journal = journal();
+        deletedAccountID = 5;
+        for (int i = 0; i < 10; i++)
+            journal.append(transaction(i));
+        journal.flush();
+        assertEquals(9, inserted.size());
+        assertFalse(Files.exists(folder.resolve("journal.log")));
+        journal.append(transaction(20));
+        journal.flush();
+        assertEquals(10, inserted.size());
+    }
+
+    @Test
+    void testAppendDoesNotBlockWhenDatabaseIsDown() {
+        TransactionJournal journal = journal();
+        databaseDown = true;
+        for (int i = 0; i < 10_000; i++) // More than the queue holds
+            journal.append(transaction(i));
+        assertEquals(0, inserts);
+        journal.flush();
+        assertEquals(2, inserts); // The first batch, and its first transaction on its own
+        assertTrue(Files.exists(folder.resolve("journal.log")));
+    }
+
+    @Test
+    void testRetriesAreLimited() {
+        TransactionJournal journal = journal();
+        databaseDown = true;
+        journal.append(transaction(1));
+        for (int i = 0; i < 10; i++)
+            journal.flush();
+        assertEquals(6, inserts); // Three attempts of the batch and of the transaction on its own
+        assertTrue(inserted.isEmpty());
+        assertTrue(Files.exists(folder.resolve("journal.log")));
+    }
+
+    @Test
+    void testRecoverInsertsUncommittedTransactionsOnce() {
+        TransactionJournal journal = journal();
+        for (int i = 1; i <= 5; i++)
+            journal.append(transaction(i));
+        unavailableAccountID = 4; // The first three are committed, the connection is lost before the other two
+        journal.flush();
+        assertEquals(3, inserted.size());
+        assertTrue(Files.exists(folder.resolve("journal.log")));
+
+        // The server stops, and the journal is opened again with the database back up
+        unavailableAccountID = -1;
+        inserted.clear();
+        journal().recover();
+        assertEquals(2, inserted.size());
+        assertEquals(4, inserted.get(0).getAccountID());
+        assertEquals(5, inserted.get(1).getAccountID());
+        assertFalse(Files.exists(folder.resolve("journal.log")));
+
+        inserted.clear();
+        journal().recover();
+        assertTrue(inserted.isEmpty());
+    }
+
+    @Test
+    void testTransactionsAppendedAfterRecoverAreKept() {
+        TransactionJournal journal = journal();
+        unavailableAccountID = 2;
+        journal.append(transaction(1));
+        journal.append(transaction(2));
+        journal.flush();
+        assertEquals(1, inserted.size());
+
+        unavailableAccountID = -1;
+        inserted.clear();
+        TransactionJournal reopened = journal();
+        reopened.recover();
+        reopened.append(transaction(3));
+        reopened.flush();
+        assertEquals(2, inserted.size());
+        assertEquals(2, inserted.get(0).getAccountID());
+        assertEquals(3, inserted.get(1).getAccountID());
+        assertFalse(Files.exists(folder.resolve("journal.log")));
+    }
+
+}
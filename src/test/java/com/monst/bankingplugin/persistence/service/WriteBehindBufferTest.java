@@ -0,0 +1,47 @@
+package com.monst.bankingplugin.persistence.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindBufferTest {
+
+    @Test
+    void testFlushed() {
+        WriteBehindBuffer<String> buffer = new WriteBehindBuffer<>();
+        buffer.add("a");
+        buffer.add("b");
+        List<String> drained = buffer.drain();
+        assertEquals(Arrays.asList("a", "b"), drained);
+        assertTrue(buffer.isEmpty());
+        buffer.flushed(drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testFailedIsBufferedAgain() {
+        WriteBehindBuffer<String> buffer = new WriteBehindBuffer<>();
+        buffer.add("a");
+        buffer.add("b");
+        List<String> drained = buffer.drain();
+        buffer.add("c");
+        buffer.failed(drained);
+        assertEquals(Arrays.asList("c", "a", "b"), buffer.drain());
+    }
+
+    @Test
+    void testRemovedDuringFlushIsNotBufferedAgain() {
+        WriteBehindBuffer<String> buffer = new WriteBehindBuffer<>();
+        buffer.add("a");
+        buffer.add("b");
+        List<String> drained = buffer.drain();
+        buffer.remove("a");
+        buffer.failed(drained);
+        assertEquals(Collections.singletonList("b"), buffer.drain());
+    }
+
+}
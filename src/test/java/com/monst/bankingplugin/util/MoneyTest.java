@@ -0,0 +1,64 @@
+package com.monst.bankingplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MoneyTest {
+
+    @Test
+    void testRoundsHalfEvenFromBigDecimal() {
+        assertEquals(12, Money.of(new BigDecimal("0.125")).getCents());
+        assertEquals(14, Money.of(new BigDecimal("0.135")).getCents());
+        assertEquals(-12, Money.of(new BigDecimal("-0.125")).getCents());
+        assertEquals(Money.ZERO, Money.of(null));
+    }
+
+    @Test
+    void testMultiplyMatchesBigDecimal() {
+        BigDecimal[] factors = { new BigDecimal("0.01"), new BigDecimal("0.0125"), new BigDecimal("0.0375"),
+                new BigDecimal("2"), new BigDecimal("1E+2"), new BigDecimal("-0.005") };
+        for (long cents = -1000; cents <= 1000; cents += 7) {
+            Money money = Money.ofCents(cents);
+            for (BigDecimal factor : factors) {
+                BigDecimal expected = money.toBigDecimal().multiply(factor).setScale(2, RoundingMode.HALF_EVEN);
+                assertEquals(expected, money.multiply(factor).toBigDecimal(), money + " x " + factor);
+            }
+        }
+    }
+
+    @Test
+    void testOfUnscaledMatchesBigDecimal() {
+        long[] amounts = { 0, 1, -1, 125, 135, -125, 99_999 };
+        for (long amount : amounts)
+            for (int scale = -10; scale <= 25; scale++)
+                assertEquals(Money.of(BigDecimal.valueOf(amount, scale)), Money.of(amount, scale), amount + "E-" + scale);
+        for (int scale = 2; scale <= 25; scale++) {
+            assertEquals(Money.of(BigDecimal.valueOf(Long.MAX_VALUE, scale)), Money.of(Long.MAX_VALUE, scale));
+            assertEquals(Money.of(BigDecimal.valueOf(Long.MIN_VALUE, scale)), Money.of(Long.MIN_VALUE, scale));
+        }
+    }
+
+    @Test
+    void testDivideRoundsHalfEven() {
+        assertEquals(2, Money.ofCents(5).divide(2).getCents());
+        assertEquals(4, Money.ofCents(7).divide(2).getCents());
+        assertEquals(-2, Money.ofCents(-5).divide(2).getCents());
+        assertEquals(33, Money.ofCents(100).divide(3).getCents());
+    }
+
+    @Test
+    void testArithmetic() {
+        Money a = Money.ofCents(1050);
+        Money b = Money.ofCents(-275);
+        assertEquals(Money.ofCents(775), a.add(b));
+        assertEquals(Money.ofCents(1325), a.subtract(b));
+        assertEquals(Money.ofCents(275), b.abs());
+        assertEquals(new BigDecimal("10.50"), a.toBigDecimal());
+        assertEquals("-2.75", b.toString());
+    }
+
+}